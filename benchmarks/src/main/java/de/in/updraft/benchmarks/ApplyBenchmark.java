@@ -0,0 +1,136 @@
+package de.in.updraft.benchmarks;
+
+import de.in.updraft.launcher.UpdateLauncher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Installs a staged update the way the launcher does after the application
+ * has exited: a staged directory is merged into a hard-linked clone of the
+ * install directory that is then swapped in, a jar is replaced by a rename.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ApplyBenchmark {
+
+    /** Files in the install directory. */
+    @Param({ "500", "5000" })
+    public int files;
+
+    /** Share of the files that change with the update, in percent. */
+    @Param({ "10" })
+    public int changedPercent;
+
+    private Path root;
+    private Path installDir;
+    private Path staged;
+    private Path stagedJar;
+    private long exitedPid;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        root = Files.createTempDirectory("updraft-apply");
+        installDir = root.resolve("app");
+        Files.createDirectories(installDir.resolve("lib"));
+        for (int i = 0; i < files; i++) {
+            Files.write(installDir.resolve("lib/file-" + i + ".class"), random(16 * 1024, i));
+        }
+        Files.write(installDir.resolve("app.jar"), random(32 << 20, -1));
+        // The launcher waits for the application to exit; give it a process
+        // that has already ended.
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-version").redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        process.waitFor();
+        exitedPid = process.pid();
+    }
+
+    @Setup(Level.Invocation)
+    public void stage() throws IOException {
+        delete(root.resolve("app" + UpdateLauncher.PREVIOUS_SUFFIX));
+        staged = root.resolve("staged");
+        delete(staged);
+        Files.createDirectories(staged.resolve("lib"));
+        Random random = new Random();
+        for (int i = 0; i < files * changedPercent / 100; i++) {
+            Files.write(staged.resolve("lib/file-" + random.nextInt(files) + ".class"), random(16 * 1024, i));
+        }
+        stagedJar = root.resolve("staged.jar");
+        Files.copy(installDir.resolve("app.jar"), stagedJar);
+    }
+
+    @Benchmark
+    public boolean installDirectory() throws IOException {
+        return UpdateLauncher.run(writePlan(UpdateLauncher.MODE_DIRECTORY, staged));
+    }
+
+    @Benchmark
+    public boolean installJar() throws IOException {
+        return UpdateLauncher.run(writePlan(UpdateLauncher.MODE_JAR, stagedJar));
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeStaged() throws IOException {
+        delete(staged);
+        Files.deleteIfExists(stagedJar);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        delete(root);
+    }
+
+    private Path writePlan(String mode, Path source) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("pid", String.valueOf(exitedPid));
+        properties.setProperty("mode", mode);
+        properties.setProperty("source", source.toString());
+        properties.setProperty("target", installDir.resolve("app.jar").toString());
+        properties.setProperty("version", "2.0.0");
+        properties.setProperty("status", root.resolve("status.properties").toString());
+        Path plan = root.resolve("update.plan");
+        try (OutputStream out = Files.newOutputStream(plan)) {
+            properties.store(out, null);
+        }
+        return plan;
+    }
+
+    private static byte[] random(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (var paths = Files.walk(path)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package de.in.updraft.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks with JMH and writes the results as JSON to
+ * {@code jmh-result.json} unless another result format is given, so that runs
+ * can be compared by tools.
+ * <p>
+ * All JMH options are accepted, e.g.
+ * {@code java -jar benchmarks.jar Version -rff version.json}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.add(0, "json");
+            options.add(0, "-rf");
+        }
+        if (!options.contains("-rff")) {
+            options.add(0, "jmh-result.json");
+            options.add(0, "-rff");
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,138 @@
+package de.in.updraft.benchmarks;
+
+import de.in.updraft.StagedUpdate;
+import de.in.updraft.UpdateInfo;
+import de.in.updraft.UpdateRunner;
+import de.in.updraft.download.DownloadEngine;
+import de.in.updraft.transport.HttpTransport;
+import de.in.updraft.util.Checksums;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Downloads, verifies and stages an update from a {@link LoopbackServer}, as
+ * {@link UpdateRunner#stage(UpdateInfo, String)} does before a restart. A jar
+ * goes through the segmented download, a zip is unpacked while it streams.
+ * Throughput is the artifact size divided by the time per operation.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DownloadBenchmark {
+
+    @Param({ "64" })
+    public int sizeMegabytes;
+
+    @Param({ "jar", "zip" })
+    public String format;
+
+    /** Delay before each response, as a WAN round trip would add. */
+    @Param({ "0", "20" })
+    public long latencyMillis;
+
+    /** Bandwidth per connection in bytes per second, 0 for unlimited. */
+    @Param({ "0" })
+    public long bytesPerSecond;
+
+    @Param({ "1", "4" })
+    public int segments;
+
+    private LoopbackServer server;
+    private Path directory;
+    private UpdateRunner runner;
+    private UpdateInfo info;
+    private StagedUpdate staged;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        byte[] content = format.equals("zip") ? zip(sizeMegabytes) : random(sizeMegabytes << 20, 1);
+        server = new LoopbackServer(latencyMillis, bytesPerSecond);
+        server.put("/app." + format, content);
+
+        directory = Files.createTempDirectory("updraft-download");
+        DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), segments,
+                1024 * 1024);
+        runner = new UpdateRunner(directory.resolve("app.jar"), engine);
+        runner.setStagingDirectory(directory.resolve("staging"));
+        info = new UpdateInfo("2.0.0", server.uri("/app." + format).toString(), "", List.of(), null,
+                Checksums.toHex(Checksums.sha256().digest(content)), content.length, null);
+    }
+
+    @Benchmark
+    public StagedUpdate stage() throws Exception {
+        staged = runner.stage(info, null);
+        return staged;
+    }
+
+    @TearDown(Level.Invocation)
+    public void removeStaged() throws IOException {
+        if (staged != null && Files.isRegularFile(staged.path())) {
+            Files.delete(staged.path());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.close();
+        try (var files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static byte[] random(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * A zip of the given size with many small files and a few large ones, like
+     * an application bundle.
+     */
+    private static byte[] zip(int megabytes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            out.setLevel(0);
+            int large = megabytes / 2;
+            for (int i = 0; i < large / 8; i++) {
+                out.putNextEntry(new ZipEntry("lib/large-" + i + ".jar"));
+                out.write(random(8 << 20, i));
+                out.closeEntry();
+            }
+            int small = (megabytes - large) * 32;
+            for (int i = 0; i < small; i++) {
+                out.putNextEntry(new ZipEntry("lib/small/file-" + i + ".class"));
+                out.write(random(32 * 1024, i));
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,119 @@
+package de.in.updraft.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process HTTP server on the loopback interface that serves files from
+ * memory like a web server would, including range requests, with a
+ * configurable latency and bandwidth per connection.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public final class LoopbackServer implements AutoCloseable {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final long latencyMillis;
+    private final long bytesPerSecond;
+
+    /**
+     * @param latencyMillis  Delay before each response.
+     * @param bytesPerSecond Bandwidth of each connection, 0 for unlimited.
+     */
+    public LoopbackServer(long latencyMillis, long bytesPerSecond) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.bytesPerSecond = bytesPerSecond;
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "loopback-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public void put(String path, byte[] content) {
+        files.put(path, content);
+    }
+
+    public URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (latencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+            byte[] content = files.get(exchange.getRequestURI().getPath());
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().add("ETag", "\"" + content.length + "\"");
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            int start = 0;
+            int end = content.length - 1;
+            int status = 200;
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null && range.startsWith("bytes=")) {
+                String[] bounds = range.substring(6).split("-", 2);
+                start = Integer.parseInt(bounds[0]);
+                if (!bounds[1].isEmpty()) {
+                    end = Math.min(end, Integer.parseInt(bounds[1]));
+                }
+                status = 206;
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + start + "-" + end + "/" + content.length);
+            }
+            exchange.sendResponseHeaders(status, end - start + 1);
+            try (OutputStream out = exchange.getResponseBody()) {
+                write(out, content, start, end + 1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(OutputStream out, byte[] content, int from, int to)
+            throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        for (int pos = from; pos < to; pos += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, to - pos);
+            out.write(content, pos, length);
+            if (bytesPerSecond > 0) {
+                long due = started + (pos + length - from) * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
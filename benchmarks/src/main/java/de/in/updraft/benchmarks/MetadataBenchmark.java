@@ -0,0 +1,168 @@
+package de.in.updraft.benchmarks;
+
+import de.in.updraft.UpdateChannel;
+import de.in.updraft.UpdateInfo;
+import de.in.updraft.source.GithubReleaseSource;
+import de.in.updraft.source.JsonMetadataSource;
+import de.in.updraft.source.MetadataCache;
+import de.in.updraft.transport.FileTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Parsing of update metadata in the size GitHub returns for busy projects. The
+ * responses are served by a {@link FileTransport} and every invocation starts
+ * with an empty cache, so each one reads and parses the full body.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetadataBenchmark {
+    private static final Logger GITHUB_LOGGER = Logger.getLogger(GithubReleaseSource.class.getName());
+
+    /** Releases on the nightly page, the GitHub maximum being 100. */
+    @Param({ "30", "100" })
+    public int releases;
+
+    @Param({ "20" })
+    public int assetsPerRelease;
+
+    private Path root;
+    private GithubReleaseSource stable;
+    private GithubReleaseSource nightly;
+    private JsonMetadataSource json;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        GITHUB_LOGGER.setLevel(java.util.logging.Level.WARNING);
+        root = Files.createTempDirectory("updraft-metadata");
+        Path api = root.resolve("api.github.com/repos/owner");
+        Files.createDirectories(api.resolve("stable/releases"));
+        Files.createDirectories(api.resolve("nightly"));
+        Files.createDirectories(root.resolve("updates.example.com"));
+
+        Files.writeString(api.resolve("stable/releases/latest"), release(releases, false), StandardCharsets.UTF_8);
+        StringBuilder list = new StringBuilder("[");
+        for (int i = releases; i > 0; i--) {
+            list.append(release(i, i % 3 == 0)).append(i > 1 ? "," : "");
+        }
+        Files.writeString(api.resolve("nightly/releases"), list.append(']'), StandardCharsets.UTF_8);
+        Files.writeString(root.resolve("updates.example.com/update.json"), metadata(), StandardCharsets.UTF_8);
+
+        FileTransport transport = new FileTransport(root);
+        stable = new GithubReleaseSource("owner", "stable", UpdateChannel.STABLE, transport);
+        nightly = new GithubReleaseSource("owner", "nightly", UpdateChannel.NIGHTLY, transport);
+        json = new JsonMetadataSource("https://updates.example.com/update.json", transport);
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyCaches() {
+        stable.setMetadataCache(new MetadataCache());
+        nightly.setMetadataCache(new MetadataCache());
+        json.setMetadataCache(new MetadataCache());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (var files = Files.walk(root)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public UpdateInfo githubLatest() throws Exception {
+        return stable.fetchUpdate();
+    }
+
+    @Benchmark
+    public UpdateInfo githubNightlyPage() throws Exception {
+        return nightly.fetchUpdate();
+    }
+
+    @Benchmark
+    public UpdateInfo jsonMetadata() throws Exception {
+        return json.fetchUpdate();
+    }
+
+    /**
+     * A release object with the fields and nesting GitHub returns.
+     */
+    private String release(int number, boolean prerelease) {
+        String tag = "v1." + number + ".0" + (prerelease ? "-rc.1" : "");
+        String base = "https://api.github.com/repos/owner/repo/releases/" + (1000 + number);
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"url\":\"").append(base).append("\",\"assets_url\":\"").append(base)
+                .append("/assets\",\"html_url\":\"https://github.com/owner/repo/releases/tag/").append(tag)
+                .append("\",\"id\":").append(1000 + number).append(",\"author\":").append(user())
+                .append(",\"node_id\":\"RE_kwDOAbCdEf4AAAAA\",\"tag_name\":\"").append(tag)
+                .append("\",\"target_commitish\":\"main\",\"name\":\"Release ").append(tag)
+                .append("\",\"draft\":false,\"prerelease\":").append(prerelease)
+                .append(",\"created_at\":\"2024-05-01T10:00:00Z\",\"published_at\":\"2024-05-01T10:05:00Z\",")
+                .append("\"assets\":[");
+        for (int i = 0; i < assetsPerRelease; i++) {
+            String name = i == 0 ? "app.tar.gz" : i == 1 ? "app.zip" : "plugin-" + i + ".jar";
+            sb.append(i > 0 ? "," : "").append("{\"url\":\"").append(base).append("/assets/").append(i)
+                    .append("\",\"id\":").append(i).append(",\"node_id\":\"RA_kwDOAbCdEf4AAAAA\",\"name\":\"")
+                    .append(name).append("\",\"label\":null,\"uploader\":").append(user())
+                    .append(",\"content_type\":\"application/octet-stream\",\"state\":\"uploaded\",\"size\":")
+                    .append(10_000_000 + i).append(",\"digest\":\"sha256:").append("ab".repeat(32))
+                    .append("\",\"download_count\":").append(i * 17)
+                    .append(",\"created_at\":\"2024-05-01T10:01:00Z\",\"updated_at\":\"2024-05-01T10:02:00Z\",")
+                    .append("\"browser_download_url\":\"https://github.com/owner/repo/releases/download/")
+                    .append(tag).append('/').append(name).append("\"}");
+        }
+        sb.append("],\"tarball_url\":\"").append(base).append("/tarball\",\"zipball_url\":\"").append(base)
+                .append("/zipball\",\"body\":\"").append(changelog()).append("\"}");
+        return sb.toString();
+    }
+
+    private static String user() {
+        return "{\"login\":\"release-bot\",\"id\":123456,\"node_id\":\"MDQ6VXNlcjEyMzQ1Ng==\","
+                + "\"avatar_url\":\"https://avatars.githubusercontent.com/u/123456?v=4\",\"gravatar_id\":\"\","
+                + "\"url\":\"https://api.github.com/users/release-bot\",\"type\":\"Bot\",\"site_admin\":false}";
+    }
+
+    private static String changelog() {
+        StringBuilder sb = new StringBuilder("## What's Changed\\n");
+        for (int i = 0; i < 40; i++) {
+            sb.append("* Fix issue \\\"").append(i).append("\\\" in the download engine by @dev in #").append(4000 + i)
+                    .append("\\n");
+        }
+        return sb.toString();
+    }
+
+    private String metadata() {
+        StringBuilder sb = new StringBuilder("{\"version\":\"1.").append(releases).append(".0\",")
+                .append("\"url\":\"https://updates.example.com/app.tar.gz\",\"sha256\":\"").append("ab".repeat(32))
+                .append("\",\"size\":10000000,\"changelog\":\"").append(changelog()).append("\",\"patches\":[");
+        for (int i = 0; i < releases; i++) {
+            sb.append(i > 0 ? "," : "").append("{\"from\":\"1.").append(i)
+                    .append(".0\",\"url\":\"https://updates.example.com/app.from-1.").append(i)
+                    .append(".0.patch\",\"sha256\":\"").append("cd".repeat(32)).append("\"}");
+        }
+        return sb.append("]}").toString();
+    }
+}
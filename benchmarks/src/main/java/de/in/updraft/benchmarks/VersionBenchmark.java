@@ -0,0 +1,92 @@
+package de.in.updraft.benchmarks;
+
+import de.in.updraft.util.Version;
+import de.in.updraft.util.VersionRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing, comparing, sorting and filtering of release versions.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionBenchmark {
+
+    @Param({ "5000" })
+    public int count;
+
+    private String[] strings;
+    private List<Version> versions;
+    private Version left;
+    private Version right;
+    private VersionRange range;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        strings = new String[count];
+        versions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String version = "v" + random.nextInt(5) + "." + random.nextInt(30) + "." + random.nextInt(100);
+            if (random.nextInt(4) == 0) {
+                version += "-rc." + random.nextInt(12);
+            }
+            if (random.nextInt(8) == 0) {
+                version += "+build." + random.nextInt(1000);
+            }
+            strings[i] = version;
+            versions.add(new Version(version));
+        }
+        left = new Version("2.10.0-rc.10");
+        right = new Version("2.10.0-rc.9");
+        range = VersionRange.parse("^2.4 || >=4.0.0-rc.1 <4.1");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void parseAll(Blackhole blackhole) {
+        for (String string : strings) {
+            blackhole.consume(new Version(string));
+        }
+    }
+
+    @Benchmark
+    public int comparePreReleases() {
+        return left.compareTo(right);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Version> sortAll() {
+        List<Version> copy = new ArrayList<>(versions);
+        copy.sort(null);
+        return copy;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Version> filterByRange() {
+        return range.filter(versions);
+    }
+}
@@ -0,0 +1,24 @@
+package de.in.updraft;
+
+/**
+ * One artifact of a release that consists of several, e.g. the core jar, a
+ * plugin jar or a bundled runtime. All artifacts of an update are installed
+ * together or not at all.
+ *
+ * @param path         Where the artifact goes, relative to the install
+ *                     directory. Archives are unpacked into this directory and
+ *                     replace its contents.
+ * @param url          Download location of the artifact.
+ * @param sha256       The expected hex SHA-256 of the artifact, or null.
+ * @param size         The expected length of the artifact, or -1 if unknown.
+ * @param signatureUrl Location of a detached signature of the artifact, or
+ *                     null.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public record Artifact(String path, String url, String sha256, long size, String signatureUrl) {
+
+    public Artifact(String path, String url) {
+        this(path, url, null, -1, null);
+    }
+}
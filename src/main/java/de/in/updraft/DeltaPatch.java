@@ -0,0 +1,15 @@
+package de.in.updraft;
+
+/**
+ * A binary patch that rebuilds the artifact of an update from the artifact of
+ * an older version.
+ *
+ * @param fromVersion  The version the patch applies to.
+ * @param url          Download location of the patch.
+ * @param targetSha256 SHA-256 of the rebuilt artifact, used to verify the
+ *                     result.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public record DeltaPatch(String fromVersion, String url, String targetSha256) {
+}
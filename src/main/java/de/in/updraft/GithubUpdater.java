@@ -1,25 +1,91 @@
 package de.in.updraft;
 
+import de.in.updraft.metrics.Instrumentation;
+import de.in.updraft.metrics.Outcome;
+import de.in.updraft.metrics.Phase;
+import de.in.updraft.util.Tasks;
 import de.in.updraft.util.Version;
+import de.in.updraft.util.VersionRange;
 
 import java.io.IOException;
 
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main class for managing updates.
+ * <p>
+ * Besides the blocking methods there are asynchronous variants that run on
+ * virtual threads where available (see {@link #setExecutor(Executor)}) and are
+ * bounded by a deadline per phase.
+ * <p>
+ * Updates can also be installed in two steps: {@link #stageAsync(UpdateInfo)}
+ * downloads, verifies and stages the update in the background while the
+ * application keeps running, and the swap happens later on
+ * {@link #applyStaged()} or, after {@link #applyStagedOnExit()}, when the
+ * application exits.
  * 
  * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
  */
 public class GithubUpdater {
     private final String currentVersion;
+    private final Version installed;
     private final UpdateSource source;
     private final UpdateRunner runner;
+    private Executor executor = Tasks.defaultExecutor();
+    private Duration checkTimeout = Duration.ofSeconds(30);
+    private Duration downloadTimeout = Duration.ofMinutes(30);
+    private VersionRange allowedVersions = VersionRange.ANY;
 
     public GithubUpdater(String currentVersion, UpdateSource source, Path applicationJar) {
+        this(currentVersion, source, new UpdateRunner(applicationJar));
+    }
+
+    public GithubUpdater(String currentVersion, UpdateSource source, UpdateRunner runner) {
         this.currentVersion = currentVersion;
+        this.installed = new Version(currentVersion);
         this.source = source;
-        this.runner = new UpdateRunner(applicationJar);
+        this.runner = runner;
+    }
+
+    /**
+     * Sets the executor for the asynchronous methods.
+     *
+     * @param executor The executor.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Restricts updates to a range, e.g. {@code ^2.0} to stay on the current
+     * major version. Pre-releases are only offered if the range names one.
+     *
+     * @param allowedVersions The versions that may be installed.
+     */
+    public void setAllowedVersions(VersionRange allowedVersions) {
+        this.allowedVersions = allowedVersions;
+    }
+
+    /**
+     * @param checkTimeout Deadline for {@link #checkForUpdatesAsync()}, or null
+     *                     for none.
+     */
+    public void setCheckTimeout(Duration checkTimeout) {
+        this.checkTimeout = checkTimeout;
+    }
+
+    /**
+     * @param downloadTimeout Deadline for the download phase of
+     *                        {@link #performUpdateAsync(UpdateInfo)}, or null
+     *                        for none.
+     */
+    public void setDownloadTimeout(Duration downloadTimeout) {
+        this.downloadTimeout = downloadTimeout;
     }
 
     /**
@@ -30,12 +96,28 @@ public class GithubUpdater {
      * @throws InterruptedException If interrupted.
      */
     public UpdateInfo checkForUpdates() throws IOException, InterruptedException {
+        Instrumentation.Span span = Instrumentation.start(Phase.CHECK, source.getClass().getSimpleName(), null);
+        try {
+            UpdateInfo info = findUpdate();
+            if (info != null) {
+                span.version(info.version()).success();
+            } else {
+                span.end(Outcome.NO_UPDATE, null);
+            }
+            return info;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            span.failure(e);
+            throw e;
+        }
+    }
+
+    private UpdateInfo findUpdate() throws IOException, InterruptedException {
         UpdateInfo info = source.fetchUpdate();
         if (info == null || info.version() == null) {
             return null;
         }
         Version latest = new Version(info.version());
-        if (latest.isNewerThan(currentVersion)) {
+        if (latest.isNewerThan(installed) && (allowedVersions == VersionRange.ANY || allowedVersions.test(latest))) {
             return info;
         }
         return null;
@@ -49,7 +131,101 @@ public class GithubUpdater {
      * @throws InterruptedException If interrupted.
      */
     public void performUpdate(UpdateInfo info) throws IOException, InterruptedException {
-        runner.downloadAndUpdate(info);
+        runner.downloadAndUpdate(info, currentVersion);
+    }
+
+    /**
+     * Checks for updates without blocking the caller. Cancelling the future, or
+     * hitting the check timeout, interrupts the request.
+     *
+     * @return A future for the update info, which is null if no update is
+     *         available.
+     */
+    public CompletableFuture<UpdateInfo> checkForUpdatesAsync() {
+        CompletableFuture<UpdateInfo> future = Tasks.run(new CompletableFuture<>(), this::checkForUpdates, executor);
+        if (checkTimeout != null) {
+            future.orTimeout(checkTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    /**
+     * Downloads and applies the update without blocking the caller.
+     *
+     * @param info The update info to apply.
+     * @return A handle to follow or cancel the update.
+     */
+    public UpdateHandle performUpdateAsync(UpdateInfo info) {
+        UpdateHandle handle = new UpdateHandle(downloadTimeout);
+        Tasks.run(handle.completion(), () -> {
+            StagedUpdate staged = runner.stage(info, currentVersion, handle.progress());
+            if (!handle.beginApply()) {
+                throw new CancellationException("Update to " + info.version() + " was cancelled");
+            }
+            runner.apply(staged);
+            return null;
+        }, executor);
+        return handle;
+    }
+
+    /**
+     * Downloads, verifies and stages the update without blocking the caller or
+     * touching the installation. The handle completes once the update is ready
+     * for {@link #applyStaged()}.
+     *
+     * @param info The update info to stage.
+     * @return A handle to follow or cancel the download.
+     */
+    public UpdateHandle stageAsync(UpdateInfo info) {
+        UpdateHandle handle = new UpdateHandle(downloadTimeout);
+        Tasks.run(handle.completion(), () -> {
+            runner.stageForLater(info, currentVersion, handle.progress());
+            return null;
+        }, executor);
+        return handle;
+    }
+
+    /**
+     * @return The update staged by {@link #stageAsync(UpdateInfo)}, possibly in
+     *         an earlier run, or null if there is none. An update that is not
+     *         newer than the running version is discarded.
+     * @throws IOException If the staged update cannot be read or discarded.
+     */
+    public StagedUpdate stagedUpdate() throws IOException {
+        StagedUpdate staged = runner.pendingUpdate();
+        if (staged != null && !new Version(staged.version()).isNewerThan(installed)) {
+            runner.discardPendingUpdate();
+            return null;
+        }
+        return staged;
+    }
+
+    /**
+     * Applies the staged update, which only swaps files, and restarts the
+     * application (see {@link UpdateRunner#apply(StagedUpdate)}).
+     *
+     * @return false if no update is staged.
+     * @throws IOException If the update cannot be started.
+     */
+    public boolean applyStaged() throws IOException {
+        StagedUpdate staged = stagedUpdate();
+        if (staged == null) {
+            return false;
+        }
+        runner.apply(staged);
+        return true;
+    }
+
+    /**
+     * Installs an update that is staged when the application exits, so the
+     * next regular start runs the new version. Call it once at start-up; it
+     * also covers updates staged by an earlier run.
+     *
+     * @throws IOException If an outdated staged update cannot be discarded.
+     */
+    public void applyStagedOnExit() throws IOException {
+        stagedUpdate();
+        runner.applyPendingOnExit();
     }
 
     /**
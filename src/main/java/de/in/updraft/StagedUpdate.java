@@ -0,0 +1,70 @@
+package de.in.updraft;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * An update that has been downloaded and verified and is ready to be applied.
+ *
+ * @param version The version of the update.
+ * @param path    The new jar, an archive, or a directory of staged files that
+ *                mirrors the install directory.
+ * @param removed Paths relative to the install directory to delete on apply.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public record StagedUpdate(String version, Path path, List<String> removed) {
+
+    public StagedUpdate {
+        removed = removed != null ? List.copyOf(removed) : List.of();
+    }
+
+    /**
+     * @param file A file written by {@link #write(Path)}.
+     * @return The update, or null if the file or the staged files are gone.
+     * @throws IOException If the file cannot be read.
+     */
+    static StagedUpdate read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+        String path = props.getProperty("path");
+        if (path == null || !Files.exists(Path.of(path))) {
+            return null;
+        }
+        List<String> removed = new ArrayList<>();
+        for (int i = 0; props.containsKey("removed." + i); i++) {
+            removed.add(props.getProperty("removed." + i));
+        }
+        return new StagedUpdate(props.getProperty("version", ""), Path.of(path), removed);
+    }
+
+    /**
+     * Records the update so that a later process can apply it. The file is
+     * replaced atomically.
+     */
+    void write(Path file) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("version", version);
+        props.setProperty("path", path.toAbsolutePath().toString());
+        for (int i = 0; i < removed.size(); i++) {
+            props.setProperty("removed." + i, removed.get(i));
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "SimpleUpDraft4J staged update");
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
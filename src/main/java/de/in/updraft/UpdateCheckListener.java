@@ -0,0 +1,31 @@
+package de.in.updraft;
+
+/**
+ * Receives the results of the checks run by an {@link UpdateScheduler}.
+ * Callbacks run on the scheduler thread and should return quickly.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public interface UpdateCheckListener {
+
+    /**
+     * Called once for every newer version found.
+     *
+     * @param info The update.
+     */
+    void onUpdateAvailable(UpdateInfo info);
+
+    /**
+     * Called after a check that found nothing new.
+     */
+    default void onNoUpdate() {
+    }
+
+    /**
+     * Called after a failed check.
+     *
+     * @param e The cause.
+     */
+    default void onCheckFailed(Exception e) {
+    }
+}
@@ -0,0 +1,96 @@
+package de.in.updraft;
+
+import de.in.updraft.download.DownloadProgress;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tracks an update started with {@link GithubUpdater#performUpdateAsync}.
+ * <p>
+ * The download can be cancelled, which interrupts it and leaves the
+ * installation untouched. Once the update is being applied it can no longer be
+ * cancelled. The progress of the download can be polled, e.g. to drive a
+ * progress bar.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public final class UpdateHandle {
+
+    public enum Phase {
+        DOWNLOADING,
+        /** All bytes have arrived; the artifact is being verified and staged. */
+        VERIFYING,
+        APPLYING, DONE, CANCELLED, FAILED
+    }
+
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private final DownloadProgress progress = new DownloadProgress();
+    private boolean applying;
+
+    UpdateHandle(Duration downloadTimeout) {
+        if (downloadTimeout != null) {
+            CompletableFuture.delayedExecutor(downloadTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .execute(() -> expire(downloadTimeout));
+        }
+    }
+
+    /**
+     * @return A future that completes when the update has been applied, or
+     *         exceptionally if it failed, timed out or was cancelled.
+     */
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    public DownloadProgress progress() {
+        return progress;
+    }
+
+    /**
+     * Cancels the download.
+     *
+     * @return false if the update is already being applied or has finished.
+     */
+    public synchronized boolean cancel() {
+        return !applying && completion.cancel(true);
+    }
+
+    public synchronized Phase phase() {
+        if (completion.isCancelled()) {
+            return Phase.CANCELLED;
+        }
+        if (completion.isCompletedExceptionally()) {
+            return Phase.FAILED;
+        }
+        if (completion.isDone()) {
+            return Phase.DONE;
+        }
+        if (applying) {
+            return Phase.APPLYING;
+        }
+        return progress.isComplete() ? Phase.VERIFYING : Phase.DOWNLOADING;
+    }
+
+    /**
+     * Ends the download phase.
+     *
+     * @return false if the update was cancelled or timed out meanwhile.
+     */
+    synchronized boolean beginApply() {
+        if (completion.isDone()) {
+            return false;
+        }
+        applying = true;
+        return true;
+    }
+
+    private synchronized void expire(Duration downloadTimeout) {
+        if (!applying) {
+            completion.completeExceptionally(
+                    new TimeoutException("Download did not finish within " + downloadTimeout));
+        }
+    }
+}
@@ -1,9 +1,72 @@
 package de.in.updraft;
 
+import de.in.updraft.util.Version;
+
+import java.util.List;
+
 /**
  * Represents update metadata.
- * 
+ *
+ * @param sha256       The expected hex SHA-256 of the artifact, or null.
+ * @param size         The expected length of the artifact, or -1 if unknown.
+ * @param signatureUrl Location of a detached signature of the artifact, or
+ *                     null.
+ * @param artifacts    The artifacts of a release that consists of several,
+ *                     which replace the single artifact at
+ *                     {@code downloadUrl}; empty otherwise.
+ * @param manifestSignatureUrl Location of a detached signature of the file
+ *                     manifest, or null.
+ *
  * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
  */
-public record UpdateInfo(String version, String downloadUrl, String changelog) {
+public record UpdateInfo(String version, String downloadUrl, String changelog, List<DeltaPatch> patches,
+        String manifestUrl, String sha256, long size, String signatureUrl, List<Artifact> artifacts,
+        String manifestSignatureUrl) {
+
+    public UpdateInfo {
+        patches = patches != null ? List.copyOf(patches) : List.of();
+        artifacts = artifacts != null ? List.copyOf(artifacts) : List.of();
+    }
+
+    public UpdateInfo(String version, String downloadUrl, String changelog) {
+        this(version, downloadUrl, changelog, List.of(), null);
+    }
+
+    public UpdateInfo(String version, String downloadUrl, String changelog, List<DeltaPatch> patches) {
+        this(version, downloadUrl, changelog, patches, null);
+    }
+
+    public UpdateInfo(String version, String downloadUrl, String changelog, List<DeltaPatch> patches,
+            String manifestUrl) {
+        this(version, downloadUrl, changelog, patches, manifestUrl, null, -1, null);
+    }
+
+    public UpdateInfo(String version, String downloadUrl, String changelog, List<DeltaPatch> patches,
+            String manifestUrl, String sha256, long size, String signatureUrl) {
+        this(version, downloadUrl, changelog, patches, manifestUrl, sha256, size, signatureUrl, List.of());
+    }
+
+    public UpdateInfo(String version, String downloadUrl, String changelog, List<DeltaPatch> patches,
+            String manifestUrl, String sha256, long size, String signatureUrl, List<Artifact> artifacts) {
+        this(version, downloadUrl, changelog, patches, manifestUrl, sha256, size, signatureUrl, artifacts, null);
+    }
+
+    /**
+     * Finds a binary patch that upgrades the given installed version.
+     *
+     * @param installedVersion The version currently installed.
+     * @return The matching patch or null.
+     */
+    public DeltaPatch patchFrom(String installedVersion) {
+        if (installedVersion == null) {
+            return null;
+        }
+        Version installed = new Version(installedVersion);
+        for (DeltaPatch patch : patches) {
+            if (patch.fromVersion() != null && new Version(patch.fromVersion()).compareTo(installed) == 0) {
+                return patch;
+            }
+        }
+        return null;
+    }
 }
@@ -1,152 +1,1047 @@
 package de.in.updraft;
 
+import de.in.updraft.archive.ArchiveExtractor;
+import de.in.updraft.download.ArtifactCache;
+import de.in.updraft.download.ArtifactVerifier;
+import de.in.updraft.download.DownloadEngine;
+import de.in.updraft.download.DownloadProgress;
+import de.in.updraft.download.VerificationException;
+import de.in.updraft.hotswap.ModuleHost;
+import de.in.updraft.launcher.UpdateLauncher;
+import de.in.updraft.manifest.ManifestSync;
+import de.in.updraft.metrics.Instrumentation;
+import de.in.updraft.metrics.Phase;
+import de.in.updraft.manifest.ReleaseManifest;
+import de.in.updraft.peer.PeerServer;
+import de.in.updraft.transport.HttpTransport;
+import de.in.updraft.transport.Transport;
+import de.in.updraft.util.BsPatch;
+import de.in.updraft.util.Checksums;
+import de.in.updraft.util.Tasks;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.PublicKey;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
 
 /**
- * Handles the physical update process: download, backup, script creation, and
- * restart.
+ * Handles the physical update process: download, backup, and the handoff to
+ * the {@link UpdateLauncher} that installs the update and restarts.
  * 
  * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
  */
 public class UpdateRunner {
     private static final Logger LOGGER = LogManager.getLogger(UpdateRunner.class);
+    private static final int MAX_SIGNATURE_SIZE = 64 * 1024;
 
     private final Path currentJar;
-    private final HttpClient httpClient;
+    private final DownloadEngine downloadEngine;
+    private final ManifestSync manifestSync;
+    private Thread exitHook;
+    private int parallelDownloads = ManifestSync.DEFAULT_PARALLEL_DOWNLOADS;
+    private Path stagingDirectory = Path.of(System.getProperty("java.io.tmpdir"), "updraft-staging");
+    private ModuleHost moduleHost;
+    private ArchiveExtractor archiveExtractor = new ArchiveExtractor();
+    private PublicKey signatureKey;
+    private ArtifactCache artifactCache;
+    private List<URI> peers = List.of();
+    private PeerServer peerServer;
 
     public UpdateRunner(Path applicationJar) {
+        this(applicationJar, HttpTransport.shared());
+    }
+
+    /**
+     * @param applicationJar The jar of the running application.
+     * @param transport      Transport used for all downloads.
+     */
+    public UpdateRunner(Path applicationJar, Transport transport) {
+        this(applicationJar, new DownloadEngine(transport));
+    }
+
+    /**
+     * @param applicationJar The jar of the running application.
+     * @param downloadEngine Engine used to fetch update artifacts, e.g. with a
+     *                       custom segment count.
+     */
+    public UpdateRunner(Path applicationJar, DownloadEngine downloadEngine) {
         this.currentJar = applicationJar;
-        this.httpClient = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
+        this.downloadEngine = downloadEngine;
+        this.manifestSync = new ManifestSync(downloadEngine);
+    }
+
+    /**
+     * Sets the directory that holds partial downloads. It should survive a
+     * restart so that interrupted downloads can be resumed.
+     *
+     * @param stagingDirectory The staging directory.
+     */
+    public void setStagingDirectory(Path stagingDirectory) {
+        this.stagingDirectory = stagingDirectory;
+    }
+
+    /**
+     * Enables hot-swap mode: jar updates are loaded into the given host instead
+     * of restarting the JVM. Archive and file-level updates still restart.
+     *
+     * @param moduleHost The host running the application jar, or null.
+     */
+    public void setModuleHost(ModuleHost moduleHost) {
+        this.moduleHost = moduleHost;
+    }
+
+    /**
+     * @param archiveExtractor Unpacks {@code .zip} and {@code .tar.gz} updates,
+     *                         e.g. with a different number of writer threads.
+     */
+    public void setArchiveExtractor(ArchiveExtractor archiveExtractor) {
+        this.archiveExtractor = archiveExtractor;
+    }
+
+    /**
+     * Requires every update to carry a detached signature made with the
+     * private counterpart of this key (RSA, EC or Ed25519). Updates without a
+     * valid signature are rejected.
+     *
+     * @param signatureKey The public key, or null to accept unsigned updates.
+     */
+    public void setSignatureKey(PublicKey signatureKey) {
+        this.signatureKey = signatureKey;
+    }
+
+    /**
+     * Shares downloaded artifacts with other instances on this host. With a
+     * cache, archives are unpacked from the cached file instead of while
+     * downloading. Updates without a known SHA-256 bypass the cache.
+     *
+     * @param artifactCache The cache, or null to download into the staging
+     *                      directory.
+     */
+    public void setArtifactCache(ArtifactCache artifactCache) {
+        this.artifactCache = artifactCache;
+    }
+
+    /**
+     * Lets this node fetch artifacts from other nodes of the site first. A
+     * peer is only used for updates with a known SHA-256, which every download
+     * is verified against; otherwise, or if no peer has the artifact, it comes
+     * from the origin.
+     *
+     * @param peers Base URIs of the {@link PeerServer}s of other nodes, in
+     *              order of preference.
+     */
+    public void setPeers(List<URI> peers) {
+        this.peers = List.copyOf(peers);
+    }
+
+    /**
+     * Publishes every verified artifact this node downloads to its peers.
+     *
+     * @param peerServer The server of this node, or null.
+     */
+    public void setPeerServer(PeerServer peerServer) {
+        this.peerServer = peerServer;
+    }
+
+    /**
+     * @param parallelDownloads The maximum number of artifacts of a
+     *                          multi-artifact release downloaded at a time.
+     */
+    public void setParallelDownloads(int parallelDownloads) {
+        this.parallelDownloads = Math.max(1, parallelDownloads);
     }
 
     public void downloadAndUpdate(UpdateInfo info) throws IOException, InterruptedException {
-        Path tempJar = Files.createTempFile("updraft-new-", ".jar");
+        downloadAndUpdate(info, null);
+    }
 
-        LOGGER.info("Downloading update from: {}", info.downloadUrl());
-        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(info.downloadUrl())).GET().build();
-        HttpResponse<Path> response = httpClient.send(request, HttpResponse.BodyHandlers.ofFile(tempJar));
+    /**
+     * Downloads and applies the update. If the update advertises a binary patch
+     * for the installed version, only the patch is downloaded and the new
+     * artifact is rebuilt locally; the full artifact is downloaded if that
+     * fails. If it advertises a file manifest, only the changed files of the
+     * install directory are downloaded. Archives are unpacked while they are
+     * downloading. The artifact is checked against the size, SHA-256 and
+     * signature of the update as it arrives. The artifacts of a release that
+     * consists of several are downloaded in parallel and installed together
+     * in one directory switch, or not at all.
+     *
+     * @param info             The update to apply.
+     * @param installedVersion The running version, or null to skip patches.
+     * @throws IOException          If the update fails.
+     * @throws InterruptedException If interrupted.
+     */
+    public void downloadAndUpdate(UpdateInfo info, String installedVersion) throws IOException, InterruptedException {
+        apply(stage(info, installedVersion));
+    }
+
+    /**
+     * Downloads the update without touching the installation, see
+     * {@link #downloadAndUpdate(UpdateInfo, String)}.
+     *
+     * @param info             The update to download.
+     * @param installedVersion The running version, or null to skip patches.
+     * @return The staged update.
+     * @throws IOException          If the download fails.
+     * @throws InterruptedException If interrupted.
+     */
+    public StagedUpdate stage(UpdateInfo info, String installedVersion) throws IOException, InterruptedException {
+        return stage(info, installedVersion, null);
+    }
 
-        if (response.statusCode() != 200) {
-            throw new IOException("Failed to download update: HTTP " + response.statusCode());
+    /**
+     * Downloads the update like {@link #stage(UpdateInfo, String)} and reports
+     * the bytes of the patch or artifact as they arrive. File manifest updates
+     * are not counted.
+     *
+     * @param info             The update to download.
+     * @param installedVersion The running version, or null to skip patches.
+     * @param progress         Counts the transferred bytes, or null.
+     * @return The staged update.
+     * @throws IOException          If the download fails.
+     * @throws InterruptedException If interrupted.
+     */
+    public StagedUpdate stage(UpdateInfo info, String installedVersion, DownloadProgress progress)
+            throws IOException, InterruptedException {
+        Instrumentation.Span span = Instrumentation.start(Phase.DOWNLOAD, info.downloadUrl(), info.version());
+        try {
+            StagedUpdate staged = stageUpdate(info, installedVersion, progress);
+            long bytes = info.size() >= 0 ? info.size()
+                    : Files.isRegularFile(staged.path()) ? Files.size(staged.path()) : -1;
+            span.bytes(bytes).success();
+            return staged;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            span.failure(e);
+            throw e;
+        }
+    }
+
+    private StagedUpdate stageUpdate(UpdateInfo info, String installedVersion, DownloadProgress progress)
+            throws IOException, InterruptedException {
+        if (!info.artifacts().isEmpty()) {
+            return stageArtifacts(info);
+        }
+        if (info.manifestUrl() != null) {
+            try {
+                Files.createDirectories(stagingDirectory);
+                URI manifestUri = URI.create(info.manifestUrl());
+                ManifestSync.Plan plan = manifestSync.plan(fetchManifest(info, manifestUri),
+                        currentJar.toAbsolutePath().getParent());
+                Path stagedFiles = stagingDirectory.resolve(stagingPrefix() + "-" + info.version() + "-files");
+                manifestSync.stage(plan, manifestUri, stagedFiles);
+                return new StagedUpdate(info.version(), stagedFiles, plan.removed());
+            } catch (IOException e) {
+                LOGGER.warn("Manifest update failed ({}), downloading full artifact", e.getMessage());
+            }
         }
 
         String fileName = info.downloadUrl().substring(info.downloadUrl().lastIndexOf('/') + 1);
-        Path updateFile = Files.createTempFile("updraft-update-", fileName);
+        Files.createDirectories(stagingDirectory);
+        Path tempJar = stagingDirectory.resolve(stagingPrefix() + "-" + fileName + ".part");
+        boolean archive = ArchiveExtractor.isArchive(fileName);
+        Path stagedFiles = stagingDirectory.resolve(stagingPrefix() + "-" + info.version() + "-files");
+
+        ArtifactVerifier verifier = verifierFor(info);
+
+        boolean patched = rebuildFromPatch(info.patchFrom(installedVersion),
+                patchBases(installedVersion, archive), tempJar, progress);
+        if (patched && verifier != null) {
+            try {
+                verifier.verify(tempJar);
+            } catch (IOException e) {
+                LOGGER.warn("Patched artifact does not verify ({}), downloading full artifact", e.getMessage());
+                Files.deleteIfExists(tempJar);
+                patched = false;
+            }
+        }
+        // Without a hash the artifact cannot be told apart from an older one at
+        // the same URL, so it is not cached.
+        boolean useCache = artifactCache != null && info.sha256() != null;
+        // The cache and the peer server need the archive as a file.
+        if (!patched && archive && !useCache && peerServer == null) {
+            LOGGER.info("Downloading and extracting update {}", info.version());
+            deleteTree(stagedFiles);
+            try {
+                // The extractor reads to the end, where the stream verifies.
+                archiveExtractor.extract(keepCopy(openArtifact(info, verifier, progress), tempJar), fileName,
+                        stagedFiles);
+                keepArchiveBase(tempJar, info.version(), installedVersion);
+                return new StagedUpdate(info.version(), stagedFiles, List.of());
+            } catch (VerificationException e) {
+                deleteTree(stagedFiles);
+                Files.deleteIfExists(tempJar);
+                throw e;
+            } catch (IOException e) {
+                // The stream cannot resume; fall back to the retrying download.
+                LOGGER.warn("Streaming extraction failed ({}), downloading the archive first", e.getMessage());
+                deleteTree(stagedFiles);
+                Files.deleteIfExists(tempJar);
+            }
+        }
+        if (!patched && useCache) {
+            Path cached = artifactCache.fetch(URI.create(info.downloadUrl()), info.sha256(), verifier,
+                    target -> downloadArtifact(info, target, verifier, progress));
+            Files.deleteIfExists(tempJar);
+            try {
+                Files.createLink(tempJar, cached);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(cached, tempJar);
+            }
+        } else if (!patched) {
+            downloadArtifact(info, tempJar, verifier, progress);
+        }
+        if (peerServer != null && info.sha256() != null) {
+            try {
+                peerServer.publish(info, tempJar);
+            } catch (IOException e) {
+                LOGGER.warn("Cannot publish update to peers: {}", e.getMessage());
+            }
+        }
+
+        if (archive) {
+            deleteTree(stagedFiles);
+            try {
+                archiveExtractor.extract(Files.newInputStream(tempJar), fileName, stagedFiles);
+                keepArchiveBase(tempJar, info.version(), installedVersion);
+            } catch (IOException e) {
+                deleteTree(stagedFiles);
+                throw e;
+            } finally {
+                Files.deleteIfExists(tempJar);
+            }
+            return new StagedUpdate(info.version(), stagedFiles, List.of());
+        }
+
+        // Kept in the staging directory so that it survives until the next start.
+        Path updateFile = stagingDirectory.resolve(stagingPrefix() + "-" + info.version() + "-" + fileName);
         Files.move(tempJar, updateFile, StandardCopyOption.REPLACE_EXISTING);
+        return new StagedUpdate(info.version(), updateFile, List.of());
+    }
+
+    /**
+     * Downloads the artifacts of a multi-artifact release in parallel into a
+     * directory that mirrors the install directory, so that they are applied
+     * in one directory switch. Each artifact is verified on its own; the first
+     * failure cancels the other downloads. Artifacts already staged by an
+     * interrupted attempt are kept if they still verify. Peers and the
+     * artifact cache are not used.
+     */
+    private StagedUpdate stageArtifacts(UpdateInfo info) throws IOException, InterruptedException {
+        Path installDir = currentJar.toAbsolutePath().getParent();
+        Path stagedFiles = stagingDirectory.resolve(stagingPrefix() + "-" + info.version() + "-files");
+        Files.createDirectories(stagedFiles);
+        List<Callable<List<String>>> downloads = new ArrayList<>();
+        for (int i = 0; i < info.artifacts().size(); i++) {
+            Artifact artifact = info.artifacts().get(i);
+            String path = relativePath(artifact);
+            int index = i;
+            downloads.add(() -> stageArtifact(info, index, artifact, path, stagedFiles, installDir));
+        }
+        LOGGER.info("Downloading {} artifacts of update {}", downloads.size(), info.version());
+        List<String> removed = new ArrayList<>();
+        for (List<String> paths : Tasks.invokeAll(downloads, parallelDownloads, "updraft-artifact")) {
+            removed.addAll(paths);
+        }
+        return new StagedUpdate(info.version(), stagedFiles, removed);
+    }
+
+    /**
+     * Stages one artifact. An archive replaces the directory at its path.
+     *
+     * @param index The position of the artifact in the release, which keeps
+     *              the downloads of archives with the same file name apart.
+     * @return The installed files the artifact removes.
+     */
+    private List<String> stageArtifact(UpdateInfo info, int index, Artifact artifact, String path,
+            Path stagedFiles, Path installDir) throws IOException, InterruptedException {
+        String fileName = artifact.url().substring(artifact.url().lastIndexOf('/') + 1);
+        Path target = stagedFiles.resolve(path);
+        ArtifactVerifier verifier = verifierFor("Artifact " + path + " of update " + info.version(),
+                artifact.sha256(), artifact.size(), artifact.signatureUrl());
+        boolean archive = ArchiveExtractor.isArchive(fileName);
+        Path file = archive
+                ? stagingDirectory.resolve(
+                        stagingPrefix() + "-" + info.version() + "-" + index + "-" + fileName + ".part")
+                : target;
+        if (archive || !isStaged(target, artifact)) {
+            Files.createDirectories(file.getParent());
+            try {
+                downloadEngine.download(URI.create(artifact.url()), file, verifier);
+            } catch (VerificationException e) {
+                Files.deleteIfExists(file);
+                throw new VerificationException(path + ": " + e.getMessage(), e);
+            }
+        }
+        if (!archive) {
+            return List.of();
+        }
+        deleteTree(target);
+        try (InputStream in = Files.newInputStream(file)) {
+            archiveExtractor.extract(in, fileName, target);
+        } catch (IOException e) {
+            deleteTree(target);
+            throw e;
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        return obsoleteFiles(installDir, path, target);
+    }
+
+    /**
+     * @return true if an earlier attempt left the artifact in place.
+     */
+    private static boolean isStaged(Path file, Artifact artifact) throws IOException {
+        return artifact.sha256() != null && Files.isRegularFile(file)
+                && (artifact.size() < 0 || Files.size(file) == artifact.size())
+                && Checksums.matches(artifact.sha256(), Checksums.sha256(file));
+    }
+
+    /**
+     * @return The path of the artifact, normalized and checked to stay inside
+     *         the install directory.
+     */
+    private static String relativePath(Artifact artifact) throws IOException {
+        Path path = Path.of(artifact.path()).normalize();
+        if (artifact.path().isBlank() || path.isAbsolute() || path.toString().isEmpty()
+                || path.startsWith("..")) {
+            throw new IOException("Illegal artifact path: " + artifact.path());
+        }
+        return path.toString().replace('\\', '/');
+    }
+
+    /**
+     * @return The installed files below the given directory that the unpacked
+     *         archive no longer contains, relative to the install directory.
+     */
+    private static List<String> obsoleteFiles(Path installDir, String path, Path unpacked) throws IOException {
+        Path installed = installDir.resolve(path);
+        if (!Files.isDirectory(installed, LinkOption.NOFOLLOW_LINKS)) {
+            return List.of();
+        }
+        List<String> obsolete = new ArrayList<>();
+        try (var paths = Files.walk(installed)) {
+            for (Path file : (Iterable<Path>) paths::iterator) {
+                String relative = installed.relativize(file).toString().replace('\\', '/');
+                if (!Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)
+                        && !Files.exists(unpacked.resolve(relative), LinkOption.NOFOLLOW_LINKS)) {
+                    obsolete.add(path + "/" + relative);
+                }
+            }
+        }
+        return obsolete;
+    }
+
+    /**
+     * Downloads the artifact from the first peer that has it, or from the
+     * origin. Peers are only asked if the hash is known, and are not retried:
+     * the next peer or the origin is quicker.
+     */
+    private void downloadArtifact(UpdateInfo info, Path target, ArtifactVerifier verifier,
+            DownloadProgress progress) throws IOException, InterruptedException {
+        for (URI peer : peersFor(info)) {
+            try (InputStream in = downloadEngine.open(PeerServer.artifactUri(peer, info.sha256()), verifier,
+                    progress)) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+                LOGGER.info("Downloaded update {} from peer {}", info.version(), peer);
+                return;
+            } catch (IOException e) {
+                LOGGER.info("Peer {} cannot provide update {} ({})", peer, info.version(), e.getMessage());
+                Files.deleteIfExists(target);
+            }
+        }
+        LOGGER.info("Downloading update from: {}", info.downloadUrl());
+        downloadEngine.download(URI.create(info.downloadUrl()), target, verifier, progress);
+    }
+
+    /**
+     * Opens the artifact at the first peer that has it, or at the origin.
+     */
+    private InputStream openArtifact(UpdateInfo info, ArtifactVerifier verifier, DownloadProgress progress)
+            throws IOException, InterruptedException {
+        for (URI peer : peersFor(info)) {
+            try {
+                InputStream in = downloadEngine.open(PeerServer.artifactUri(peer, info.sha256()), verifier, progress);
+                LOGGER.info("Streaming update {} from peer {}", info.version(), peer);
+                return in;
+            } catch (IOException e) {
+                LOGGER.info("Peer {} cannot provide update {} ({})", peer, info.version(), e.getMessage());
+            }
+        }
+        LOGGER.info("Streaming update from: {}", info.downloadUrl());
+        return downloadEngine.open(URI.create(info.downloadUrl()), verifier, progress);
+    }
+
+    /**
+     * @return The peers to ask; none if the artifact could not be verified.
+     */
+    private List<URI> peersFor(UpdateInfo info) {
+        return info.sha256() != null ? peers : List.of();
+    }
+
+    /**
+     * @return A verifier for the artifact of the update, or null if there is
+     *         nothing to check.
+     */
+    private ArtifactVerifier verifierFor(UpdateInfo info) throws IOException, InterruptedException {
+        return verifierFor("Update " + info.version(), info.sha256(), info.size(), info.signatureUrl());
+    }
+
+    private ArtifactVerifier verifierFor(String name, String sha256, long size, String signatureUrl)
+            throws IOException, InterruptedException {
+        byte[] signature = null;
+        if (signatureKey != null) {
+            if (signatureUrl == null) {
+                throw new IOException(name + " is not signed");
+            }
+            try (InputStream in = downloadEngine.open(URI.create(signatureUrl))) {
+                signature = ArtifactVerifier.decodeSignature(in.readNBytes(MAX_SIGNATURE_SIZE));
+            }
+        } else if (signatureUrl != null) {
+            LOGGER.debug("Ignoring signature of {}, no key configured", name);
+        }
+        if (signature == null && sha256 == null && size < 0) {
+            return null;
+        }
+        return new ArtifactVerifier(sha256, size, signature, signatureKey);
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (var paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted((a, b) -> b.getNameCount() - a.getNameCount())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Stages the update like {@link #stage(UpdateInfo, String, DownloadProgress)}
+     * and records it as pending, replacing an earlier pending update. The
+     * record lives in the staging directory, so a later process can still
+     * apply it if the directory survives restarts.
+     *
+     * @param info             The update to download.
+     * @param installedVersion The running version, or null to skip patches.
+     * @param progress         Counts the transferred bytes, or null.
+     * @return The staged update.
+     * @throws IOException          If the download fails.
+     * @throws InterruptedException If interrupted.
+     */
+    public StagedUpdate stageForLater(UpdateInfo info, String installedVersion, DownloadProgress progress)
+            throws IOException, InterruptedException {
+        StagedUpdate staged = stage(info, installedVersion, progress);
+        synchronized (this) {
+            StagedUpdate previous = pendingUpdate();
+            if (previous != null && !previous.path().equals(staged.path())) {
+                deleteTree(previous.path());
+            }
+            staged.write(pendingFile());
+        }
+        LOGGER.info("Update {} staged at {}", staged.version(), staged.path());
+        return staged;
+    }
+
+    /**
+     * @return The update recorded by {@link #stageForLater}, or null if there
+     *         is none or its files are gone.
+     * @throws IOException If the record cannot be read.
+     */
+    public synchronized StagedUpdate pendingUpdate() throws IOException {
+        return StagedUpdate.read(pendingFile());
+    }
+
+    /**
+     * Forgets the pending update and deletes its files.
+     *
+     * @throws IOException If the files cannot be deleted.
+     */
+    public synchronized void discardPendingUpdate() throws IOException {
+        StagedUpdate pending = pendingUpdate();
+        Files.deleteIfExists(pendingFile());
+        if (pending != null) {
+            deleteTree(pending.path());
+        }
+    }
+
+    /**
+     * Applies the pending update like {@link #apply(StagedUpdate)}. Since it
+     * is already verified and staged, only the swap remains.
+     *
+     * @return false if there is no pending update.
+     * @throws IOException If the update cannot be started.
+     */
+    public boolean applyPending() throws IOException {
+        StagedUpdate pending = pendingUpdate();
+        if (pending == null) {
+            return false;
+        }
+        apply(pending);
+        return true;
+    }
+
+    /**
+     * Installs the pending update, if there is one, when the JVM shuts down,
+     * without restarting the application. The next start then runs the new
+     * version. Calling this more than once has no further effect.
+     */
+    public synchronized void applyPendingOnExit() {
+        if (exitHook != null) {
+            return;
+        }
+        exitHook = new Thread(() -> {
+            try {
+                StagedUpdate pending = pendingUpdate();
+                if (pending != null) {
+                    installOnExit(pending);
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Cannot install staged update on exit", e);
+            }
+        }, "updraft-apply-on-exit");
+        Runtime.getRuntime().addShutdownHook(exitHook);
+    }
 
+    /**
+     * Hands the update to the launcher, which installs it once this process
+     * has exited and does not restart the application.
+     */
+    private void installOnExit(StagedUpdate staged) throws IOException {
+        forgetPending(staged);
         Path backupPath = createBackup();
-        applyUpdate(updateFile, backupPath);
+        Instrumentation.Span span = Instrumentation.start(Phase.APPLY, currentJar.toString(), staged.version());
+        try {
+            startLauncher(staged.path(), backupPath, staged.removed(), staged.version(),
+                    ProcessHandle.current().pid(), List.of());
+            span.success();
+        } catch (IOException | RuntimeException e) {
+            span.failure(e);
+            throw e;
+        }
     }
 
-    private Path createBackup() throws IOException {
+    /**
+     * Drops the pending record, which the given update supersedes, and the
+     * files of the pending update if they are not the given ones.
+     */
+    private synchronized void forgetPending(StagedUpdate applied) throws IOException {
+        StagedUpdate pending = pendingUpdate();
+        Files.deleteIfExists(pendingFile());
+        if (pending != null && !pending.path().equals(applied.path())) {
+            deleteTree(pending.path());
+        }
+    }
+
+    private Path pendingFile() {
+        return stagingDirectory.resolve(stagingPrefix() + "-staged.properties");
+    }
+
+    /**
+     * Backs up the current jar, installs the staged update and restarts the
+     * application. In hot-swap mode a jar update is installed and swapped in
+     * without a restart, and this method returns.
+     *
+     * @param staged The update returned by {@link #stage(UpdateInfo, String)}.
+     * @throws IOException If the update cannot be started.
+     */
+    public void apply(StagedUpdate staged) throws IOException {
+        forgetPending(staged);
+        Path backupPath = createBackup();
+        if (moduleHost != null && Files.isRegularFile(staged.path())
+                && staged.path().getFileName().toString().toLowerCase().endsWith(".jar")) {
+            Instrumentation.Span span = Instrumentation.start(Phase.APPLY, currentJar.toString(), staged.version());
+            try {
+                hotSwap(staged.path(), backupPath);
+                span.success();
+            } catch (IOException | RuntimeException e) {
+                span.failure(e);
+                throw e;
+            }
+            return;
+        }
+        applyUpdate(staged.path(), backupPath, staged.removed(), staged.version());
+    }
+
+    private void hotSwap(Path updateFile, Path backupPath) throws IOException {
+        // Install first so that a later restart runs the same version. The
+        // rename leaves the hard-linked backup untouched.
+        replaceJar(updateFile);
+        try {
+            moduleHost.swap(currentJar);
+        } catch (IOException e) {
+            replaceJar(backupPath);
+            throw e;
+        }
+        Files.deleteIfExists(updateFile);
+        LOGGER.info("Update applied without restart");
+    }
+
+    private void replaceJar(Path source) throws IOException {
+        Path tmp = currentJar.resolveSibling(currentJar.getFileName() + ".new");
+        Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(tmp, currentJar, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Downloads the manifest and, if a signature key is configured, checks its
+     * signature, since the manifest carries the hashes every file is verified
+     * against.
+     */
+    private ReleaseManifest fetchManifest(UpdateInfo info, URI manifestUri)
+            throws IOException, InterruptedException {
+        ArtifactVerifier verifier = verifierFor("Manifest of update " + info.version(), null, -1,
+                info.manifestSignatureUrl());
+        Path manifestFile = stagingDirectory.resolve(stagingPrefix() + "-manifest.json");
+        LOGGER.info("Downloading file manifest from: {}", manifestUri);
+        downloadEngine.download(manifestUri, manifestFile, verifier);
+        try (Reader in = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+            return ReleaseManifest.parse(in);
+        } finally {
+            Files.deleteIfExists(manifestFile);
+        }
+    }
+
+    private String stagingPrefix() {
+        return currentJar.getFileName().toString().replace(".jar", "");
+    }
+
+    /**
+     * @return The files a patch from the installed version may apply to: the
+     *         current jar and the backup of the previous update, or the archive
+     *         kept when the installed version was staged.
+     */
+    private List<Path> patchBases(String installedVersion, boolean archive) {
+        if (installedVersion == null) {
+            return List.of();
+        }
+        List<Path> bases = new ArrayList<>();
+        for (Path base : archive ? List.of(archiveBase(installedVersion)) : List.of(currentJar, backupPath())) {
+            if (Files.isRegularFile(base)) {
+                bases.add(base);
+            }
+        }
+        return bases;
+    }
+
+    /**
+     * The archive an update was extracted from, kept in the staging directory
+     * because the installed tree cannot be turned back into it. A leading "v"
+     * is ignored, as tags and application versions often differ in it.
+     */
+    private Path archiveBase(String version) {
+        String name = version.startsWith("v") || version.startsWith("V") ? version.substring(1) : version;
+        return stagingDirectory.resolve(stagingPrefix() + "-" + name.replaceAll("[^\\w.+-]", "_") + ".base");
+    }
+
+    /**
+     * Copies the stream to a file as it is read. The copy is complete once the
+     * stream has been read to the end.
+     */
+    private static InputStream keepCopy(InputStream in, Path copy) throws IOException {
+        OutputStream out;
+        try {
+            out = Files.newOutputStream(copy);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0)
+                    out.write(b);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0)
+                    out.write(b, off, n);
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                byte[] buffer = new byte[(int) Math.min(n, 8192)];
+                return Math.max(read(buffer, 0, buffer.length), 0);
+            }
+
+            @Override
+            public void close() throws IOException {
+                try (out) {
+                    super.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Keeps the archive of a staged update as the base for a patch to the next
+     * one, and drops the bases of older versions.
+     */
+    private void keepArchiveBase(Path archive, String version, String installedVersion) {
+        Path kept = archiveBase(version);
+        Path installed = installedVersion != null ? archiveBase(installedVersion) : null;
+        try {
+            Files.move(archive, kept, StandardCopyOption.REPLACE_EXISTING);
+            try (DirectoryStream<Path> bases = Files.newDirectoryStream(stagingDirectory,
+                    stagingPrefix() + "-*.base")) {
+                for (Path base : bases) {
+                    if (!base.equals(kept) && !base.equals(installed)) {
+                        Files.deleteIfExists(base);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Cannot keep archive as patch base", e);
+        }
+    }
+
+    /**
+     * Downloads the patch and applies it to the first base that yields the
+     * expected artifact. Nothing is downloaded if there is no base.
+     *
+     * @return true if the target now holds the verified new artifact.
+     */
+    private boolean rebuildFromPatch(DeltaPatch patch, List<Path> bases, Path target, DownloadProgress progress)
+            throws InterruptedException {
+        if (patch == null || patch.url() == null || patch.targetSha256() == null || bases.isEmpty()) {
+            return false;
+        }
+        Path patchFile = stagingDirectory.resolve(stagingPrefix() + "-from-" + patch.fromVersion() + ".patch");
+        Path rebuilt = target.resolveSibling(target.getFileName() + ".delta");
+        try {
+            LOGGER.info("Downloading delta patch from: {}", patch.url());
+            downloadEngine.download(URI.create(patch.url()), patchFile, null, progress);
+            for (Path base : bases) {
+                String hash = BsPatch.apply(base, patchFile, rebuilt);
+                if (Checksums.matches(patch.targetSha256(), hash)) {
+                    Files.move(rebuilt, target, StandardCopyOption.REPLACE_EXISTING);
+                    LOGGER.info("Rebuilt update from {} using delta patch", base);
+                    return true;
+                }
+                LOGGER.warn("Patching {} produced unexpected SHA-256 {}", base, hash);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Delta update failed ({}), downloading full artifact", e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(patchFile);
+                Files.deleteIfExists(rebuilt);
+            } catch (IOException e) {
+                LOGGER.debug("Could not remove delta files", e);
+            }
+        }
+        return false;
+    }
+
+    private Path backupPath() {
         String fileName = currentJar.getFileName().toString();
         String backupName = fileName.replace(".jar", "") + "-backup.jar";
-        Path backupPath = currentJar.getParent().resolve(backupName);
-        Files.copy(currentJar, backupPath, StandardCopyOption.REPLACE_EXISTING);
-        LOGGER.info("Backup created at: {}", backupPath);
-        return backupPath;
+        return currentJar.getParent().resolve(backupName);
+    }
+
+    /**
+     * Backs up the current jar as a hard link, which costs no I/O, and copies
+     * it only where links are not supported. This is safe because updates
+     * always replace the jar instead of writing into it.
+     */
+    private Path createBackup() throws IOException {
+        Instrumentation.Span span = Instrumentation.start(Phase.BACKUP, currentJar.toString(), null);
+        try {
+            Path backupPath = backupPath();
+            Files.deleteIfExists(backupPath);
+            try {
+                Files.createLink(backupPath, currentJar);
+            } catch (IOException | UnsupportedOperationException e) {
+                LOGGER.debug("Cannot hard-link backup ({}), copying", e.getMessage());
+                Files.copy(currentJar, backupPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            LOGGER.info("Backup created at: {}", backupPath);
+            span.bytes(Files.size(backupPath)).success();
+            return backupPath;
+        } catch (IOException | RuntimeException e) {
+            span.failure(e);
+            throw e;
+        }
     }
 
+    /**
+     * Reverts to the previous version and restarts. After a directory update,
+     * e.g. of several artifacts, the whole previous install directory is
+     * switched back in, so all artifacts revert together; otherwise the
+     * backup of the jar is installed.
+     *
+     * @throws IOException If there is nothing to revert to.
+     */
     public void revertToPreviousVersion() throws IOException {
-        String fileName = currentJar.getFileName().toString();
-        String backupName = fileName.replace(".jar", "") + "-backup.jar";
-        Path backupPath = currentJar.getParent().resolve(backupName);
+        Path installDir = currentJar.toAbsolutePath().getParent();
+        Path previousDir = installDir.resolveSibling(installDir.getFileName() + UpdateLauncher.PREVIOUS_SUFFIX);
+        if (Files.exists(previousDir, LinkOption.NOFOLLOW_LINKS)) {
+            applyUpdate(null, null, List.of(), null);
+            return;
+        }
+        Path backupPath = backupPath();
 
         if (!Files.exists(backupPath)) {
             throw new IOException("No backup found at " + backupPath);
         }
 
-        // We use the same script logic to revert
+        // The launcher installs the backup like any other jar update.
         Path tempRevert = Files.createTempFile("updraft-revert-", ".jar");
         Files.copy(backupPath, tempRevert, StandardCopyOption.REPLACE_EXISTING);
-        applyUpdate(tempRevert, null);
+        applyUpdate(tempRevert, null, List.of(), null);
     }
 
-    private void applyUpdate(Path updateFile, Path backupPath) throws IOException {
-        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
-        Path scriptPath;
+    /**
+     * Starts the {@link UpdateLauncher} and exits. The launcher installs the
+     * update once this process has ended and restarts the application.
+     *
+     * @param updateFile The new jar, a directory of staged files that mirrors
+     *                   the install directory, or null to switch back to the
+     *                   previous install directory.
+     * @param backupPath The backup of the current jar.
+     * @param removed    Paths relative to the install directory to delete.
+     * @param version    The version being installed, or null for a revert.
+     */
+    private void applyUpdate(Path updateFile, Path backupPath, List<String> removed, String version)
+            throws IOException {
+        Instrumentation.Span span = Instrumentation.start(Phase.APPLY, currentJar.toString(), version);
+        Process launcher;
+        try {
+            launcher = startLauncher(updateFile, backupPath, removed, version, ProcessHandle.current().pid(),
+                    relaunchCommand());
+        } catch (IOException | RuntimeException e) {
+            span.failure(e);
+            throw e;
+        }
+        // The launcher installs the update once this process has exited.
+        span.success();
+        LOGGER.info("Update launcher started as process {}, exiting...", launcher.pid());
+        System.exit(0);
+    }
 
-        if (isWindows) {
-            scriptPath = createWindowsScript(updateFile);
+    /**
+     * Writes the plan for the launcher and starts it in a new JVM.
+     */
+    Process startLauncher(Path updateFile, Path backupPath, List<String> removed, String version, long pid,
+            List<String> command) throws IOException {
+        Files.createDirectories(stagingDirectory);
+        Properties plan = new Properties();
+        plan.setProperty("pid", String.valueOf(pid));
+        if (updateFile == null) {
+            plan.setProperty("mode", UpdateLauncher.MODE_ROLLBACK);
         } else {
-            scriptPath = createUnixScript(updateFile);
+            plan.setProperty("mode", Files.isDirectory(updateFile) ? UpdateLauncher.MODE_DIRECTORY
+                    : UpdateLauncher.MODE_JAR);
+            plan.setProperty("source", updateFile.toAbsolutePath().toString());
+        }
+        plan.setProperty("target", currentJar.toAbsolutePath().toString());
+        if (backupPath != null)
+            plan.setProperty("backup", backupPath.toAbsolutePath().toString());
+        for (int i = 0; i < removed.size(); i++) {
+            plan.setProperty("removed." + i, removed.get(i));
+        }
+        plan.setProperty("version", version != null ? version : "");
+        plan.setProperty("status", statusFile().toAbsolutePath().toString());
+        for (int i = 0; i < command.size(); i++) {
+            plan.setProperty("command." + i, command.get(i));
         }
+        plan.setProperty("workDir", System.getProperty("user.dir"));
 
-        LOGGER.info("Starting update script and exiting...");
-        ProcessBuilder pb = new ProcessBuilder();
-        if (isWindows) {
-            pb.command("cmd.exe", "/c", scriptPath.toAbsolutePath().toString());
-        } else {
-            pb.command("sh", scriptPath.toAbsolutePath().toString());
+        Path planFile = stagingDirectory.resolve(stagingPrefix() + "-update.plan");
+        try (OutputStream out = Files.newOutputStream(planFile)) {
+            plan.store(out, "SimpleUpDraft4J update plan");
         }
-        pb.start();
-        System.exit(0);
+
+        Path log = stagingDirectory.resolve(stagingPrefix() + "-launcher.log");
+        return new ProcessBuilder(javaExecutable().toString(), "-cp", writeLauncherJar().toString(),
+                UpdateLauncher.class.getName(), planFile.toAbsolutePath().toString())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log.toFile()))
+                .start();
     }
 
-    private Path createWindowsScript(Path updateFile) throws IOException {
-        Path script = Files.createTempFile("updraft-update-", ".bat");
-        List<String> lines = new ArrayList<>();
-        lines.add("@echo off");
-        lines.add("timeout /t 2 /nobreak > nul"); // Wait for app to exit
+    /**
+     * Copies the launcher into a jar of its own, so that it does not run from
+     * the jar it is about to replace.
+     */
+    private Path writeLauncherJar() throws IOException {
+        String entry = UpdateLauncher.class.getName().replace('.', '/') + ".class";
+        Path jar = stagingDirectory.resolve("updraft-launcher.jar");
+        Path tmp = Files.createTempFile(stagingDirectory, "updraft-launcher", ".tmp");
+        try (InputStream in = UpdateLauncher.class.getClassLoader().getResourceAsStream(entry);
+                JarOutputStream out = new JarOutputStream(Files.newOutputStream(tmp))) {
+            if (in == null) {
+                throw new IOException("Cannot find " + entry);
+            }
+            out.putNextEntry(new JarEntry(entry));
+            in.transferTo(out);
+            out.closeEntry();
+        }
+        Files.move(tmp, jar, StandardCopyOption.REPLACE_EXISTING);
+        return jar;
+    }
 
-        // If it's a jar, just copy. If it's an archive (zip), use tar.
-        // We use .zip for Windows to avoid 7z dependency. Modern Windows has tar.
-        String lower = updateFile.toString().toLowerCase();
-        if (lower.endsWith(".jar")) {
-            lines.add("copy /y \"" + updateFile.toAbsolutePath() + "\" \"" + currentJar.toAbsolutePath() + "\"");
-            lines.add("del \"" + updateFile.toAbsolutePath() + "\"");
-        } else {
-            // Attempt to extract to current directory (parent of currentJar)
-            // tar -xf archive -C destination
-            Path dest = currentJar.getParent();
-            lines.add("tar -xf \"" + updateFile.toAbsolutePath() + "\" -C \"" + dest.toAbsolutePath() + "\"");
-            lines.add("del \"" + updateFile.toAbsolutePath() + "\"");
-        }
-
-        lines.add("start \"\" javaw -jar \"" + currentJar.toAbsolutePath() + "\"");
-        lines.add("del \"%~f0\""); // Delete itself
-        Files.write(script, lines);
-        return script;
-    }
-
-    private Path createUnixScript(Path updateFile) throws IOException {
-        Path script = Files.createTempFile("updraft-update-", ".sh");
-        List<String> lines = new ArrayList<>();
-        lines.add("#!/bin/sh");
-        lines.add("sleep 2"); // Wait for app to exit
-
-        String lower = updateFile.toString().toLowerCase();
-        if (lower.endsWith(".jar")) {
-            lines.add("cp -f \"" + updateFile.toAbsolutePath() + "\" \"" + currentJar.toAbsolutePath() + "\"");
-            lines.add("rm \"" + updateFile.toAbsolutePath() + "\"");
-        } else if (lower.endsWith(".tar.gz") || lower.endsWith(".tgz")) {
-            // Extract tarball to parent dir of currentJar
-            // We assume the formatting of the archive is flat or has correct structure.
-            // Typically releases might be in a subdir. We act as if they extract over.
-            // tar -xzf archive -C dest
-            Path dest = currentJar.getParent();
-            lines.add("tar -xzf \"" + updateFile.toAbsolutePath() + "\" -C \"" + dest.toAbsolutePath() + "\"");
-            lines.add("rm \"" + updateFile.toAbsolutePath() + "\"");
-        }
-
-        lines.add("java -jar \"" + currentJar.toAbsolutePath() + "\" &");
-        lines.add("rm -- \"$0\""); // Delete itself
-        Files.write(script, lines);
-
-        // Make executable
-        script.toFile().setExecutable(true);
-        return script;
+    /**
+     * @return The command line this JVM was started with, or a plain
+     *         {@code java -jar} with the same JVM options if the platform does
+     *         not report it.
+     */
+    List<String> relaunchCommand() {
+        ProcessHandle.Info info = ProcessHandle.current().info();
+        List<String> command = new ArrayList<>();
+        if (info.command().isPresent() && info.arguments().isPresent()) {
+            command.add(info.command().get());
+            command.addAll(List.of(info.arguments().get()));
+            return command;
+        }
+        command.add(javaExecutable().toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-jar");
+        command.add(currentJar.toAbsolutePath().toString());
+        return command;
+    }
+
+    private static Path javaExecutable() {
+        Path bin = Path.of(System.getProperty("java.home"), "bin");
+        if (System.getProperty("os.name").toLowerCase().contains("win")) {
+            // javaw does not open a console window.
+            Path javaw = bin.resolve("javaw.exe");
+            return Files.exists(javaw) ? javaw : bin.resolve("java.exe");
+        }
+        return bin.resolve("java");
+    }
+
+    private Path statusFile() {
+        return stagingDirectory.resolve(stagingPrefix() + "-status.properties");
+    }
+
+    /**
+     * Reports the outcome of the last update installed by the launcher, e.g. to
+     * tell the user after the restart.
+     *
+     * @return The status, or null if there is none.
+     * @throws IOException If the status file cannot be read.
+     */
+    public UpdateStatus lastUpdateStatus() throws IOException {
+        return UpdateStatus.read(statusFile());
     }
 }
@@ -0,0 +1,222 @@
+package de.in.updraft;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks for updates periodically on a single daemon thread.
+ * <p>
+ * The interval grows by the backoff factor after every check that fails or
+ * finds nothing new, up to the maximum interval. When a new release is found it
+ * drops to the minimum interval, since follow-up fixes tend to come soon after
+ * a release. Every delay is randomized by the jitter fraction so that many
+ * hosts started at the same time do not hit the metadata endpoint together.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class UpdateScheduler implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger(UpdateScheduler.class);
+
+    private final GithubUpdater updater;
+    private final Random random;
+    private final List<UpdateCheckListener> listeners = new CopyOnWriteArrayList<>();
+    private Duration interval = Duration.ofHours(1);
+    private Duration minInterval = Duration.ofMinutes(5);
+    private Duration maxInterval = Duration.ofHours(24);
+    private double backoffFactor = 2;
+    private double jitter = 0.2;
+
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> next;
+    private long currentInterval;
+    private boolean checking;
+    private boolean checkAgain;
+    private String lastReported;
+
+    public UpdateScheduler(GithubUpdater updater) {
+        this(updater, new Random());
+    }
+
+    UpdateScheduler(GithubUpdater updater, Random random) {
+        this.updater = updater;
+        this.random = random;
+    }
+
+    public void addListener(UpdateCheckListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(UpdateCheckListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param interval The interval to start with and to return to after a
+     *                 restart of the scheduler.
+     */
+    public synchronized void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * @param minInterval The interval used right after a new release was found.
+     */
+    public synchronized void setMinInterval(Duration minInterval) {
+        this.minInterval = minInterval;
+    }
+
+    public synchronized void setMaxInterval(Duration maxInterval) {
+        this.maxInterval = maxInterval;
+    }
+
+    public synchronized void setBackoffFactor(double backoffFactor) {
+        if (backoffFactor < 1)
+            throw new IllegalArgumentException("backoffFactor must be at least 1");
+        this.backoffFactor = backoffFactor;
+    }
+
+    /**
+     * @param jitter Fraction by which every delay is randomly lengthened or
+     *               shortened, between 0 and 1.
+     */
+    public synchronized void setJitter(double jitter) {
+        if (jitter < 0 || jitter > 1)
+            throw new IllegalArgumentException("jitter must be between 0 and 1");
+        this.jitter = jitter;
+    }
+
+    /**
+     * Starts checking. The first check runs after a random delay of up to the
+     * jitter fraction of the interval.
+     */
+    public synchronized void start() {
+        start(Duration.ofMillis((long) (interval.toMillis() * jitter * random.nextDouble())));
+    }
+
+    /**
+     * Starts checking, the first time after the given delay.
+     *
+     * @param initialDelay Delay before the first check.
+     */
+    public synchronized void start(Duration initialDelay) {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "updraft-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        currentInterval = interval.toMillis();
+        schedule(initialDelay.toMillis());
+    }
+
+    /**
+     * Runs a check as soon as possible instead of waiting for the next one.
+     */
+    public synchronized void checkNow() {
+        if (executor == null) {
+            return;
+        }
+        if (checking) {
+            checkAgain = true;
+        } else {
+            schedule(0);
+        }
+    }
+
+    /**
+     * Stops checking and interrupts a running check.
+     */
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            next = null;
+            checking = false;
+            checkAgain = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * @return The interval the next delay is based on, before jitter.
+     */
+    public synchronized Duration currentInterval() {
+        return Duration.ofMillis(currentInterval);
+    }
+
+    private void schedule(long delayMillis) {
+        if (next != null) {
+            next.cancel(false);
+        }
+        next = executor.schedule(this::check, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void check() {
+        synchronized (this) {
+            checking = true;
+        }
+        UpdateInfo info;
+        try {
+            info = updater.checkForUpdates();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            LOGGER.warn("Scheduled update check failed: {}", e.getMessage());
+            reschedule(false);
+            listeners.forEach(l -> l.onCheckFailed(e));
+            return;
+        }
+
+        boolean isNew = info != null && !info.version().equals(lastReported);
+        reschedule(isNew);
+        if (isNew) {
+            LOGGER.info("Scheduled check found version {}", info.version());
+            lastReported = info.version();
+            listeners.forEach(l -> l.onUpdateAvailable(info));
+        } else {
+            listeners.forEach(UpdateCheckListener::onNoUpdate);
+        }
+    }
+
+    private synchronized void reschedule(boolean foundRelease) {
+        currentInterval = nextInterval(currentInterval, foundRelease);
+        checking = false;
+        if (executor != null && !executor.isShutdown()) {
+            long delay = checkAgain ? 0 : jittered(currentInterval);
+            checkAgain = false;
+            LOGGER.debug("Next update check in {} ms", delay);
+            next = executor.schedule(this::check, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    synchronized long nextInterval(long current, boolean foundRelease) {
+        if (foundRelease) {
+            return minInterval.toMillis();
+        }
+        return Math.min(maxInterval.toMillis(), Math.max(minInterval.toMillis(), (long) (current * backoffFactor)));
+    }
+
+    synchronized long jittered(long millis) {
+        return Math.max(0, Math.round(millis * (1 + jitter * (2 * random.nextDouble() - 1))));
+    }
+}
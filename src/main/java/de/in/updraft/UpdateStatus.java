@@ -0,0 +1,42 @@
+package de.in.updraft;
+
+import de.in.updraft.launcher.UpdateLauncher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Properties;
+
+/**
+ * Outcome of an update installed by the {@link UpdateLauncher}.
+ *
+ * @param success Whether the update was installed.
+ * @param version The version that was installed, empty for a revert.
+ * @param message A description of what happened.
+ * @param time    When the launcher finished.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public record UpdateStatus(boolean success, String version, String message, Instant time) {
+
+    /**
+     * @param file The status file written by the launcher.
+     * @return The status, or null if the file does not exist.
+     * @throws IOException If the file cannot be read.
+     */
+    static UpdateStatus read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+        String time = props.getProperty("time");
+        return new UpdateStatus(UpdateLauncher.STATUS_SUCCESS.equals(props.getProperty("status")),
+                props.getProperty("version", ""), props.getProperty("message", ""),
+                time != null ? Instant.parse(time) : null);
+    }
+}
@@ -0,0 +1,363 @@
+package de.in.updraft.archive;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Unpacks {@code .zip}, {@code .tar.gz} and {@code .tgz} archives from a
+ * stream, so that an archive can be extracted while it is still downloading.
+ * <p>
+ * The stream is read once, by the calling thread. Small entries are buffered
+ * and written by a pool of writer threads, so many small files do not wait for
+ * each other's I/O; large entries are written directly from the stream. The
+ * memory held by buffered entries is bounded, which slows the reader down when
+ * the disk cannot keep up. Every entry name is checked before anything is
+ * written, and entries that would end up outside the destination are
+ * rejected. Symbolic links are followed the way the file system will follow
+ * them, including links extracted earlier, so a chain of links cannot lead
+ * out of the destination either.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class ArchiveExtractor {
+    private static final Logger LOGGER = LogManager.getLogger(ArchiveExtractor.class);
+
+    public static final int DEFAULT_WRITE_THREADS = 4;
+    /** Entries up to this size are handed to the writer threads. */
+    public static final int DEFAULT_BUFFERED_ENTRY_SIZE = 1024 * 1024;
+    /** Upper bound for the bytes of all buffered entries together. */
+    public static final int DEFAULT_BUFFER_LIMIT = 32 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int writeThreads;
+    private final int bufferedEntrySize;
+    private final int bufferLimit;
+
+    public ArchiveExtractor() {
+        this(DEFAULT_WRITE_THREADS, DEFAULT_BUFFERED_ENTRY_SIZE, DEFAULT_BUFFER_LIMIT);
+    }
+
+    /**
+     * @param writeThreads      Number of threads writing buffered entries.
+     * @param bufferedEntrySize Largest entry that is buffered; larger ones are
+     *                          written by the reading thread.
+     * @param bufferLimit       Memory for buffered entries, in bytes.
+     */
+    public ArchiveExtractor(int writeThreads, int bufferedEntrySize, int bufferLimit) {
+        if (bufferedEntrySize > bufferLimit)
+            throw new IllegalArgumentException("bufferedEntrySize must not exceed bufferLimit");
+        this.writeThreads = Math.max(1, writeThreads);
+        this.bufferedEntrySize = Math.max(0, bufferedEntrySize);
+        this.bufferLimit = bufferLimit;
+    }
+
+    /**
+     * @param fileName The name of a downloaded artifact.
+     * @return true if {@link #extract(InputStream, String, Path)} can unpack
+     *         it.
+     */
+    public static boolean isArchive(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".zip") || lower.endsWith(".tar.gz") || lower.endsWith(".tgz");
+    }
+
+    /**
+     * Unpacks the archive into the destination directory, reads the stream to
+     * its end and closes it. When this method returns or throws, no write is
+     * pending anymore.
+     *
+     * @param in          The archive.
+     * @param fileName    The archive name, which selects the format.
+     * @param destination The directory to unpack into; created if missing.
+     * @return The number of bytes written.
+     * @throws IOException          If reading or writing fails, or an entry
+     *                              points outside the destination.
+     * @throws InterruptedException If interrupted.
+     */
+    public long extract(InputStream in, String fileName, Path destination) throws IOException, InterruptedException {
+        if (!isArchive(fileName)) {
+            throw new IOException("Unsupported archive format: " + fileName);
+        }
+        Path root = destination.toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        Path realRoot = root.toRealPath();
+        ExecutorService executor = Executors.newFixedThreadPool(writeThreads, r -> {
+            Thread thread = new Thread(r, "updraft-extract");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Extraction extraction = new Extraction(executor, new Semaphore(bufferLimit), realRoot);
+        try (InputStream source = in) {
+            if (fileName.toLowerCase(Locale.ROOT).endsWith(".zip")) {
+                extractZip(new ZipInputStream(source), root, extraction);
+            } else {
+                extractTar(new TarReader(new GZIPInputStream(source, BUFFER_SIZE)), root, extraction);
+            }
+            // Trailing data such as the zip directory completes the download.
+            source.transferTo(OutputStream.nullOutputStream());
+            extraction.awaitAll();
+        } finally {
+            extraction.awaitQuietly();
+        }
+        LOGGER.info("Extracted {} bytes into {}", extraction.written.get(), root);
+        return extraction.written.get();
+    }
+
+    private void extractZip(ZipInputStream zip, Path root, Extraction extraction)
+            throws IOException, InterruptedException {
+        for (ZipEntry entry; (entry = zip.getNextEntry()) != null;) {
+            Path target = resolve(root, entry.getName());
+            if (entry.isDirectory()) {
+                createDirectory(target, extraction);
+            } else {
+                // Streamed zips may not know the size before the data.
+                writeFile(zip, target, entry.getSize(), false, extraction);
+            }
+        }
+    }
+
+    private void extractTar(TarReader tar, Path root, Extraction extraction)
+            throws IOException, InterruptedException {
+        for (TarReader.Entry entry; (entry = tar.next()) != null;) {
+            Path target = resolve(root, entry.name());
+            switch (entry.type()) {
+            case DIRECTORY:
+                createDirectory(target, extraction);
+                break;
+            case FILE:
+                writeFile(tar.entryStream(), target, entry.size(), (entry.mode() & 0111) != 0, extraction);
+                break;
+            case SYMLINK:
+                createLink(target, entry.linkName(), extraction);
+                break;
+            default:
+                LOGGER.debug("Skipping tar entry {} of unsupported type", entry.name());
+            }
+        }
+    }
+
+    private void writeFile(InputStream in, Path target, long size, boolean executable, Extraction extraction)
+            throws IOException, InterruptedException {
+        extraction.check();
+        extraction.awaitPending(target);
+        if (size < 0 || size > bufferedEntrySize) {
+            write(in, target, executable, extraction);
+            return;
+        }
+        int length = (int) size;
+        extraction.memory.acquire(length);
+        byte[] data;
+        try {
+            data = in.readNBytes(length);
+        } catch (IOException e) {
+            extraction.memory.release(length);
+            throw e;
+        }
+        Future<?> future = extraction.executor.submit(() -> {
+            try {
+                write(new ByteArrayInputStream(data), target, executable, extraction);
+            } catch (IOException | RuntimeException e) {
+                extraction.failure.compareAndSet(null, e);
+            } finally {
+                extraction.memory.release(length);
+            }
+        });
+        extraction.pending.put(target, future);
+    }
+
+    private static void createDirectory(Path target, Extraction extraction) throws IOException {
+        extraction.checkInside(directories(target).toRealPath(), target);
+    }
+
+    /**
+     * Creates the directory unless it exists, possibly behind a link that the
+     * archive created.
+     */
+    private static Path directories(Path dir) throws IOException {
+        return Files.isDirectory(dir) ? dir : Files.createDirectories(dir);
+    }
+
+    private static void write(InputStream in, Path target, boolean executable, Extraction extraction)
+            throws IOException {
+        Path parent = directories(target.getParent()).toRealPath();
+        extraction.checkInside(parent, target);
+        // A file entry replaces an earlier link rather than writing through it.
+        if (Files.isSymbolicLink(target)) {
+            Files.delete(target);
+        }
+        try (OutputStream out = Files.newOutputStream(parent.resolve(target.getFileName()))) {
+            extraction.written.addAndGet(in.transferTo(out));
+        }
+        if (executable && !target.toFile().setExecutable(true, false)) {
+            LOGGER.debug("Cannot mark {} as executable", target);
+        }
+    }
+
+    private static void createLink(Path target, String linkName, Extraction extraction)
+            throws IOException, InterruptedException {
+        Path link = Path.of(linkName);
+        if (link.isAbsolute()) {
+            throw new IOException("Archive link points outside the destination: " + target + " -> " + linkName);
+        }
+        extraction.awaitPending(target);
+        Path parent = directories(target.getParent()).toRealPath();
+        extraction.checkInside(parent, target);
+        if (!follow(parent, link, target).startsWith(extraction.realRoot)) {
+            throw new IOException("Archive link points outside the destination: " + target + " -> " + linkName);
+        }
+        Files.deleteIfExists(target);
+        try {
+            Files.createSymbolicLink(target, link);
+        } catch (UnsupportedOperationException e) {
+            LOGGER.warn("Cannot create symbolic link {}: {}", target, e.getMessage());
+        }
+    }
+
+    /**
+     * Resolves a link target the way the file system will. Links on the way
+     * are followed, and {@code ..} is only allowed after a real directory,
+     * because a link extracted there later could send it elsewhere.
+     *
+     * @return Where the link leads, as far as it exists.
+     */
+    private static Path follow(Path parent, Path link, Path target) throws IOException {
+        Path current = parent;
+        int count = link.getNameCount();
+        for (int i = 0; i < count; i++) {
+            String part = link.getName(i).toString();
+            if (part.equals("..")) {
+                if (!Files.isDirectory(current, LinkOption.NOFOLLOW_LINKS) || current.getParent() == null) {
+                    throw new IOException("Archive link cannot be resolved safely: " + target + " -> " + link);
+                }
+                current = current.getParent();
+            } else if (!part.isEmpty() && !part.equals(".")) {
+                current = current.resolve(part);
+                if (i < count - 1 && Files.isSymbolicLink(current)) {
+                    current = current.toRealPath();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Maps an entry name into the destination, refusing absolute names and
+     * names that climb out of it.
+     */
+    static Path resolve(Path root, String name) throws IOException {
+        String relative = name.replace('\\', '/');
+        while (relative.startsWith("./")) {
+            relative = relative.substring(2);
+        }
+        if (relative.startsWith("/") || relative.contains(":")) {
+            throw new IOException("Illegal archive entry: " + name);
+        }
+        Path target = root.resolve(relative).normalize();
+        if (!target.startsWith(root)) {
+            throw new IOException("Archive entry outside the destination: " + name);
+        }
+        return target;
+    }
+
+    /**
+     * State shared by the reading thread and the writer threads.
+     */
+    private static final class Extraction {
+        final ExecutorService executor;
+        final Semaphore memory;
+        final AtomicLong written = new AtomicLong();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        /** The last write per file; only touched by the reading thread. */
+        final Map<Path, Future<?>> pending = new HashMap<>();
+        final Path realRoot;
+
+        Extraction(ExecutorService executor, Semaphore memory, Path realRoot) {
+            this.executor = executor;
+            this.memory = memory;
+            this.realRoot = realRoot;
+        }
+
+        /** Fails if links on disk have led the entry out of the destination. */
+        void checkInside(Path realPath, Path target) throws IOException {
+            if (!realPath.startsWith(realRoot)) {
+                throw new IOException("Archive entry leads outside the destination: " + target);
+            }
+        }
+
+        /** Stops reading as soon as a writer has failed. */
+        void check() throws IOException {
+            Throwable e = failure.get();
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            if (e != null) {
+                throw new IOException("Writing archive entry failed", e);
+            }
+        }
+
+        /** Lets a repeated entry wait for the earlier write of the same file. */
+        void awaitPending(Path target) throws InterruptedException {
+            Future<?> earlier = pending.remove(target);
+            if (earlier != null) {
+                await(earlier);
+            }
+        }
+
+        void awaitAll() throws IOException, InterruptedException {
+            for (Future<?> future : pending.values()) {
+                await(future);
+            }
+            pending.clear();
+            check();
+        }
+
+        /** Waits for running writes after a failure, so none outlives extract. */
+        void awaitQuietly() {
+            executor.shutdownNow();
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private static void await(Future<?> future) throws InterruptedException {
+            try {
+                future.get();
+            } catch (ExecutionException | CancellationException e) {
+                // Writers record their own failures.
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package de.in.updraft.archive;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the entries of a tar stream one after another, supporting the ustar,
+ * GNU long name and pax path/size extensions.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+class TarReader {
+    private static final int BLOCK = 512;
+
+    enum Type {
+        FILE, DIRECTORY, SYMLINK, OTHER
+    }
+
+    record Entry(String name, Type type, long size, int mode, String linkName) {
+    }
+
+    private final InputStream in;
+    private final byte[] header = new byte[BLOCK];
+    private long remaining;
+    private long padding;
+
+    TarReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Skips what is left of the current entry and reads the next header.
+     *
+     * @return The next entry, or null at the end of the archive.
+     */
+    Entry next() throws IOException {
+        skipFully(remaining + padding);
+        remaining = 0;
+        padding = 0;
+
+        String longName = null;
+        String longLink = null;
+        Long paxSize = null;
+        while (true) {
+            if (!readHeader()) {
+                return null;
+            }
+            String name = string(0, 100);
+            if (header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[260] == 'a'
+                    && header[261] == 'r') {
+                String prefix = string(345, 155);
+                if (!prefix.isEmpty()) {
+                    name = prefix + "/" + name;
+                }
+            }
+            long size = number(124, 12);
+            int mode = (int) number(100, 8);
+            byte flag = header[156];
+
+            if (flag == 'L' || flag == 'K' || flag == 'x') {
+                byte[] data = readData(size);
+                if (flag == 'L') {
+                    longName = cString(data);
+                } else if (flag == 'K') {
+                    longLink = cString(data);
+                } else {
+                    String value = pax(data, "path");
+                    if (value != null)
+                        longName = value;
+                    value = pax(data, "linkpath");
+                    if (value != null)
+                        longLink = value;
+                    value = pax(data, "size");
+                    if (value != null)
+                        paxSize = Long.parseLong(value);
+                }
+                continue;
+            }
+            if (flag == 'g') {
+                readData(size); // global pax defaults are not needed
+                continue;
+            }
+            if (longName != null)
+                name = longName;
+            String linkName = longLink != null ? longLink : string(157, 100);
+            if (paxSize != null)
+                size = paxSize;
+
+            Type type;
+            if (flag == '0' || flag == 0 || flag == '7') {
+                type = Type.FILE;
+            } else if (flag == '5') {
+                type = Type.DIRECTORY;
+                size = 0;
+            } else if (flag == '2') {
+                type = Type.SYMLINK;
+            } else {
+                type = Type.OTHER;
+            }
+            remaining = size;
+            padding = (BLOCK - size % BLOCK) % BLOCK;
+            return new Entry(name, type, size, mode, linkName);
+        }
+    }
+
+    /**
+     * @return A stream over the data of the current entry. Closing it does not
+     *         close the archive.
+     */
+    InputStream entryStream() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (remaining == 0) {
+                    return -1;
+                }
+                int n = in.read(b, off, (int) Math.min(len, remaining));
+                if (n < 0) {
+                    throw new EOFException("Truncated tar entry");
+                }
+                remaining -= n;
+                return n;
+            }
+        };
+    }
+
+    private boolean readHeader() throws IOException {
+        int read = in.readNBytes(header, 0, BLOCK);
+        if (read == 0) {
+            return false;
+        }
+        if (read < BLOCK) {
+            throw new EOFException("Truncated tar header");
+        }
+        for (byte b : header) {
+            if (b != 0) {
+                return true;
+            }
+        }
+        return false; // end-of-archive marker
+    }
+
+    private byte[] readData(long size) throws IOException {
+        if (size > Integer.MAX_VALUE - BLOCK) {
+            throw new IOException("Tar extension header too large: " + size);
+        }
+        byte[] data = in.readNBytes((int) size);
+        if (data.length < size) {
+            throw new EOFException("Truncated tar extension header");
+        }
+        skipFully((BLOCK - size % BLOCK) % BLOCK);
+        return data;
+    }
+
+    private void skipFully(long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("Truncated tar archive");
+                }
+                skipped = 1;
+            }
+            n -= skipped;
+        }
+    }
+
+    private String string(int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) {
+            end++;
+        }
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses an octal field, or a base-256 one as written by GNU tar for large
+     * values.
+     */
+    private long number(int offset, int length) throws IOException {
+        if ((header[offset] & 0x80) != 0) {
+            long value = header[offset] & 0x7f;
+            for (int i = 1; i < length; i++) {
+                value = (value << 8) | (header[offset + i] & 0xff);
+            }
+            return value;
+        }
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            byte b = header[i];
+            if (b == 0 || b == ' ') {
+                if (value != 0) {
+                    break;
+                }
+                continue;
+            }
+            if (b < '0' || b > '7') {
+                throw new IOException("Malformed tar header");
+            }
+            value = (value << 3) + (b - '0');
+        }
+        return value;
+    }
+
+    private static String cString(byte[] data) {
+        int end = 0;
+        while (end < data.length && data[end] != 0) {
+            end++;
+        }
+        return new String(data, 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds a key in pax records of the form {@code "<length> <key>=<value>\n"}.
+     */
+    private static String pax(byte[] data, String key) {
+        int pos = 0;
+        while (pos < data.length) {
+            int space = pos;
+            while (space < data.length && data[space] != ' ') {
+                space++;
+            }
+            if (space == data.length) {
+                break;
+            }
+            int length = Integer.parseInt(new String(data, pos, space - pos, StandardCharsets.US_ASCII));
+            if (length <= 0 || pos + length > data.length) {
+                break;
+            }
+            String record = new String(data, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);
+            int eq = record.indexOf('=');
+            if (eq > 0 && record.substring(0, eq).equals(key)) {
+                return record.substring(eq + 1);
+            }
+            pos += length;
+        }
+        return null;
+    }
+}
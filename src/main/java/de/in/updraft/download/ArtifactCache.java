@@ -0,0 +1,333 @@
+package de.in.updraft.download;
+
+import de.in.updraft.util.Checksums;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps downloaded artifacts in a directory shared by all instances of an
+ * application on a host, so that a release is downloaded once per host rather
+ * than once per instance.
+ * <p>
+ * Entries are addressed by the URL and the expected SHA-256 of the artifact.
+ * A file lock per entry makes sure that only one process downloads it; the
+ * others wait for the lock and then use the finished file. A download
+ * interrupted by a crash is resumed by the next process. Entries older than the
+ * maximum age are evicted, and the least recently used ones are evicted while
+ * the cache exceeds its maximum size. The last use of an entry is recorded on
+ * its lock file, because the entry may be hard-linked into an installation
+ * whose timestamps must not change.
+ * <p>
+ * A URL alone does not identify the content behind it, so artifacts are only
+ * cached if their SHA-256 is known. Since anything with access to the shared
+ * directory could alter an entry, every cache hit is verified again, including
+ * its signature; an entry that fails is downloaded again.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class ArtifactCache {
+    private static final Logger LOGGER = LogManager.getLogger(ArtifactCache.class);
+
+    private static final String LOCK_SUFFIX = ".lock";
+    private static final String PART_SUFFIX = ".part";
+    /** Entries used this recently are never evicted, since a reader may be about to open them. */
+    private static final Duration IN_USE = Duration.ofMinutes(1);
+
+    /** File locks are held per JVM, so threads of one process queue up here first. */
+    private static final ConcurrentMap<Path, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private long maxSize = 2L * 1024 * 1024 * 1024;
+    private Duration maxAge = Duration.ofDays(30);
+
+    /**
+     * @param directory The shared cache directory, e.g. below
+     *                  {@code /var/cache}. It is created if missing.
+     */
+    public ArtifactCache(Path directory) {
+        this.directory = directory.toAbsolutePath();
+    }
+
+    /**
+     * @param maxSize Total size of the cached artifacts in bytes beyond which
+     *                the least recently used ones are evicted.
+     */
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param maxAge Time after its last use after which an entry is evicted.
+     */
+    public void setMaxAge(Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Fills a cache entry.
+     */
+    @FunctionalInterface
+    public interface Download {
+        /**
+         * Downloads and verifies the artifact into the given file.
+         */
+        void to(Path target) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Returns the cached artifact, downloading it first if no process on this
+     * host has done so yet. The returned file must not be modified; link or
+     * copy it instead.
+     *
+     * @param uri      The artifact location.
+     * @param sha256   The expected SHA-256.
+     * @param engine   The engine used if the artifact must be downloaded.
+     * @param verifier Checks the download, or null.
+     * @return The cached file.
+     * @throws IOException          If the download fails.
+     * @throws InterruptedException If interrupted while downloading or waiting
+     *                              for another process.
+     */
+    public Path fetch(URI uri, String sha256, DownloadEngine engine, ArtifactVerifier verifier)
+            throws IOException, InterruptedException {
+        return fetch(uri, sha256, verifier, target -> engine.download(uri, target, verifier));
+    }
+
+    /**
+     * Like {@link #fetch(URI, String, ArtifactVerifier, Download)}, checking
+     * cached entries against the SHA-256 only.
+     */
+    public Path fetch(URI uri, String sha256, Download download) throws IOException, InterruptedException {
+        return fetch(uri, sha256, null, download);
+    }
+
+    /**
+     * Like {@link #fetch(URI, String, DownloadEngine, ArtifactVerifier)}, but
+     * with a custom download, e.g. one that tries mirrors first.
+     *
+     * @param uri      The artifact location, used as part of the key.
+     * @param sha256   The expected SHA-256.
+     * @param verifier Checks a cached entry before it is used, or null to
+     *                 check its SHA-256 only. The download must verify itself.
+     * @param download Fills the entry if it is missing or does not verify.
+     * @return The cached file.
+     * @throws IOException              If the download fails.
+     * @throws InterruptedException     If interrupted.
+     * @throws IllegalArgumentException If the SHA-256 is null.
+     */
+    public Path fetch(URI uri, String sha256, ArtifactVerifier verifier, Download download)
+            throws IOException, InterruptedException {
+        if (sha256 == null) {
+            throw new IllegalArgumentException("Cannot cache " + uri + " without its SHA-256");
+        }
+        ArtifactVerifier check = verifier != null ? verifier : new ArtifactVerifier(sha256, -1);
+        String key = key(uri, sha256);
+        Path entry = directory.resolve(key);
+        if (touch(entry) && isIntact(entry, check)) {
+            LOGGER.info("Using cached artifact {} for {}", entry, uri);
+            return entry;
+        }
+
+        Files.createDirectories(directory);
+        Path lockFile = lockFile(entry);
+        ReentrantLock local = LOCAL_LOCKS.computeIfAbsent(lockFile, path -> new ReentrantLock());
+        local.lockInterruptibly();
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.lock()) {
+            // Another process may have finished while we were waiting.
+            if (touch(entry) && isIntact(entry, check)) {
+                LOGGER.info("Using artifact {} downloaded by another instance", entry);
+                return entry;
+            }
+            Files.deleteIfExists(entry);
+            Path part = directory.resolve(key + PART_SUFFIX);
+            download.to(part);
+            Files.move(part, entry, StandardCopyOption.ATOMIC_MOVE);
+            touch(entry);
+            LOGGER.info("Cached {} as {}", uri, entry);
+        } finally {
+            local.unlock();
+        }
+        evictQuietly(entry);
+        return entry;
+    }
+
+    static String key(URI uri, String sha256) {
+        String material = uri + "\n" + sha256.toLowerCase();
+        return Checksums.toHex(Checksums.sha256().digest(material.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @return false if the entry is gone or does not verify.
+     */
+    private static boolean isIntact(Path entry, ArtifactVerifier verifier) throws IOException {
+        try {
+            verifier.verify(entry);
+            return true;
+        } catch (VerificationException e) {
+            LOGGER.warn("Cached artifact {} does not verify ({}), downloading it again", entry, e.getMessage());
+            return false;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Marks the entry as used.
+     *
+     * @return false if the entry does not exist.
+     */
+    private static boolean touch(Path entry) throws IOException {
+        if (!Files.exists(entry)) {
+            return false;
+        }
+        Path lockFile = lockFile(entry);
+        try {
+            Files.setLastModifiedTime(lockFile, FileTime.from(Instant.now()));
+        } catch (NoSuchFileException e) {
+            Files.newByteChannel(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE).close();
+        }
+        return true;
+    }
+
+    /**
+     * @return The time the entry was last used, or when it was written if it
+     *         has no lock file.
+     */
+    private static Instant lastUse(Path entry) throws IOException {
+        try {
+            return Files.getLastModifiedTime(lockFile(entry)).toInstant();
+        } catch (NoSuchFileException e) {
+            return Files.getLastModifiedTime(entry).toInstant();
+        }
+    }
+
+    private static Path lockFile(Path entry) {
+        return entry.resolveSibling(entry.getFileName() + LOCK_SUFFIX);
+    }
+
+    private void evictQuietly(Path keep) {
+        try {
+            evict(keep);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot evict cached artifacts: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Removes expired entries and, if the cache is still too large, the least
+     * recently used ones. Entries that are being downloaded or were just used
+     * are kept.
+     *
+     * @throws IOException If the directory cannot be listed.
+     */
+    public void evict() throws IOException {
+        evict(null);
+    }
+
+    private void evict(Path keep) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> entries = new ArrayList<>();
+        List<Path> parts = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.indexOf('.') < 0) {
+                    entries.add(file);
+                } else if (name.contains(PART_SUFFIX)) {
+                    parts.add(file);
+                }
+            }
+        }
+
+        Instant now = Instant.now();
+        Instant expired = now.minus(maxAge);
+        Instant inUse = now.minus(IN_USE);
+        List<Candidate> candidates = new ArrayList<>();
+        long total = 0;
+        for (Path entry : entries) {
+            try {
+                Instant used = lastUse(entry);
+                long size = Files.size(entry);
+                total += size;
+                if (!entry.equals(keep) && used.isBefore(inUse)) {
+                    candidates.add(new Candidate(entry, used, size));
+                }
+            } catch (NoSuchFileException e) {
+                // Evicted by another process.
+            }
+        }
+
+        candidates.sort(Comparator.comparing(Candidate::used));
+        for (Candidate candidate : candidates) {
+            if (!candidate.used().isBefore(expired) && total <= maxSize) {
+                break;
+            }
+            if (delete(candidate.path(), candidate.path())) {
+                total -= candidate.size();
+            }
+        }
+
+        for (Path part : parts) {
+            try {
+                if (Files.getLastModifiedTime(part).toInstant().isBefore(expired)) {
+                    String name = part.getFileName().toString();
+                    delete(part, directory.resolve(name.substring(0, name.indexOf('.'))));
+                }
+            } catch (NoSuchFileException e) {
+                // Completed or removed meanwhile.
+            }
+        }
+    }
+
+    /**
+     * Deletes a file of an entry unless a process holds the entry's lock. The
+     * lock file itself is kept, so that all processes keep locking the same
+     * file.
+     */
+    private static boolean delete(Path file, Path entry) throws IOException {
+        Path lockFile = lockFile(entry);
+        ReentrantLock local = LOCAL_LOCKS.computeIfAbsent(lockFile, path -> new ReentrantLock());
+        if (!local.tryLock()) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock()) {
+            if (lock == null) {
+                return false;
+            }
+            boolean deleted = Files.deleteIfExists(file);
+            if (deleted)
+                LOGGER.info("Evicted cached artifact {}", file);
+            return deleted;
+        } finally {
+            local.unlock();
+        }
+    }
+
+    private record Candidate(Path path, Instant used, long size) {
+    }
+}
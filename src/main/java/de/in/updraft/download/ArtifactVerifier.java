@@ -0,0 +1,263 @@
+package de.in.updraft.download;
+
+import de.in.updraft.metrics.Instrumentation;
+import de.in.updraft.metrics.Phase;
+import de.in.updraft.util.Checksums;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * Checks an artifact against its expected length, SHA-256 and detached
+ * signature while it is being downloaded, so that verification needs no
+ * extra pass over the file.
+ * <p>
+ * Bytes are fed in order through {@link #update(ByteBuffer)} or a stream from
+ * {@link #wrap(InputStream)}. A download that grows past the expected length
+ * fails right away; the digest and signature are checked at the end. Any of
+ * the expectations may be missing. A verifier is not thread-safe and is reused
+ * across attempts by calling {@link #reset()}.
+ * <p>
+ * Signatures are verified with {@code SHA256withRSA}, {@code SHA256withECDSA}
+ * or {@code Ed25519}, depending on the key. Note that the JDK buffers the
+ * whole artifact in memory for Ed25519.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public final class ArtifactVerifier {
+    private final String sha256;
+    private final long size;
+    private final byte[] signature;
+    private final PublicKey publicKey;
+
+    private MessageDigest digest;
+    private Signature verifier;
+    private long seen;
+
+    /**
+     * @param sha256 The expected hex SHA-256, or null.
+     * @param size   The expected length, or a negative value if unknown.
+     */
+    public ArtifactVerifier(String sha256, long size) {
+        this(sha256, size, null, null);
+    }
+
+    /**
+     * @param sha256    The expected hex SHA-256, or null.
+     * @param size      The expected length, or a negative value if unknown.
+     * @param signature The detached signature, or null.
+     * @param publicKey The key to check the signature with; required if a
+     *                  signature is given.
+     */
+    public ArtifactVerifier(String sha256, long size, byte[] signature, PublicKey publicKey) {
+        if (signature != null && publicKey == null)
+            throw new IllegalArgumentException("A public key is required to verify a signature");
+        this.sha256 = sha256;
+        this.size = size;
+        this.signature = signature != null ? signature.clone() : null;
+        this.publicKey = publicKey;
+        reset();
+    }
+
+    /**
+     * Decodes a detached signature file, which may hold the raw signature or
+     * its Base64 encoding.
+     */
+    public static byte[] decodeSignature(byte[] content) {
+        String text = new String(content, StandardCharsets.ISO_8859_1).trim();
+        if (!text.isEmpty() && text.matches("[A-Za-z0-9+/=\\s]+")) {
+            try {
+                return Base64.getMimeDecoder().decode(text);
+            } catch (IllegalArgumentException e) {
+                // Raw bytes that happen to look like Base64.
+            }
+        }
+        return content;
+    }
+
+    static String algorithmFor(PublicKey key) {
+        switch (key.getAlgorithm()) {
+        case "RSA":
+            return "SHA256withRSA";
+        case "EC":
+            return "SHA256withECDSA";
+        case "EdDSA":
+        case "Ed25519":
+            return "Ed25519";
+        default:
+            throw new IllegalArgumentException("Unsupported key algorithm " + key.getAlgorithm());
+        }
+    }
+
+    /**
+     * @return The expected length, or a negative value if unknown.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Starts over, e.g. before a download is retried from the beginning.
+     */
+    public void reset() {
+        seen = 0;
+        digest = sha256 != null ? Checksums.sha256() : null;
+        verifier = null;
+        if (signature != null) {
+            try {
+                verifier = Signature.getInstance(algorithmFor(publicKey));
+                verifier.initVerify(publicKey);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalArgumentException("Cannot verify signatures with " + publicKey.getAlgorithm(), e);
+            }
+        }
+    }
+
+    /**
+     * Fails early if the server announces a different length.
+     *
+     * @param contentLength The announced length, or a negative value.
+     */
+    public void expectLength(long contentLength) throws VerificationException {
+        if (size >= 0 && contentLength >= 0 && contentLength != size) {
+            throw new VerificationException("Expected " + size + " bytes, server announced " + contentLength);
+        }
+    }
+
+    /**
+     * Consumes the remaining bytes of the buffer, leaving its position
+     * unchanged.
+     */
+    public void update(ByteBuffer buffer) throws VerificationException {
+        count(buffer.remaining());
+        if (digest != null)
+            digest.update(buffer.duplicate());
+        if (verifier != null) {
+            try {
+                verifier.update(buffer.duplicate());
+            } catch (GeneralSecurityException e) {
+                throw new VerificationException("Cannot verify signature", e);
+            }
+        }
+    }
+
+    public void update(byte[] bytes, int offset, int length) throws VerificationException {
+        update(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    private void count(int length) throws VerificationException {
+        seen += length;
+        if (size >= 0 && seen > size) {
+            throw new VerificationException("Artifact is longer than the expected " + size + " bytes");
+        }
+    }
+
+    /**
+     * Checks the bytes seen since the last reset.
+     *
+     * @throws VerificationException If any expectation is not met.
+     */
+    public void verify() throws VerificationException {
+        Instrumentation.Span span = Instrumentation.start(Phase.VERIFY, null, null).bytes(seen);
+        try {
+            check();
+            span.success();
+        } catch (VerificationException e) {
+            span.failure(e);
+            throw e;
+        }
+    }
+
+    private void check() throws VerificationException {
+        if (size >= 0 && seen != size) {
+            throw new VerificationException("Expected " + size + " bytes, got " + seen);
+        }
+        if (digest != null) {
+            String actual = Checksums.toHex(digest.digest());
+            if (!Checksums.matches(sha256, actual)) {
+                throw new VerificationException("Checksum mismatch: expected " + sha256 + ", got " + actual);
+            }
+        }
+        if (verifier != null) {
+            try {
+                if (!verifier.verify(signature)) {
+                    throw new VerificationException("Signature does not match");
+                }
+            } catch (GeneralSecurityException e) {
+                throw new VerificationException("Cannot verify signature", e);
+            }
+        }
+    }
+
+    /**
+     * Verifies a file that is already on disk.
+     */
+    public void verify(Path file) throws IOException {
+        Instrumentation.Span span = Instrumentation.start(Phase.VERIFY, file.getFileName().toString(), null);
+        try {
+            reset();
+            try (InputStream in = Files.newInputStream(file)) {
+                byte[] buffer = new byte[64 * 1024];
+                for (int n; (n = in.read(buffer)) >= 0;) {
+                    update(buffer, 0, n);
+                }
+            }
+            check();
+            span.bytes(seen).success();
+        } catch (IOException | RuntimeException e) {
+            span.failure(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return A stream that feeds everything read through it into this
+     *         verifier and verifies once the end is reached.
+     */
+    public InputStream wrap(InputStream in) {
+        return new FilterInputStream(in) {
+            private boolean verified;
+
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    update(b, off, n);
+                } else if (n < 0 && !verified) {
+                    verified = true;
+                    verify();
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                // Skipped bytes must be hashed as well.
+                byte[] buffer = new byte[(int) Math.min(n, 8192)];
+                int read = read(buffer, 0, buffer.length);
+                return Math.max(read, 0);
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+}
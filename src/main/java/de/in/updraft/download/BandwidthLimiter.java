@@ -0,0 +1,86 @@
+package de.in.updraft.download;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that caps the download rate, shared by all connections of the
+ * engines that use it. The rate can be changed at any time, e.g. from an
+ * operations endpoint, and applies to the bytes that follow.
+ * <p>
+ * The bucket holds at most a tenth of a second worth of tokens, so bursts stay
+ * short. A chunk larger than the bucket puts it into debt, and the next chunk
+ * waits until the debt is paid off.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class BandwidthLimiter {
+    private static final long MIN_BURST = 16 * 1024;
+
+    private long rate;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    /**
+     * @param bytesPerSecond The rate; zero or less means unlimited.
+     */
+    public BandwidthLimiter(long bytesPerSecond) {
+        this.rate = Math.max(0, bytesPerSecond);
+        this.tokens = burst();
+    }
+
+    /**
+     * @param bytesPerSecond The new rate; zero or less means unlimited.
+     */
+    public synchronized void setRate(long bytesPerSecond) {
+        refill(System.nanoTime());
+        rate = Math.max(0, bytesPerSecond);
+        tokens = Math.min(tokens, burst());
+    }
+
+    /**
+     * @return The rate in bytes per second, or 0 if unlimited.
+     */
+    public synchronized long rate() {
+        return rate;
+    }
+
+    /**
+     * Takes tokens for bytes that were just transferred.
+     *
+     * @param bytes The number of bytes.
+     * @return Nanoseconds to wait before transferring more.
+     */
+    synchronized long reserve(long bytes) {
+        if (rate == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        refill(now);
+        tokens -= bytes;
+        return tokens >= 0 ? 0 : (long) (-tokens * TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+
+    /**
+     * Takes tokens for the given bytes and blocks until the rate allows more.
+     *
+     * @param bytes The number of bytes transferred.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void acquire(long bytes) throws InterruptedException {
+        long wait = reserve(bytes);
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private void refill(long now) {
+        if (rate > 0) {
+            tokens = Math.min(burst(), tokens + (now - refilledAt) * (double) rate / TimeUnit.SECONDS.toNanos(1));
+        }
+        refilledAt = now;
+    }
+
+    private double burst() {
+        return Math.max(MIN_BURST, rate / 10.0);
+    }
+}
@@ -0,0 +1,480 @@
+package de.in.updraft.download;
+
+import de.in.updraft.transport.Transport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Downloads artifacts, splitting them into byte ranges that are fetched over
+ * several connections when the server supports it.
+ * <p>
+ * The server is probed with a HEAD request. If it answers with
+ * {@code Accept-Ranges: bytes} and a {@code Content-Length}, the file is
+ * preallocated and every segment is written into it with positional writes.
+ * Otherwise the file is fetched over a single connection.
+ * <p>
+ * Ranged downloads are resumable if the server sends an ETag or Last-Modified
+ * date: progress is kept in a sidecar file next to the target, and later
+ * attempts continue with {@code Range} and {@code If-Range} as long as that
+ * validator is unchanged. Without one, a ranged download is still split into
+ * segments but starts over on every attempt. Failed attempts are retried according to the
+ * {@link RetryPolicy}.
+ * <p>
+ * An {@link ArtifactVerifier} checks the bytes as they arrive. Ranged
+ * downloads are hashed in order as soon as a contiguous prefix is on disk,
+ * while the later segments are still downloading.
+ * <p>
+ * A {@link BandwidthLimiter} caps the rate of all connections together, and a
+ * {@link DownloadWindow} restricts large downloads to certain hours, pausing
+ * them when a window closes.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class DownloadEngine {
+    private static final Logger LOGGER = LogManager.getLogger(DownloadEngine.class);
+
+    public static final int DEFAULT_SEGMENTS = 4;
+    public static final long DEFAULT_MIN_SEGMENT_SIZE = 4L * 1024 * 1024;
+
+    private static final long VERIFY_INTERVAL_MILLIS = 100;
+    private static final int HASH_BUFFER_SIZE = 256 * 1024;
+
+    private final Transport transport;
+    private final int segments;
+    private final long minSegmentSize;
+    private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private volatile BandwidthLimiter bandwidthLimiter;
+    private volatile DownloadWindow downloadWindow;
+
+    public DownloadEngine(Transport transport) {
+        this(transport, DEFAULT_SEGMENTS, DEFAULT_MIN_SEGMENT_SIZE);
+    }
+
+    /**
+     * @param transport      Transport used for all requests.
+     * @param segments       Maximum number of concurrent connections per file.
+     * @param minSegmentSize Smallest range worth its own connection, in bytes.
+     */
+    public DownloadEngine(Transport transport, int segments, long minSegmentSize) {
+        if (segments < 1)
+            throw new IllegalArgumentException("segments must be at least 1");
+        if (minSegmentSize < 1)
+            throw new IllegalArgumentException("minSegmentSize must be positive");
+        this.transport = transport;
+        this.segments = segments;
+        this.minSegmentSize = minSegmentSize;
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * @param bandwidthLimiter Caps the download rate, possibly shared with
+     *                         other engines; null for no limit.
+     */
+    public void setBandwidthLimiter(BandwidthLimiter bandwidthLimiter) {
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
+    /**
+     * @param downloadWindow The hours in which large downloads may run, or null
+     *                       for any time.
+     */
+    public void setDownloadWindow(DownloadWindow downloadWindow) {
+        this.downloadWindow = downloadWindow;
+    }
+
+    /**
+     * Downloads the given URI into the target file. A partial download left at
+     * the target by an earlier attempt is resumed if it is still valid.
+     *
+     * @param uri    The artifact location.
+     * @param target The file to write.
+     * @return The number of bytes written.
+     * @throws IOException          If the download fails after all retries.
+     * @throws InterruptedException If interrupted.
+     */
+    public long download(URI uri, Path target) throws IOException, InterruptedException {
+        return download(uri, target, null);
+    }
+
+    /**
+     * Downloads the given URI into the target file and verifies it on the way.
+     *
+     * @param uri      The artifact location.
+     * @param target   The file to write.
+     * @param verifier Checks length, digest and signature, or null.
+     * @return The number of bytes written.
+     * @throws IOException          If the download fails after all retries, or
+     *                              a {@link VerificationException} if the
+     *                              artifact does not verify.
+     * @throws InterruptedException If interrupted.
+     */
+    public long download(URI uri, Path target, ArtifactVerifier verifier) throws IOException, InterruptedException {
+        return download(uri, target, verifier, null);
+    }
+
+    /**
+     * Downloads and verifies like {@link #download(URI, Path, ArtifactVerifier)}
+     * and reports the bytes as they arrive.
+     *
+     * @param uri      The artifact location.
+     * @param target   The file to write.
+     * @param verifier Checks length, digest and signature, or null.
+     * @param progress Counts the transferred bytes, or null.
+     * @return The number of bytes written.
+     * @throws IOException          If the download fails after all retries.
+     * @throws InterruptedException If interrupted.
+     */
+    public long download(URI uri, Path target, ArtifactVerifier verifier, DownloadProgress progress)
+            throws IOException, InterruptedException {
+        for (int attempt = 1;; attempt++) {
+            try {
+                if (verifier != null)
+                    verifier.reset();
+                return attempt(uri, target, verifier, progress);
+            } catch (WindowClosedException e) {
+                LOGGER.info("Download of {} paused: {}", uri, e.getMessage());
+                downloadWindow.awaitOpen();
+                attempt--; // a pause is not a failure
+            } catch (VerificationException e) {
+                // Never resume from bytes that failed verification, and do not
+                // retry: the same artifact would fail again.
+                Files.deleteIfExists(DownloadState.sidecarOf(target));
+                throw e;
+            } catch (IOException e) {
+                boolean permanent = e instanceof HttpStatusException && ((HttpStatusException) e).isPermanent();
+                if (permanent || attempt >= retryPolicy.maxAttempts()) {
+                    throw e;
+                }
+                long delay = retryPolicy.delayAfter(attempt).toMillis();
+                LOGGER.warn("Download attempt {} of {} failed ({}), retrying in {} ms", attempt,
+                        retryPolicy.maxAttempts(), e.getMessage(), delay);
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Opens the artifact over a single connection, e.g. to process it while it
+     * is downloading. Unlike {@link #download(URI, Path)} this neither retries
+     * nor resumes.
+     *
+     * @param uri The artifact location.
+     * @return The response body, which the caller must close.
+     * @throws IOException          If the request fails.
+     * @throws InterruptedException If interrupted.
+     */
+    public InputStream open(URI uri) throws IOException, InterruptedException {
+        return open(uri, null);
+    }
+
+    /**
+     * Opens the artifact like {@link #open(URI)}. The returned stream throws a
+     * {@link VerificationException} as soon as it has delivered more bytes than
+     * expected, or on reaching the end if the artifact does not verify.
+     *
+     * @param uri      The artifact location.
+     * @param verifier Checks length, digest and signature, or null.
+     * @return The response body, which the caller must close.
+     * @throws IOException          If the request fails or the announced length
+     *                              is wrong.
+     * @throws InterruptedException If interrupted.
+     */
+    public InputStream open(URI uri, ArtifactVerifier verifier) throws IOException, InterruptedException {
+        return open(uri, verifier, null);
+    }
+
+    /**
+     * Opens the artifact like {@link #open(URI, ArtifactVerifier)} and reports
+     * the bytes as the caller reads them.
+     *
+     * @param uri      The artifact location.
+     * @param verifier Checks length, digest and signature, or null.
+     * @param progress Counts the transferred bytes, or null.
+     * @return The response body, which the caller must close.
+     * @throws IOException          If the request fails or the announced length
+     *                              is wrong.
+     * @throws InterruptedException If interrupted.
+     */
+    public InputStream open(URI uri, ArtifactVerifier verifier, DownloadProgress progress)
+            throws IOException, InterruptedException {
+        HttpRequest request = transport.newRequest(uri).GET().build();
+        HttpResponse<InputStream> response = transport.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new HttpStatusException("Failed to download " + uri, response.statusCode());
+        }
+        long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        Throttle throttle = throttleFor(length, progress);
+        if (progress != null)
+            progress.start(length, 0);
+        try {
+            if (throttle != null)
+                throttle.checkWindow();
+            if (verifier != null) {
+                verifier.reset();
+                verifier.expectLength(length);
+            }
+        } catch (IOException e) {
+            response.body().close();
+            throw e;
+        }
+        InputStream in = throttle != null ? throttle.wrap(response.body()) : response.body();
+        return verifier != null ? verifier.wrap(in) : in;
+    }
+
+    /**
+     * @return The throttle for a download of the given size, or null if
+     *         neither a rate limit nor a window applies and nobody watches the
+     *         progress.
+     */
+    private Throttle throttleFor(long size, DownloadProgress progress) {
+        BandwidthLimiter limiter = bandwidthLimiter;
+        DownloadWindow window = downloadWindow;
+        if (window != null && !window.appliesTo(size)) {
+            window = null;
+        }
+        return limiter == null && window == null && progress == null ? null
+                : new Throttle(limiter, window, progress);
+    }
+
+    private long attempt(URI uri, Path target, ArtifactVerifier verifier, DownloadProgress progress)
+            throws IOException, InterruptedException {
+        Probe probe = probe(uri);
+        if (verifier != null) {
+            verifier.expectLength(probe.length);
+        }
+        Throttle throttle = throttleFor(probe.length, progress);
+        if (throttle != null) {
+            throttle.checkWindow();
+        }
+        if (!probe.acceptsRanges || probe.length <= 0) {
+            Files.deleteIfExists(DownloadState.sidecarOf(target));
+            return downloadSingle(probe.uri, target, verifier, progress);
+        }
+
+        String key = uri.toString();
+        DownloadState state = DownloadState.load(target, key, probe.etag, probe.lastModified, probe.length);
+        if (state != null) {
+            LOGGER.info("Resuming download at {} of {} bytes", state.completed(), state.length());
+            try {
+                return downloadRanges(probe, state, target, verifier, throttle);
+            } catch (RangeNotSatisfiedException e) {
+                if (verifier != null)
+                    verifier.reset();
+                LOGGER.warn("Could not resume download ({}), starting over", e.getMessage());
+            }
+        }
+
+        state = DownloadState.create(target, key, probe.etag, probe.lastModified, probe.length,
+                segmentCount(probe));
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Preallocate so that every segment can write at its own offset.
+            channel.write(ByteBuffer.allocate(1), probe.length - 1);
+        }
+        try {
+            return downloadRanges(probe, state, target, verifier, throttle);
+        } catch (RangeNotSatisfiedException e) {
+            LOGGER.warn("Ranged download failed ({}), falling back to a single connection", e.getMessage());
+            state.delete();
+            if (verifier != null)
+                verifier.reset();
+            return downloadSingle(probe.uri, target, verifier, progress);
+        }
+    }
+
+    int segmentCount(Probe probe) {
+        if (!probe.acceptsRanges || probe.length <= 0) {
+            return 1;
+        }
+        long bySize = probe.length / minSegmentSize;
+        return (int) Math.max(1, Math.min(segments, bySize));
+    }
+
+    Probe probe(URI uri) throws IOException, InterruptedException {
+        HttpRequest request = transport.newRequest(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<Void> response = transport.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            // Some servers refuse HEAD; let the GET report the real error.
+            return new Probe(uri, -1, false, null, null);
+        }
+        boolean ranges = response.headers().firstValue("Accept-Ranges")
+                .map(v -> v.trim().equalsIgnoreCase("bytes"))
+                .orElse(false);
+        long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        String lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        return new Probe(response.uri(), length, ranges, etag, lastModified);
+    }
+
+    private long downloadSingle(URI uri, Path target, ArtifactVerifier verifier, DownloadProgress progress)
+            throws IOException, InterruptedException {
+        try (InputStream in = open(uri, verifier, progress)) {
+            // The stream verifies when it reaches the end.
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return Files.size(target);
+    }
+
+    private long downloadRanges(Probe probe, DownloadState state, Path target, ArtifactVerifier verifier,
+            Throttle throttle) throws IOException, InterruptedException {
+        List<DownloadState.Segment> pending = new ArrayList<>();
+        for (DownloadState.Segment segment : state.segments()) {
+            if (segment.remaining() > 0) {
+                pending.add(segment);
+            }
+        }
+        LOGGER.info("Downloading {} bytes in {} segments", state.length() - state.completed(), pending.size());
+        if (throttle != null)
+            throttle.start(state.length(), state.completed());
+
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            List<CompletableFuture<HttpResponse<Long>>> futures = new ArrayList<>(pending.size());
+            for (DownloadState.Segment segment : pending) {
+                futures.add(fetchRange(probe.uri, channel, state, segment, throttle));
+            }
+
+            long hashed = 0;
+            try {
+                CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+                if (verifier == null) {
+                    all.get();
+                } else {
+                    while (true) {
+                        try {
+                            all.get(VERIFY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                            break;
+                        } catch (TimeoutException e) {
+                            hashed = hashPrefix(channel, state, verifier, hashed);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                futures.forEach(f -> f.cancel(true));
+                state.saveQuietly();
+                throw e;
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                state.saveQuietly();
+                throw e;
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                state.saveQuietly();
+                Throwable cause = e.getCause();
+                if (cause instanceof RangeNotSatisfiedException) {
+                    throw (RangeNotSatisfiedException) cause;
+                }
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException("Segment download failed", cause);
+            }
+            channel.force(false);
+            if (verifier != null) {
+                hashPrefix(channel, state, verifier, hashed);
+                verifier.verify();
+            }
+        }
+        state.delete();
+        return state.length();
+    }
+
+    /**
+     * Feeds the bytes that are on disk without a gap from the start of the file
+     * to the verifier. They were just written and are read from the page
+     * cache.
+     *
+     * @param from The number of bytes already fed.
+     * @return The new number of bytes fed.
+     */
+    private static long hashPrefix(FileChannel channel, DownloadState state, ArtifactVerifier verifier, long from)
+            throws IOException {
+        long end = 0;
+        for (DownloadState.Segment segment : state.segments()) {
+            end = segment.start + segment.done.get();
+            if (segment.remaining() > 0) {
+                break;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+        long position = from;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of " + state.length() + " byte download at " + position);
+            }
+            buffer.flip();
+            verifier.update(buffer);
+            position += read;
+        }
+        return position;
+    }
+
+    private CompletableFuture<HttpResponse<Long>> fetchRange(URI uri, FileChannel channel, DownloadState state,
+            DownloadState.Segment segment, Throttle throttle) {
+        long start = segment.start + segment.done.get();
+        long end = segment.start + segment.length - 1;
+        // A fresh download of the whole file needs no range at all.
+        boolean whole = start == 0 && end == state.length() - 1;
+        int expected = whole ? 200 : 206;
+
+        HttpRequest.Builder builder = transport.newRequest(uri).GET();
+        if (!whole) {
+            builder.header("Range", "bytes=" + start + "-" + end);
+            if (segment.done.get() > 0 && state.ifRange() != null) {
+                builder.header("If-Range", state.ifRange());
+            }
+        }
+        HttpResponse.BodyHandler<Long> handler = info -> info.statusCode() == expected
+                ? new SegmentWriter(channel, state, segment, throttle)
+                : HttpResponse.BodySubscribers.replacing(-1L);
+        return transport.sendAsync(builder.build(), handler).thenApply(response -> {
+            if (response.statusCode() != expected) {
+                throw new RangeNotSatisfiedException("HTTP " + response.statusCode() + " for range " + start + "-" + end);
+            }
+            if (segment.remaining() != 0) {
+                throw new CompletionException(new IOException("Short read for range " + start + "-" + end + ": "
+                        + response.body() + " of " + (end - start + 1) + " bytes"));
+            }
+            return response;
+        });
+    }
+
+    record Probe(URI uri, long length, boolean acceptsRanges, String etag, String lastModified) {
+    }
+
+    /**
+     * Signals that the server did not honour a range request, in which case the
+     * caller starts over or retries over a single connection.
+     */
+    static class RangeNotSatisfiedException extends RuntimeException {
+        RangeNotSatisfiedException(String message) {
+            super(message);
+        }
+    }
+}
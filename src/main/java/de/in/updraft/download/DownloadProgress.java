@@ -0,0 +1,118 @@
+package de.in.updraft.download;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Counts the bytes of a download as they arrive, for progress bars.
+ * <p>
+ * The download engine updates the counters from its I/O threads; readers may
+ * poll them from any thread. The transfer rate is smoothed over the samples
+ * taken by {@link #bytesPerSecond()}, so it should be read periodically, e.g.
+ * from a UI timer. A retried or resumed download starts counting again at the
+ * bytes it already has.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class DownloadProgress {
+    private static final long MIN_SAMPLE_NANOS = 200_000_000L;
+    /** Weight of the newest sample in the smoothed rate. */
+    private static final double SMOOTHING = 0.3;
+
+    private final LongSupplier nanoClock;
+    private final AtomicLong transferred = new AtomicLong();
+    private volatile long total = -1;
+
+    private long sampleTime;
+    private long sampleBytes;
+    private double rate = -1;
+
+    public DownloadProgress() {
+        this(System::nanoTime);
+    }
+
+    DownloadProgress(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.sampleTime = nanoClock.getAsLong();
+    }
+
+    /**
+     * Begins an attempt.
+     *
+     * @param total The size of the artifact, or -1 if unknown.
+     * @param done  The bytes already on disk.
+     */
+    synchronized void start(long total, long done) {
+        this.total = total;
+        transferred.set(done);
+        sampleTime = nanoClock.getAsLong();
+        sampleBytes = done;
+        rate = -1;
+    }
+
+    void add(long bytes) {
+        transferred.addAndGet(bytes);
+    }
+
+    public long transferred() {
+        return transferred.get();
+    }
+
+    /**
+     * @return The size of the artifact, or -1 if unknown.
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * @return true if all bytes of an artifact of known size have arrived.
+     */
+    public boolean isComplete() {
+        long t = total;
+        return t >= 0 && transferred.get() >= t;
+    }
+
+    /**
+     * @return The share of the artifact that has arrived, between 0 and 1, or
+     *         -1 if the size is unknown.
+     */
+    public double fraction() {
+        long t = total;
+        if (t < 0) {
+            return -1;
+        }
+        return t == 0 ? 1 : Math.min(1, (double) transferred.get() / t);
+    }
+
+    /**
+     * @return The smoothed transfer rate, or -1 until it has been sampled.
+     */
+    public synchronized double bytesPerSecond() {
+        long now = nanoClock.getAsLong();
+        long elapsed = now - sampleTime;
+        if (elapsed >= MIN_SAMPLE_NANOS) {
+            long bytes = transferred.get();
+            double current = (bytes - sampleBytes) * 1e9 / elapsed;
+            rate = rate < 0 ? current : rate + SMOOTHING * (current - rate);
+            sampleTime = now;
+            sampleBytes = bytes;
+        }
+        return rate;
+    }
+
+    /**
+     * @return The expected time until the download completes, or null if the
+     *         size or the rate is unknown.
+     */
+    public Duration remaining() {
+        long t = total;
+        double r = bytesPerSecond();
+        if (t < 0 || r <= 0) {
+            return null;
+        }
+        long left = Math.max(0, t - transferred.get());
+        return Duration.ofMillis((long) (left * 1000 / r));
+    }
+}
@@ -0,0 +1,206 @@
+package de.in.updraft.download;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a partial download, persisted in a sidecar file next to the
+ * partial artifact so that a later attempt, even after a restart, can resume
+ * where the previous one stopped.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+class DownloadState {
+    private static final Logger LOGGER = LogManager.getLogger(DownloadState.class);
+    private static final String SUFFIX = ".state";
+    private static final long CHECKPOINT_BYTES = 1024 * 1024;
+
+    private final Path sidecar;
+    private final String url;
+    private final String etag;
+    private final String lastModified;
+    private final long length;
+    private final List<Segment> segments;
+    private final AtomicLong unsaved = new AtomicLong();
+
+    private DownloadState(Path sidecar, String url, String etag, String lastModified, long length,
+            List<Segment> segments) {
+        this.sidecar = sidecar;
+        this.url = url;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.length = length;
+        this.segments = segments;
+    }
+
+    static Path sidecarOf(Path target) {
+        return target.resolveSibling(target.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Creates a fresh state that splits the artifact into the given number of
+     * segments.
+     */
+    static DownloadState create(Path target, String url, String etag, String lastModified, long length,
+            int count) {
+        long segmentSize = (length + count - 1) / count;
+        List<Segment> segments = new ArrayList<>(count);
+        for (long start = 0; start < length; start += segmentSize) {
+            segments.add(new Segment(start, Math.min(segmentSize, length - start), 0));
+        }
+        return new DownloadState(sidecarOf(target), url, etag, lastModified, length, segments);
+    }
+
+    /**
+     * Loads the persisted state for the target if it still describes the same
+     * remote artifact.
+     *
+     * @return The state, or null if there is nothing that can be resumed.
+     */
+    static DownloadState load(Path target, String url, String etag, String lastModified, long length) {
+        Path sidecar = sidecarOf(target);
+        if (!isResumable(etag, lastModified) || !Files.exists(sidecar) || !Files.exists(target)) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(sidecar)) {
+            props.load(in);
+            if (!url.equals(props.getProperty("url"))
+                    || length != Long.parseLong(props.getProperty("length", "-1"))
+                    || Files.size(target) != length
+                    || !sameValidators(props, etag, lastModified)) {
+                LOGGER.info("Discarding stale partial download at {}", target);
+                return null;
+            }
+            int count = Integer.parseInt(props.getProperty("segments", "0"));
+            List<Segment> segments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String[] values = props.getProperty("segment." + i).split(",");
+                segments.add(new Segment(Long.parseLong(values[0]), Long.parseLong(values[1]),
+                        Long.parseLong(values[2])));
+            }
+            return new DownloadState(sidecar, url, etag, lastModified, length, segments);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring unreadable download state {}: {}", sidecar, e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean sameValidators(Properties props, String etag, String lastModified) {
+        if (etag != null) {
+            return etag.equals(props.getProperty("etag"));
+        }
+        return lastModified != null && lastModified.equals(props.getProperty("lastModified"));
+    }
+
+    /**
+     * @return The value for an {@code If-Range} header. Weak entity tags are not
+     *         allowed there, so the modification date is used instead.
+     */
+    String ifRange() {
+        if (etag != null && !etag.startsWith("W/")) {
+            return etag;
+        }
+        return lastModified;
+    }
+
+    long length() {
+        return length;
+    }
+
+    List<Segment> segments() {
+        return segments;
+    }
+
+    long completed() {
+        long done = 0;
+        for (Segment segment : segments) {
+            done += segment.done.get();
+        }
+        return done;
+    }
+
+    /**
+     * Records written bytes and saves a checkpoint every
+     * {@value #CHECKPOINT_BYTES} bytes.
+     */
+    void progress(long bytes) {
+        if (unsaved.addAndGet(bytes) >= CHECKPOINT_BYTES) {
+            unsaved.set(0);
+            saveQuietly();
+        }
+    }
+
+    /**
+     * Without a validator a resumed download could mix two versions of the
+     * artifact, so the state is only persisted if there is one.
+     */
+    private static boolean isResumable(String etag, String lastModified) {
+        return etag != null || lastModified != null;
+    }
+
+    synchronized void save() throws IOException {
+        if (!isResumable(etag, lastModified)) {
+            return;
+        }
+        Properties props = new Properties();
+        props.setProperty("url", url);
+        if (etag != null)
+            props.setProperty("etag", etag);
+        if (lastModified != null)
+            props.setProperty("lastModified", lastModified);
+        props.setProperty("length", String.valueOf(length));
+        props.setProperty("segments", String.valueOf(segments.size()));
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            props.setProperty("segment." + i, segment.start + "," + segment.length + "," + segment.done.get());
+        }
+        Path tmp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, "SimpleUpDraft4J partial download");
+        }
+        Files.move(tmp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            LOGGER.warn("Could not save download state {}: {}", sidecar, e.getMessage());
+        }
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(sidecar);
+    }
+
+    /**
+     * A byte range of the artifact and how much of it is already on disk.
+     */
+    static class Segment {
+        final long start;
+        final long length;
+        final AtomicLong done;
+
+        Segment(long start, long length, long done) {
+            this.start = start;
+            this.length = length;
+            this.done = new AtomicLong(done);
+        }
+
+        long remaining() {
+            return length - done.get();
+        }
+    }
+}
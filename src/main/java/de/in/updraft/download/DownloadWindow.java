@@ -0,0 +1,113 @@
+package de.in.updraft.download;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Daily time windows in which large downloads may run, e.g. off-peak hours.
+ * <p>
+ * A download of at least the minimum size waits until a window is open. If
+ * the window closes while it is running, the download pauses and resumes with
+ * a range request once the next window opens; servers without range support
+ * start over.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public final class DownloadWindow {
+    /** Longest sleep between checks, so that clock changes are noticed. */
+    private static final Duration MAX_SLEEP = Duration.ofMinutes(1);
+
+    private final Clock clock;
+    private final List<LocalTime[]> windows = new ArrayList<>();
+    private long minimumSize;
+
+    /**
+     * @param zone The time zone of the windows.
+     */
+    public DownloadWindow(ZoneId zone) {
+        this(Clock.system(zone));
+    }
+
+    DownloadWindow(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Adds a daily window. A window that ends before it starts spans midnight.
+     *
+     * @param start Start of the window, inclusive.
+     * @param end   End of the window, exclusive.
+     * @return This policy.
+     */
+    public synchronized DownloadWindow add(LocalTime start, LocalTime end) {
+        if (start.equals(end))
+            throw new IllegalArgumentException("A window must not be empty");
+        windows.add(new LocalTime[] { start, end });
+        return this;
+    }
+
+    /**
+     * @param minimumSize Downloads smaller than this, in bytes, ignore the
+     *                    windows. Downloads of unknown size always respect
+     *                    them.
+     */
+    public void setMinimumSize(long minimumSize) {
+        this.minimumSize = minimumSize;
+    }
+
+    /**
+     * @param size The download size, or a negative value if unknown.
+     * @return true if the download must respect the windows.
+     */
+    public boolean appliesTo(long size) {
+        return size < 0 || size >= minimumSize;
+    }
+
+    public boolean isOpen() {
+        return untilOpen().isZero();
+    }
+
+    /**
+     * @return The time until the next window opens, zero if one is open.
+     */
+    public synchronized Duration untilOpen() {
+        if (windows.isEmpty()) {
+            return Duration.ZERO;
+        }
+        ZonedDateTime now = ZonedDateTime.now(clock);
+        LocalTime time = now.toLocalTime();
+        Duration best = null;
+        for (LocalTime[] window : windows) {
+            LocalTime start = window[0];
+            LocalTime end = window[1];
+            boolean open = start.isBefore(end) ? !time.isBefore(start) && time.isBefore(end)
+                    : !time.isBefore(start) || time.isBefore(end);
+            if (open) {
+                return Duration.ZERO;
+            }
+            LocalDate day = time.isBefore(start) ? now.toLocalDate() : now.toLocalDate().plusDays(1);
+            Duration wait = Duration.between(now, ZonedDateTime.of(day, start, now.getZone()));
+            if (best == null || wait.compareTo(best) < 0) {
+                best = wait;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Blocks until a window is open.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void awaitOpen() throws InterruptedException {
+        for (Duration wait; !(wait = untilOpen()).isZero();) {
+            Thread.sleep(Math.max(1, Math.min(wait.toMillis(), MAX_SLEEP.toMillis())));
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package de.in.updraft.download;
+
+import java.io.IOException;
+
+/**
+ * Signals that the server answered a download request with an unexpected HTTP
+ * status.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class HttpStatusException extends IOException {
+    private final int statusCode;
+
+    public HttpStatusException(String message, int statusCode) {
+        super(message + ": HTTP " + statusCode);
+        this.statusCode = statusCode;
+    }
+
+    public int statusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return true for client errors such as 404, which will not go away by
+     *         retrying.
+     */
+    public boolean isPermanent() {
+        return statusCode >= 400 && statusCode < 500 && statusCode != 408 && statusCode != 429;
+    }
+}
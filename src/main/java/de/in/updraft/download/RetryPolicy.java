@@ -0,0 +1,32 @@
+package de.in.updraft.download;
+
+import java.time.Duration;
+
+/**
+ * Bounded exponential backoff between download attempts.
+ *
+ * @param maxAttempts  Total number of attempts, including the first one.
+ * @param initialDelay Delay before the second attempt.
+ * @param maxDelay     Upper bound for the delay between attempts.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public record RetryPolicy(int maxAttempts, Duration initialDelay, Duration maxDelay) {
+
+    public static final RetryPolicy DEFAULT = new RetryPolicy(5, Duration.ofMillis(500), Duration.ofSeconds(30));
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+
+    public RetryPolicy {
+        if (maxAttempts < 1)
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+    }
+
+    /**
+     * @param attempt The attempt that just failed, starting at 1.
+     * @return The time to wait before the next attempt.
+     */
+    public Duration delayAfter(int attempt) {
+        long millis = initialDelay.toMillis() << Math.min(attempt - 1, 30);
+        return Duration.ofMillis(Math.min(Math.max(millis, 0), maxDelay.toMillis()));
+    }
+}
@@ -0,0 +1,93 @@
+package de.in.updraft.download;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Body subscriber that writes a response body into a shared {@link FileChannel}
+ * using positional writes, so several segments can fill the same file
+ * concurrently. Progress is recorded in the segment as bytes reach the channel.
+ * A {@link Throttle} paces the segment by holding back demand and reports its
+ * bytes to the progress of the download.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+class SegmentWriter implements HttpResponse.BodySubscriber<Long> {
+    private final FileChannel channel;
+    private final DownloadState state;
+    private final DownloadState.Segment segment;
+    private final Throttle throttle;
+    private final CompletableFuture<Long> result = new CompletableFuture<>();
+
+    private Flow.Subscription subscription;
+    private long written;
+
+    /**
+     * @param throttle Paces the segment by delaying demand, or null.
+     */
+    SegmentWriter(FileChannel channel, DownloadState state, DownloadState.Segment segment, Throttle throttle) {
+        this.channel = channel;
+        this.state = state;
+        this.segment = segment;
+        this.throttle = throttle;
+    }
+
+    @Override
+    public CompletionStage<Long> getBody() {
+        return result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        try {
+            long received = 0;
+            for (ByteBuffer buffer : items) {
+                if (buffer.remaining() > segment.remaining()) {
+                    throw new IOException("Server sent more bytes than requested for range starting at "
+                            + segment.start);
+                }
+                int count = 0;
+                while (buffer.hasRemaining()) {
+                    count += channel.write(buffer, segment.start + segment.done.get() + count);
+                }
+                segment.done.addAndGet(count);
+                written += count;
+                received += count;
+                state.progress(count);
+            }
+            long delay = throttle != null ? throttle.delayFor(received) : 0;
+            if (delay > 0) {
+                // Asking for less data is what slows the sender down.
+                CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> subscription.request(1));
+            } else {
+                subscription.request(1);
+            }
+        } catch (IOException e) {
+            subscription.cancel();
+            result.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        result.complete(written);
+    }
+}
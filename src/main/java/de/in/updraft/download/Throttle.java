@@ -0,0 +1,93 @@
+package de.in.updraft.download;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the rate limit and download window of an engine to one download and
+ * counts its bytes for a {@link DownloadProgress}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+class Throttle {
+    private final BandwidthLimiter limiter;
+    private final DownloadWindow window;
+    private final DownloadProgress progress;
+
+    /**
+     * @param limiter  The rate limit, or null.
+     * @param window   The window, or null if it does not apply to the download.
+     * @param progress Receives the transferred bytes, or null.
+     */
+    Throttle(BandwidthLimiter limiter, DownloadWindow window, DownloadProgress progress) {
+        this.limiter = limiter;
+        this.window = window;
+        this.progress = progress;
+    }
+
+    /**
+     * Restarts the progress count, e.g. when a download resumes.
+     */
+    void start(long total, long done) {
+        if (progress != null)
+            progress.start(total, done);
+    }
+
+    /**
+     * Fails if the window does not allow the download to start or go on.
+     */
+    void checkWindow() throws WindowClosedException {
+        if (window != null && !window.isOpen()) {
+            throw new WindowClosedException("Download window is closed for " + window.untilOpen());
+        }
+    }
+
+    /**
+     * Accounts for transferred bytes.
+     *
+     * @return Nanoseconds to wait before requesting more.
+     * @throws WindowClosedException If the download must pause.
+     */
+    long delayFor(long bytes) throws WindowClosedException {
+        if (progress != null)
+            progress.add(bytes);
+        checkWindow();
+        return limiter != null ? limiter.reserve(bytes) : 0;
+    }
+
+    InputStream wrap(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) {
+                    long wait = delayFor(n);
+                    if (wait > 0) {
+                        try {
+                            TimeUnit.NANOSECONDS.sleep(wait);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("Interrupted while throttling");
+                        }
+                    }
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                byte[] buffer = new byte[(int) Math.min(n, 8192)];
+                return Math.max(read(buffer, 0, buffer.length), 0);
+            }
+        };
+    }
+}
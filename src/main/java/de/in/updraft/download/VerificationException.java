@@ -0,0 +1,20 @@
+package de.in.updraft.download;
+
+import java.io.IOException;
+
+/**
+ * Signals that a downloaded artifact does not have the expected length,
+ * checksum or signature.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class VerificationException extends IOException {
+
+    public VerificationException(String message) {
+        super(message);
+    }
+
+    public VerificationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
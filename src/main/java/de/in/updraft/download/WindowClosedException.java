@@ -0,0 +1,17 @@
+package de.in.updraft.download;
+
+import java.io.IOException;
+
+/**
+ * Signals that a download stopped because its {@link DownloadWindow} is
+ * closed. {@link DownloadEngine#download(java.net.URI, java.nio.file.Path)}
+ * handles it by waiting for the next window.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class WindowClosedException extends IOException {
+
+    public WindowClosedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,34 @@
+package de.in.updraft.hotswap;
+
+import java.util.Map;
+
+/**
+ * Lifecycle of application code that a {@link ModuleHost} can replace while
+ * the JVM keeps running.
+ * <p>
+ * The state handed from one version to the next must only contain types
+ * loaded by the host's parent class loader, such as JDK classes; instances of
+ * module classes would keep the old class loader alive.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public interface HotSwappable {
+
+    /**
+     * Starts the module.
+     *
+     * @param state The state returned by the previous version's {@link #stop()},
+     *              empty on the first start. The map is mutable.
+     * @throws Exception If the module cannot start.
+     */
+    void start(Map<String, Object> state) throws Exception;
+
+    /**
+     * Drains running work, releases threads and resources that reference
+     * module classes, and returns the state to hand to the next version.
+     *
+     * @return The state for the successor.
+     * @throws Exception If the module cannot stop cleanly.
+     */
+    Map<String, Object> stop() throws Exception;
+}
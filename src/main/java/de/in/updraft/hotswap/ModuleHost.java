@@ -0,0 +1,232 @@
+package de.in.updraft.hotswap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarFile;
+
+/**
+ * Runs application code from a jar in its own class loader so that it can be
+ * replaced by a newer jar without restarting the JVM.
+ * <p>
+ * The module class is named explicitly or by the {@code Updraft-Module}
+ * attribute of the jar manifest and must implement {@link HotSwappable}. The
+ * jar must not be on the class path of the host, otherwise its classes are
+ * loaded by the parent and cannot be replaced. Each version is loaded from a
+ * private copy in the work directory, so the original jar can be overwritten.
+ * <p>
+ * On {@link #swap(Path)} the new version is loaded first, then the old one is
+ * stopped and its state handed to the new one. If the new version fails to
+ * start, the old one is started again with the same state.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class ModuleHost implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger(ModuleHost.class);
+    public static final String MODULE_ATTRIBUTE = "Updraft-Module";
+
+    private final String moduleClass;
+    private final ClassLoader parent;
+    private final Path workDirectory;
+    private int generation;
+    private Loaded current;
+
+    /**
+     * @param moduleClass   The class implementing {@link HotSwappable}, or null
+     *                      to read it from the jar manifest.
+     * @param parent        The loader that provides {@link HotSwappable} and any
+     *                      classes shared with the host.
+     * @param workDirectory Directory for the private copies of the jars.
+     */
+    public ModuleHost(String moduleClass, ClassLoader parent, Path workDirectory) {
+        this.moduleClass = moduleClass;
+        this.parent = parent;
+        this.workDirectory = workDirectory;
+    }
+
+    public ModuleHost(Path workDirectory) {
+        this(null, ModuleHost.class.getClassLoader(), workDirectory);
+    }
+
+    /**
+     * Loads and starts the module from the jar.
+     *
+     * @param jar The application jar.
+     * @throws IOException If the module cannot be loaded or started.
+     */
+    public synchronized void start(Path jar) throws IOException {
+        if (current != null) {
+            throw new IllegalStateException("Module already started, use swap()");
+        }
+        Loaded loaded = load(jar);
+        try {
+            loaded.start(new HashMap<>());
+        } catch (Exception e) {
+            loaded.close();
+            throw new IOException("Module in " + jar + " failed to start", e);
+        }
+        current = loaded;
+    }
+
+    /**
+     * Replaces the running module with the one in the given jar.
+     *
+     * @param jar The new application jar.
+     * @throws IOException If the new version cannot be loaded or started; the
+     *                     old version keeps running in that case.
+     */
+    public synchronized void swap(Path jar) throws IOException {
+        if (current == null) {
+            start(jar);
+            return;
+        }
+        Loaded next = load(jar);
+        Map<String, Object> state;
+        try {
+            state = current.stop();
+        } catch (Exception e) {
+            next.close();
+            throw new IOException("Running module failed to stop, keeping it", e);
+        }
+        try {
+            next.start(state);
+        } catch (Exception e) {
+            next.close();
+            LOGGER.error("New module version failed to start, restarting the previous one", e);
+            try {
+                current.start(state);
+            } catch (Exception restart) {
+                e.addSuppressed(restart);
+                current.close();
+                current = null;
+            }
+            throw new IOException("Module in " + jar + " failed to start", e);
+        }
+        Loaded old = current;
+        current = next;
+        old.close();
+        LOGGER.info("Hot-swapped application module to {}", jar);
+    }
+
+    /**
+     * @return The running module, or null.
+     */
+    public synchronized HotSwappable module() {
+        return current != null ? current.module : null;
+    }
+
+    /**
+     * Stops the running module.
+     *
+     * @return The state returned by the module, or null if none was running.
+     * @throws IOException If the module fails to stop.
+     */
+    public synchronized Map<String, Object> stop() throws IOException {
+        if (current == null) {
+            return null;
+        }
+        try {
+            return current.stop();
+        } catch (Exception e) {
+            throw new IOException("Module failed to stop", e);
+        } finally {
+            current.close();
+            current = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stop();
+    }
+
+    private Loaded load(Path jar) throws IOException {
+        Files.createDirectories(workDirectory);
+        String name = jar.getFileName().toString().replace(".jar", "");
+        Path copy = workDirectory.resolve(name + "-" + (++generation) + ".jar");
+        Files.copy(jar, copy, StandardCopyOption.REPLACE_EXISTING);
+
+        String className = moduleClass;
+        if (className == null) {
+            try (JarFile jarFile = new JarFile(copy.toFile())) {
+                var manifest = jarFile.getManifest();
+                className = manifest != null ? manifest.getMainAttributes().getValue(MODULE_ATTRIBUTE) : null;
+            }
+            if (className == null) {
+                Files.deleteIfExists(copy);
+                throw new IOException(jar + " names no module class in its " + MODULE_ATTRIBUTE + " attribute");
+            }
+        }
+
+        URLClassLoader loader = new URLClassLoader("updraft-module-" + generation,
+                new URL[] { copy.toUri().toURL() }, parent);
+        try {
+            Class<?> type = Class.forName(className, true, loader);
+            if (type.getClassLoader() != loader) {
+                LOGGER.warn("{} was loaded by {}, not the module loader; it cannot be replaced", className,
+                        type.getClassLoader());
+            }
+            HotSwappable module = (HotSwappable) type.getDeclaredConstructor().newInstance();
+            return new Loaded(loader, copy, module);
+        } catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+            loader.close();
+            Files.deleteIfExists(copy);
+            throw new IOException("Cannot load module " + className + " from " + jar, e);
+        }
+    }
+
+    /**
+     * One loaded version of the module.
+     */
+    private static final class Loaded {
+        private final URLClassLoader loader;
+        private final Path copy;
+        private final HotSwappable module;
+
+        Loaded(URLClassLoader loader, Path copy, HotSwappable module) {
+            this.loader = loader;
+            this.copy = copy;
+            this.module = module;
+        }
+
+        void start(Map<String, Object> state) throws Exception {
+            Thread thread = Thread.currentThread();
+            ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(loader);
+            try {
+                module.start(state);
+            } finally {
+                thread.setContextClassLoader(previous);
+            }
+        }
+
+        Map<String, Object> stop() throws Exception {
+            Thread thread = Thread.currentThread();
+            ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(loader);
+            try {
+                Map<String, Object> state = module.stop();
+                return state != null ? state : new HashMap<>();
+            } finally {
+                thread.setContextClassLoader(previous);
+            }
+        }
+
+        void close() {
+            try {
+                loader.close();
+                Files.deleteIfExists(copy);
+            } catch (IOException e) {
+                LOGGER.debug("Could not release module loader for {}", copy, e);
+            }
+        }
+    }
+}
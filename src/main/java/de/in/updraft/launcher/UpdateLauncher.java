@@ -0,0 +1,410 @@
+package de.in.updraft.launcher;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Helper process that installs an update after the application has exited.
+ * <p>
+ * The application writes a plan file and starts this class in a new JVM of the
+ * same runtime. The launcher waits for the application process to exit, so
+ * there is no fixed delay, installs the staged update, restarts the
+ * application with its original command line and records the outcome in a
+ * status file. If installing fails, the backup is restored and the previous
+ * version is restarted.
+ * <p>
+ * The class is copied into a jar of its own before it is started and must
+ * therefore not depend on anything but the JDK, including logging libraries
+ * and nested classes.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public final class UpdateLauncher {
+    /** Replace the application jar with the staged jar. */
+    public static final String MODE_JAR = "jar";
+    /** Copy a staged directory that mirrors the install directory over it. */
+    public static final String MODE_DIRECTORY = "dir";
+    /** Switch back to the install directory kept by the last directory update. */
+    public static final String MODE_ROLLBACK = "rollback";
+
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_FAILED = "FAILED";
+
+    /** Suffix of the tree being built for the next version. */
+    public static final String NEXT_SUFFIX = ".updraft-next";
+    /** Suffix of the previous version after a directory swap. */
+    public static final String PREVIOUS_SUFFIX = ".updraft-previous";
+    private static final String LINK_SUFFIX = ".updraft-link";
+
+    private static final long DEFAULT_EXIT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private UpdateLauncher() {
+    }
+
+    /**
+     * @param args The path of the plan file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: UpdateLauncher <plan file>");
+            System.exit(2);
+        }
+        System.exit(run(Path.of(args[0])) ? 0 : 1);
+    }
+
+    /**
+     * Executes a plan.
+     *
+     * @param planFile The plan written by the application.
+     * @return true if the update was installed.
+     */
+    public static boolean run(Path planFile) {
+        Properties plan = new Properties();
+        try (InputStream in = Files.newInputStream(planFile)) {
+            plan.load(in);
+        } catch (IOException e) {
+            log("Cannot read plan " + planFile + ": " + e);
+            return false;
+        }
+        Path statusFile = Path.of(plan.getProperty("status"));
+        String version = plan.getProperty("version", "");
+
+        try {
+            waitForExit(Long.parseLong(plan.getProperty("pid")),
+                    Long.parseLong(plan.getProperty("exitTimeout", String.valueOf(DEFAULT_EXIT_TIMEOUT_MILLIS))));
+        } catch (TimeoutException | InterruptedException | RuntimeException e) {
+            // Installing over a running application would corrupt it.
+            log("Application did not exit: " + e);
+            writeStatus(statusFile, STATUS_FAILED, version, "Application did not exit: " + e.getMessage());
+            return false;
+        }
+
+        boolean installed;
+        String message;
+        try {
+            install(plan);
+            installed = true;
+            message = "Installed " + version;
+            log(message);
+        } catch (IOException | RuntimeException e) {
+            installed = false;
+            message = "Installation failed: " + e;
+            log(message);
+            restoreBackup(plan);
+        }
+
+        try {
+            relaunch(plan);
+        } catch (IOException e) {
+            message += "; restart failed: " + e.getMessage();
+            log("Restart failed: " + e);
+        }
+        writeStatus(statusFile, installed ? STATUS_SUCCESS : STATUS_FAILED, version, message);
+        try {
+            Files.deleteIfExists(planFile);
+        } catch (IOException e) {
+            log("Cannot delete plan: " + e);
+        }
+        return installed;
+    }
+
+    private static void waitForExit(long pid, long timeoutMillis)
+            throws TimeoutException, InterruptedException {
+        Optional<ProcessHandle> parent = ProcessHandle.of(pid);
+        if (parent.isEmpty()) {
+            return;
+        }
+        log("Waiting for process " + pid + " to exit");
+        try {
+            parent.get().onExit().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    static void install(Properties plan) throws IOException {
+        String mode = plan.getProperty("mode");
+        Path target = Path.of(plan.getProperty("target"));
+        Path installDir = target.toAbsolutePath().getParent();
+        if (MODE_ROLLBACK.equals(mode)) {
+            rollback(installDir);
+            return;
+        }
+        Path source = Path.of(plan.getProperty("source"));
+
+        switch (mode) {
+        case MODE_JAR:
+            // Copy next to the target first so that the final step is a rename.
+            Path tmp = target.resolveSibling(target.getFileName() + ".new");
+            Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            // The kept directory is older than the jar backup now.
+            deleteTree(installDir.resolveSibling(installDir.getFileName() + PREVIOUS_SUFFIX));
+            break;
+        case MODE_DIRECTORY:
+            installTree(plan, source, installDir);
+            break;
+        default:
+            throw new IOException("Unknown mode " + mode);
+        }
+        try {
+            deleteTree(source);
+        } catch (IOException e) {
+            // The update is in place; leftovers are harmless.
+            log("Cannot remove " + source + ": " + e);
+        }
+    }
+
+    private static void restoreBackup(Properties plan) {
+        String backup = plan.getProperty("backup");
+        if (backup == null || !Files.isRegularFile(Path.of(backup))) {
+            return;
+        }
+        Path target = Path.of(plan.getProperty("target"));
+        // Copy next to the target first so that the application never sees a
+        // partly restored jar.
+        Path tmp = target.resolveSibling(target.getFileName() + ".new");
+        try {
+            Files.copy(Path.of(backup), tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            log("Restored " + backup);
+        } catch (IOException e) {
+            log("Cannot restore backup: " + e);
+        }
+    }
+
+    private static void relaunch(Properties plan) throws IOException {
+        List<String> command = new ArrayList<>();
+        for (int i = 0; plan.containsKey("command." + i); i++) {
+            command.add(plan.getProperty("command." + i));
+        }
+        if (command.isEmpty()) {
+            return;
+        }
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD);
+        String workDir = plan.getProperty("workDir");
+        if (workDir != null) {
+            builder.directory(Path.of(workDir).toFile());
+        }
+        Process process = builder.start();
+        log("Restarted application as process " + process.pid());
+    }
+
+    /**
+     * Builds the new version next to the install directory and switches to it.
+     * <p>
+     * The new tree starts as a hard-linked clone of the current one, so only
+     * changed files cost I/O. Changed files replace their links rather than
+     * writing through them, which leaves the current version intact. If the
+     * install directory is a symbolic link, the new version gets a directory
+     * of its own and the link is replaced atomically; the directory of the
+     * version before the previous one is then deleted. Otherwise the
+     * directories are swapped by two renames and the old one is kept as the
+     * previous version. If anything fails before the switch, the installation
+     * is unchanged.
+     */
+    private static void installTree(Properties plan, Path source, Path installDir) throws IOException {
+        recover(installDir);
+        boolean symlink = Files.isSymbolicLink(installDir);
+        Path current = symlink ? installDir.toRealPath() : installDir;
+        Path next;
+        if (symlink) {
+            String name = installDir.getFileName() + "-" + plan.getProperty("version", "next");
+            next = current.resolveSibling(name);
+            for (int i = 2; Files.exists(next); i++) {
+                next = current.resolveSibling(name + "." + i);
+            }
+        } else {
+            next = installDir.resolveSibling(installDir.getFileName() + NEXT_SUFFIX);
+            deleteTree(next);
+        }
+
+        try {
+            linkTree(current, next);
+            moveTree(source, next);
+            for (int i = 0; plan.containsKey("removed." + i); i++) {
+                Path removed = next.resolve(plan.getProperty("removed." + i)).normalize();
+                if (removed.startsWith(next)) {
+                    Files.deleteIfExists(removed);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            deleteTree(next);
+            throw e;
+        }
+
+        Path previous = installDir.resolveSibling(installDir.getFileName() + PREVIOUS_SUFFIX);
+        if (symlink) {
+            Path obsolete = Files.isSymbolicLink(previous) ? previous.toRealPath() : null;
+            replaceLink(installDir, next);
+            replaceLink(previous, current);
+            log("Switched " + installDir + " to " + next + ", previous version kept in " + current);
+            if (obsolete != null && !obsolete.equals(current) && !obsolete.equals(next.toRealPath())) {
+                try {
+                    deleteTree(obsolete);
+                    log("Removed " + obsolete);
+                } catch (IOException e) {
+                    log("Cannot remove " + obsolete + ": " + e);
+                }
+            }
+        } else {
+            deleteTree(previous);
+            Files.move(installDir, previous, StandardCopyOption.ATOMIC_MOVE);
+            try {
+                Files.move(next, installDir, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // Never leave the install directory missing: retry the switch
+                // and, if that fails too, switch back.
+                try {
+                    recover(installDir);
+                } catch (IOException again) {
+                    e.addSuppressed(again);
+                }
+                if (!Files.exists(installDir, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.move(previous, installDir, StandardCopyOption.ATOMIC_MOVE);
+                    deleteTree(next);
+                    throw e;
+                }
+            }
+            log("Switched " + installDir + ", previous version kept in " + previous);
+        }
+    }
+
+    /**
+     * Switches back to the previous install directory, which in turn is kept
+     * as the previous version. For a symbolic link both links are replaced;
+     * otherwise the directories are swapped by three renames, and an
+     * interruption after the first is undone by {@link #recover(Path)}.
+     */
+    static void rollback(Path installDir) throws IOException {
+        recover(installDir);
+        Path previous = installDir.resolveSibling(installDir.getFileName() + PREVIOUS_SUFFIX);
+        if (!Files.exists(previous, LinkOption.NOFOLLOW_LINKS)) {
+            throw new IOException("No previous version at " + previous);
+        }
+        if (Files.isSymbolicLink(installDir)) {
+            Path current = installDir.toRealPath();
+            replaceLink(installDir, previous.toRealPath());
+            replaceLink(previous, current);
+        } else {
+            Path next = installDir.resolveSibling(installDir.getFileName() + NEXT_SUFFIX);
+            deleteTree(next);
+            Files.move(installDir, next, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(previous, installDir, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(next, previous, StandardCopyOption.ATOMIC_MOVE);
+        }
+        log("Switched " + installDir + " back to the previous version");
+    }
+
+    /**
+     * Points a symbolic link at the given directory, atomically.
+     */
+    private static void replaceLink(Path link, Path target) throws IOException {
+        Path tmp = link.resolveSibling(link.getFileName() + LINK_SUFFIX);
+        Files.deleteIfExists(tmp);
+        Files.createSymbolicLink(tmp, target.toAbsolutePath());
+        Files.move(tmp, link, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Completes a directory swap that was interrupted between its two renames.
+     */
+    static void recover(Path installDir) throws IOException {
+        Path next = installDir.resolveSibling(installDir.getFileName() + NEXT_SUFFIX);
+        Path previous = installDir.resolveSibling(installDir.getFileName() + PREVIOUS_SUFFIX);
+        if (!Files.exists(installDir, LinkOption.NOFOLLOW_LINKS) && Files.isDirectory(next)
+                && Files.isDirectory(previous)) {
+            log("Completing interrupted switch to " + next);
+            Files.move(next, installDir, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Mirrors a tree with hard links, copying files where links are not
+     * supported, e.g. across file systems.
+     */
+    private static void linkTree(Path from, Path to) throws IOException {
+        try (var paths = Files.walk(from)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path dest = to.resolve(from.relativize(path).toString());
+                if (Files.isSymbolicLink(path)) {
+                    Files.copy(path, dest, LinkOption.NOFOLLOW_LINKS);
+                } else if (Files.isDirectory(path)) {
+                    Files.createDirectories(dest);
+                } else {
+                    try {
+                        Files.createLink(dest, path);
+                    } catch (IOException | UnsupportedOperationException e) {
+                        Files.copy(path, dest, StandardCopyOption.COPY_ATTRIBUTES);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the files of one tree into another, replacing directory entries
+     * rather than overwriting file contents.
+     */
+    private static void moveTree(Path from, Path to) throws IOException {
+        try (var paths = Files.walk(from)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Path dest = to.resolve(from.relativize(path).toString());
+                if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.createDirectories(dest);
+                } else {
+                    // A rename replaces the entry, never the linked content.
+                    Files.move(path, dest, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (var paths = Files.walk(root)) {
+            for (Path path : (Iterable<Path>) paths.sorted((a, b) -> b.getNameCount() - a.getNameCount())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    static void writeStatus(Path statusFile, String status, String version, String message) {
+        Properties props = new Properties();
+        props.setProperty("status", status);
+        props.setProperty("version", version);
+        props.setProperty("message", message);
+        props.setProperty("time", Instant.now().toString());
+        try {
+            Files.createDirectories(statusFile.toAbsolutePath().getParent());
+            Path tmp = statusFile.resolveSibling(statusFile.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                props.store(out, "SimpleUpDraft4J update status");
+            }
+            Files.move(tmp, statusFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log("Cannot write status: " + e);
+        }
+    }
+
+    private static void log(String message) {
+        System.out.println(Instant.now() + " [updraft-launcher] " + message);
+    }
+}
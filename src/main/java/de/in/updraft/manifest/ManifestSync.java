@@ -0,0 +1,169 @@
+package de.in.updraft.manifest;
+
+import de.in.updraft.download.ArtifactVerifier;
+import de.in.updraft.download.DownloadEngine;
+import de.in.updraft.download.VerificationException;
+import de.in.updraft.util.Checksums;
+import de.in.updraft.util.Tasks;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Brings an installed archive distribution up to date file by file.
+ * <p>
+ * The installed tree is hashed in parallel and compared with the
+ * {@link ReleaseManifest} of the new release. Only files that differ are
+ * downloaded into a staging directory and verified while they download.
+ * Files that were part of the previously applied manifest but are gone from
+ * the new one are reported for deletion; files never listed in a manifest
+ * (configuration, logs, ...) are left alone.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class ManifestSync {
+    private static final Logger LOGGER = LogManager.getLogger(ManifestSync.class);
+
+    public static final int DEFAULT_PARALLEL_DOWNLOADS = 4;
+
+    private final DownloadEngine downloadEngine;
+    private final int hashThreads;
+    private final int parallelDownloads;
+
+    public ManifestSync(DownloadEngine downloadEngine) {
+        this(downloadEngine, Runtime.getRuntime().availableProcessors(), DEFAULT_PARALLEL_DOWNLOADS);
+    }
+
+    public ManifestSync(DownloadEngine downloadEngine, int hashThreads, int parallelDownloads) {
+        this.downloadEngine = downloadEngine;
+        this.hashThreads = Math.max(1, hashThreads);
+        this.parallelDownloads = Math.max(1, parallelDownloads);
+    }
+
+    /**
+     * The files to fetch and delete to turn an install into a release.
+     *
+     * @param manifest The manifest of the new release.
+     * @param changed  Entries that are missing or differ locally.
+     * @param removed  Paths of files that the new release no longer contains.
+     */
+    public record Plan(ReleaseManifest manifest, List<ReleaseManifest.Entry> changed, List<String> removed) {
+
+        public long downloadBytes() {
+            long total = 0;
+            for (ReleaseManifest.Entry entry : changed) {
+                total += entry.size();
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Compares the installed tree with the manifest.
+     *
+     * @param manifest   The manifest of the new release.
+     * @param installDir The install directory.
+     * @return The plan.
+     * @throws IOException          If hashing fails.
+     * @throws InterruptedException If interrupted.
+     */
+    public Plan plan(ReleaseManifest manifest, Path installDir) throws IOException, InterruptedException {
+        List<Callable<ReleaseManifest.Entry>> checks = new ArrayList<>();
+        for (ReleaseManifest.Entry entry : manifest.files()) {
+            checks.add(() -> isCurrent(installDir.resolve(entry.path()), entry) ? null : entry);
+        }
+        List<ReleaseManifest.Entry> changed = new ArrayList<>();
+        for (ReleaseManifest.Entry entry : Tasks.invokeAll(checks, hashThreads, "updraft-manifest")) {
+            if (entry != null) {
+                changed.add(entry);
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        Path installed = installDir.resolve(ReleaseManifest.INSTALLED_NAME);
+        if (Files.isRegularFile(installed)) {
+            Map<String, ReleaseManifest.Entry> current = manifest.byPath();
+            ReleaseManifest previous;
+            try (Reader in = Files.newBufferedReader(installed, StandardCharsets.UTF_8)) {
+                previous = ReleaseManifest.parse(in);
+            }
+            for (ReleaseManifest.Entry old : previous.files()) {
+                if (!current.containsKey(old.path()) && Files.exists(installDir.resolve(old.path()))) {
+                    removed.add(old.path());
+                }
+            }
+        }
+        LOGGER.info("{} of {} files changed ({} bytes), {} removed", changed.size(), manifest.files().size(),
+                new Plan(manifest, changed, removed).downloadBytes(), removed.size());
+        return new Plan(manifest, changed, removed);
+    }
+
+    /**
+     * Downloads the changed files of the plan into the staging directory and
+     * verifies each of them. The new manifest is written to the staging
+     * directory as well, so it is installed along with the files.
+     *
+     * @param plan        The plan to stage.
+     * @param manifestUri Location of the manifest, used to resolve relative
+     *                    paths.
+     * @param stagingDir  The directory that mirrors the install directory.
+     * @throws IOException          If a download or verification fails.
+     * @throws InterruptedException If interrupted.
+     */
+    public void stage(Plan plan, URI manifestUri, Path stagingDir) throws IOException, InterruptedException {
+        URI base = plan.manifest().baseUrl() != null ? URI.create(withSlash(plan.manifest().baseUrl())) : manifestUri;
+        List<Callable<Void>> downloads = new ArrayList<>();
+        for (ReleaseManifest.Entry entry : plan.changed()) {
+            downloads.add(() -> {
+                Path target = stagingDir.resolve(entry.path());
+                if (isCurrent(target, entry)) {
+                    // Left over from an earlier, interrupted attempt.
+                    return null;
+                }
+                Files.createDirectories(target.getParent());
+                try {
+                    downloadEngine.download(resolve(base, entry.path()), target,
+                            new ArtifactVerifier(entry.sha256(), entry.size()));
+                } catch (VerificationException e) {
+                    Files.deleteIfExists(target);
+                    throw new VerificationException(entry.path() + ": " + e.getMessage(), e);
+                }
+                return null;
+            });
+        }
+        Tasks.invokeAll(downloads, parallelDownloads, "updraft-manifest");
+        Files.writeString(stagingDir.resolve(ReleaseManifest.INSTALLED_NAME), plan.manifest().toJson(),
+                StandardCharsets.UTF_8);
+    }
+
+    private static boolean isCurrent(Path file, ReleaseManifest.Entry entry) throws IOException {
+        // A size mismatch settles it without reading the file.
+        return Files.isRegularFile(file) && Files.size(file) == entry.size()
+                && Checksums.matches(entry.sha256(), Checksums.sha256(file));
+    }
+
+    static URI resolve(URI base, String path) throws IOException {
+        try {
+            // The multi-argument constructor percent-encodes the path.
+            URI relative = new URI(null, null, path, null);
+            return base.resolve(relative);
+        } catch (URISyntaxException e) {
+            throw new IOException("Illegal path in manifest: " + path, e);
+        }
+    }
+
+    private static String withSlash(String url) {
+        return url.endsWith("/") ? url : url + "/";
+    }
+}
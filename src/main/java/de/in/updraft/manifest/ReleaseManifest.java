@@ -0,0 +1,150 @@
+package de.in.updraft.manifest;
+
+import de.in.updraft.util.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists every file of an archive distribution with its size and SHA-256.
+ * Expects: { "baseUrl": "...", "files": [{ "path": "lib/a.jar", "size": 123,
+ * "sha256": "..." }] }. Files are downloaded from {@code baseUrl + path}; if
+ * baseUrl is missing, paths are resolved against the manifest URL.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public record ReleaseManifest(String baseUrl, List<Entry> files) {
+
+    /**
+     * Name under which the applied manifest is kept in the install directory, so
+     * that the next update knows which files it may delete.
+     */
+    public static final String INSTALLED_NAME = ".updraft-manifest.json";
+
+    public ReleaseManifest {
+        files = List.copyOf(files);
+    }
+
+    /**
+     * A single file of the distribution.
+     *
+     * @param path   Relative path with forward slashes.
+     * @param size   Size in bytes.
+     * @param sha256 Lower-case hex SHA-256.
+     */
+    public record Entry(String path, long size, String sha256) {
+    }
+
+    public Map<String, Entry> byPath() {
+        Map<String, Entry> map = new LinkedHashMap<>();
+        for (Entry entry : files) {
+            map.put(entry.path(), entry);
+        }
+        return map;
+    }
+
+    public static ReleaseManifest parse(String json) throws IOException {
+        return parse(new StringReader(json));
+    }
+
+    /**
+     * Reads a manifest as a stream, so that large manifests are never held in
+     * memory as a whole.
+     */
+    public static ReleaseManifest parse(Reader in) throws IOException {
+        String baseUrl = null;
+        List<Entry> files = null;
+        JsonReader reader = new JsonReader(in);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+            case "baseUrl":
+                baseUrl = reader.nextStringOrNull();
+                break;
+            case "files":
+                files = readFiles(reader);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
+        if (files == null) {
+            throw new IOException("Manifest has no files array");
+        }
+        return new ReleaseManifest(baseUrl, files);
+    }
+
+    private static List<Entry> readFiles(JsonReader reader) throws IOException {
+        List<Entry> files = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String path = null;
+            String sha256 = null;
+            long size = -1;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                case "path":
+                    path = reader.nextStringOrNull();
+                    break;
+                case "sha256":
+                    sha256 = reader.nextStringOrNull();
+                    break;
+                case "size":
+                    size = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+                }
+            }
+            reader.endObject();
+            if (path == null || sha256 == null || size < 0) {
+                throw new IOException("Incomplete manifest entry for " + path);
+            }
+            files.add(new Entry(checkPath(path), size, sha256.toLowerCase()));
+        }
+        reader.endArray();
+        return files;
+    }
+
+    /**
+     * Rejects absolute paths and paths that leave the install directory.
+     */
+    static String checkPath(String path) throws IOException {
+        String normalized = path.replace('\\', '/');
+        Path p = Path.of(normalized).normalize();
+        if (normalized.startsWith("/") || p.isAbsolute() || p.startsWith("..") || normalized.contains(":")
+                || p.toString().isEmpty()) {
+            throw new IOException("Illegal path in manifest: " + path);
+        }
+        return p.toString().replace('\\', '/');
+    }
+
+    /**
+     * Serializes the manifest in the format read by {@link #parse(String)}.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n");
+        if (baseUrl != null) {
+            sb.append("  \"baseUrl\": ").append(JsonReader.quote(baseUrl)).append(",\n");
+        }
+        sb.append("  \"files\": [");
+        for (int i = 0; i < files.size(); i++) {
+            Entry e = files.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"path\": ").append(JsonReader.quote(e.path())).append(", \"size\": ").append(e.size())
+                    .append(", \"sha256\": ").append(JsonReader.quote(e.sha256())).append("}");
+        }
+        sb.append("\n  ]\n}\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package de.in.updraft.metrics;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Measures the phases of updates. Every phase is reported to the registered
+ * {@link UpdateListener}s and recorded as a Flight Recorder event named
+ * {@value UpdatePhaseEvent#NAME}, which costs next to nothing unless a
+ * recording is running.
+ * <p>
+ * Listeners found by the {@link ServiceLoader} are registered on first use.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public final class Instrumentation {
+    private static final Logger LOGGER = LogManager.getLogger(Instrumentation.class);
+    private static final List<UpdateListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    static {
+        for (UpdateListener listener : ServiceLoader.load(UpdateListener.class,
+                Instrumentation.class.getClassLoader())) {
+            LISTENERS.add(listener);
+        }
+    }
+
+    private Instrumentation() {
+    }
+
+    public static void addListener(UpdateListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    public static void removeListener(UpdateListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Starts measuring a phase. The returned span must be ended exactly once.
+     *
+     * @param phase   The phase.
+     * @param source  The source or URL involved, or null.
+     * @param version The version involved, or null.
+     * @return The running span.
+     */
+    public static Span start(Phase phase, String source, String version) {
+        return new Span(phase, source, version);
+    }
+
+    /**
+     * A phase being measured.
+     */
+    public static final class Span {
+        private final Phase phase;
+        private final String source;
+        private String version;
+        private long bytes = -1;
+        private final long startedAt = System.nanoTime();
+        private final UpdatePhaseEvent event = new UpdatePhaseEvent();
+        private boolean ended;
+
+        private Span(Phase phase, String source, String version) {
+            this.phase = phase;
+            this.source = source;
+            this.version = version;
+            event.begin();
+        }
+
+        /**
+         * @param bytes The bytes transferred or processed.
+         * @return This span.
+         */
+        public Span bytes(long bytes) {
+            this.bytes = bytes;
+            return this;
+        }
+
+        /**
+         * @param version The version, once it is known.
+         * @return This span.
+         */
+        public Span version(String version) {
+            this.version = version;
+            return this;
+        }
+
+        public void success() {
+            end(Outcome.SUCCESS, null);
+        }
+
+        /**
+         * Ends the span with the outcome matching the exception.
+         *
+         * @param failure The cause.
+         */
+        public void failure(Throwable failure) {
+            boolean cancelled = failure instanceof InterruptedException || failure instanceof InterruptedIOException
+                    || failure instanceof CancellationException;
+            end(cancelled ? Outcome.CANCELLED : Outcome.FAILURE, failure);
+        }
+
+        /**
+         * Ends the span. Later calls are ignored.
+         *
+         * @param outcome How the phase ended.
+         * @param failure The cause of a failure, or null.
+         */
+        public void end(Outcome outcome, Throwable failure) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            Duration duration = Duration.ofNanos(System.nanoTime() - startedAt);
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase.name();
+                event.source = source;
+                event.version = version;
+                event.bytes = bytes;
+                event.outcome = outcome.name();
+                event.failure = failure != null ? failure.toString() : null;
+                event.commit();
+            }
+            if (LISTENERS.isEmpty()) {
+                return;
+            }
+            PhaseEvent phaseEvent = new PhaseEvent(phase, source, version, bytes, duration, outcome, failure);
+            for (UpdateListener listener : LISTENERS) {
+                try {
+                    listener.onPhase(phaseEvent);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Update listener {} failed: {}", listener, e.toString());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package de.in.updraft.metrics;
+
+/**
+ * How a phase ended.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public enum Outcome {
+    SUCCESS,
+    /** A check or metadata request that found no newer version. */
+    NO_UPDATE,
+    FAILURE,
+    /** Interrupted or cancelled. */
+    CANCELLED
+}
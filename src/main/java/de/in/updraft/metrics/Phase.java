@@ -0,0 +1,21 @@
+package de.in.updraft.metrics;
+
+/**
+ * The phases of an update that are measured.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public enum Phase {
+    /** A check for a newer version by the updater, across its source. */
+    CHECK,
+    /** One metadata request of an update source. */
+    METADATA,
+    /** Downloading and staging the update, including inline verification. */
+    DOWNLOAD,
+    /** The final checks of a downloaded artifact against size, hash and signature. */
+    VERIFY,
+    /** Backing up the installed version. */
+    BACKUP,
+    /** Installing the update or handing it to the launcher. */
+    APPLY
+}
@@ -0,0 +1,20 @@
+package de.in.updraft.metrics;
+
+import java.time.Duration;
+
+/**
+ * A finished phase of an update.
+ *
+ * @param phase    The phase.
+ * @param source   The update source or URL involved, or null.
+ * @param version  The version involved, or null if not known.
+ * @param bytes    The bytes transferred or processed, or -1 if not applicable.
+ * @param duration The wall-clock time of the phase.
+ * @param outcome  How the phase ended.
+ * @param failure  The cause of a failure, or null.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public record PhaseEvent(Phase phase, String source, String version, long bytes, Duration duration,
+        Outcome outcome, Throwable failure) {
+}
@@ -0,0 +1,21 @@
+package de.in.updraft.metrics;
+
+/**
+ * Receives the phases of every update as they finish, e.g. to feed a metrics
+ * system. Register implementations with
+ * {@link Instrumentation#addListener(UpdateListener)}, or list them in
+ * {@code META-INF/services/de.in.updraft.metrics.UpdateListener} to have them
+ * loaded automatically.
+ * <p>
+ * Callbacks run on the thread that ran the phase and must return quickly and
+ * must not throw.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public interface UpdateListener {
+
+    /**
+     * @param event The finished phase.
+     */
+    void onPhase(PhaseEvent event);
+}
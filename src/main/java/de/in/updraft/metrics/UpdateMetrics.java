@@ -0,0 +1,79 @@
+package de.in.updraft.metrics;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers per phase, for applications without a metrics library
+ * or as a source to export from. Register it with
+ * {@link Instrumentation#addListener(UpdateListener)}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class UpdateMetrics implements UpdateListener {
+
+    /**
+     * The figures of one phase.
+     *
+     * @param count     Number of finished phases.
+     * @param failures  Number of failed phases.
+     * @param cancelled Number of cancelled phases.
+     * @param total     Total time spent.
+     * @param max       Longest single phase.
+     * @param bytes     Total bytes reported.
+     */
+    public record Stats(long count, long failures, long cancelled, Duration total, Duration max, long bytes) {
+
+        /**
+         * @return The mean bytes per second over all phases, or 0.
+         */
+        public double bytesPerSecond() {
+            return total.isZero() ? 0 : bytes / (total.toNanos() / 1e9);
+        }
+    }
+
+    private final Map<Phase, Counters> counters = new EnumMap<>(Phase.class);
+
+    public UpdateMetrics() {
+        for (Phase phase : Phase.values()) {
+            counters.put(phase, new Counters());
+        }
+    }
+
+    @Override
+    public void onPhase(PhaseEvent event) {
+        Counters c = counters.get(event.phase());
+        c.count.increment();
+        if (event.outcome() == Outcome.FAILURE)
+            c.failures.increment();
+        if (event.outcome() == Outcome.CANCELLED)
+            c.cancelled.increment();
+        long nanos = event.duration().toNanos();
+        c.nanos.add(nanos);
+        c.maxNanos.accumulate(nanos);
+        if (event.bytes() > 0)
+            c.bytes.add(event.bytes());
+    }
+
+    /**
+     * @param phase The phase.
+     * @return The current figures of the phase.
+     */
+    public Stats stats(Phase phase) {
+        Counters c = counters.get(phase);
+        return new Stats(c.count.sum(), c.failures.sum(), c.cancelled.sum(), Duration.ofNanos(c.nanos.sum()),
+                Duration.ofNanos(c.maxNanos.get()), c.bytes.sum());
+    }
+
+    private static class Counters {
+        final LongAdder count = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder cancelled = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder bytes = new LongAdder();
+    }
+}
@@ -0,0 +1,43 @@
+package de.in.updraft.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for a phase of an update, so that slow rollouts can be
+ * correlated with the load of the host.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+@Name(UpdatePhaseEvent.NAME)
+@Label("Update Phase")
+@Category({ "SimpleUpDraft4J" })
+@Description("A phase of checking for, downloading or installing an update")
+@StackTrace(false)
+final class UpdatePhaseEvent extends Event {
+    static final String NAME = "de.in.updraft.UpdatePhase";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Source")
+    String source;
+
+    @Label("Version")
+    String version;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Failure")
+    String failure;
+}
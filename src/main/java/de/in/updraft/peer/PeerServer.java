@@ -0,0 +1,205 @@
+package de.in.updraft.peer;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.in.updraft.UpdateInfo;
+import de.in.updraft.util.JsonReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves verified update artifacts to other nodes of the same site, so that a
+ * release crosses the WAN roughly once per site.
+ * <p>
+ * After a node has downloaded and verified an artifact, it is published here
+ * together with the update metadata. Artifacts are addressed by their SHA-256
+ * under {@value #ARTIFACT_PATH}, and the metadata is served under
+ * {@value #METADATA_PATH} in the format read by
+ * {@link de.in.updraft.source.JsonMetadataSource}, with the origin URL as
+ * download location. Nodes that fetch from a peer always verify the artifact
+ * against the expected hash, and fall back to the origin if no peer has it.
+ * <p>
+ * Published files are kept in a directory, so a node continues serving the
+ * release after it has restarted into it. Only the latest release is kept.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class PeerServer implements AutoCloseable {
+    private static final Logger LOGGER = LogManager.getLogger(PeerServer.class);
+
+    public static final String ARTIFACT_PATH = "/updraft/artifacts/";
+    public static final String METADATA_PATH = "/updraft/update.json";
+    public static final int DEFAULT_UPLOADS = 4;
+
+    private static final String METADATA_FILE = "update.json";
+
+    private final Path directory;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public PeerServer(Path directory, InetSocketAddress address) throws IOException {
+        this(directory, address, DEFAULT_UPLOADS);
+    }
+
+    /**
+     * Starts serving the given directory.
+     *
+     * @param directory Where published artifacts are kept.
+     * @param address   The address to listen on.
+     * @param uploads   Maximum number of requests served at once.
+     * @throws IOException If the server cannot be started.
+     */
+    public PeerServer(Path directory, InetSocketAddress address, int uploads) throws IOException {
+        this.directory = directory.toAbsolutePath();
+        Files.createDirectories(this.directory);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, uploads), r -> {
+            Thread thread = new Thread(r, "updraft-peer-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(address, 0);
+        server.createContext("/updraft/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+        LOGGER.info("Serving update artifacts on port {}", server.getAddress().getPort());
+    }
+
+    /**
+     * @return The base URI under which other nodes reach this server on the
+     *         local host; replace the host for other nodes.
+     */
+    public URI uri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    /**
+     * @param peer The base URI of a peer.
+     * @return Where the peer serves the artifact with the given hash.
+     */
+    public static URI artifactUri(URI peer, String sha256) {
+        return peer.resolve(ARTIFACT_PATH + sha256.toLowerCase());
+    }
+
+    /**
+     * @param peer The base URI of a peer.
+     * @return Where the peer serves the metadata of its latest release.
+     */
+    public static String metadataUrl(URI peer) {
+        return peer.resolve(METADATA_PATH).toString();
+    }
+
+    /**
+     * Makes a verified artifact available to peers and replaces the previously
+     * published one.
+     *
+     * @param info     The update, which must carry the SHA-256 of the artifact.
+     * @param artifact The artifact, verified against that hash.
+     * @throws IOException If the files cannot be written.
+     */
+    public synchronized void publish(UpdateInfo info, Path artifact) throws IOException {
+        String sha256 = info.sha256();
+        if (sha256 == null || !isHash(sha256.toLowerCase())) {
+            throw new IllegalArgumentException("Only artifacts with a SHA-256 can be published");
+        }
+        sha256 = sha256.toLowerCase();
+        Path target = directory.resolve(sha256);
+        if (!Files.exists(target)) {
+            Path tmp = directory.resolve(sha256 + ".tmp");
+            Files.deleteIfExists(tmp);
+            try {
+                Files.createLink(tmp, artifact);
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(artifact, tmp);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        Path metadata = directory.resolve(METADATA_FILE + ".tmp");
+        Files.writeString(metadata, toJson(info), StandardCharsets.UTF_8);
+        Files.move(metadata, directory.resolve(METADATA_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (isHash(name) && !name.equals(sha256)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        LOGGER.info("Publishing update {} to peers", info.version());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            Path file = null;
+            if (path.equals(METADATA_PATH)) {
+                file = directory.resolve(METADATA_FILE);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+            } else if (path.startsWith(ARTIFACT_PATH) && isHash(path.substring(ARTIFACT_PATH.length()))) {
+                file = directory.resolve(path.substring(ARTIFACT_PATH.length()));
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+            }
+            if (file == null || !Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            long size = Files.size(file);
+            if (method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(size));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+            try (OutputStream out = exchange.getResponseBody()) {
+                Files.copy(file, out);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Serving {} failed: {}", exchange.getRequestURI(), e.getMessage());
+        }
+    }
+
+    private static boolean isHash(String name) {
+        return name.length() == 64 && name.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'));
+    }
+
+    static String toJson(UpdateInfo info) {
+        StringBuilder sb = new StringBuilder("{\n");
+        sb.append("  \"version\": ").append(JsonReader.quote(info.version())).append(",\n");
+        sb.append("  \"url\": ").append(JsonReader.quote(info.downloadUrl())).append(",\n");
+        sb.append("  \"changelog\": ").append(JsonReader.quote(info.changelog())).append(",\n");
+        if (info.signatureUrl() != null) {
+            sb.append("  \"signature\": ").append(JsonReader.quote(info.signatureUrl())).append(",\n");
+        }
+        if (info.size() >= 0) {
+            sb.append("  \"size\": ").append(info.size()).append(",\n");
+        }
+        sb.append("  \"sha256\": ").append(JsonReader.quote(info.sha256().toLowerCase())).append("\n}\n");
+        return sb.toString();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,213 @@
+package de.in.updraft.source;
+
+import de.in.updraft.UpdateInfo;
+import de.in.updraft.UpdateSource;
+import de.in.updraft.util.Tasks;
+import de.in.updraft.util.Version;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Asks several sources that publish the same releases and returns the highest
+ * version any of them reports.
+ * <p>
+ * By default all sources are queried at once. With a hedge delay, the next
+ * source is only queried if the previous ones have not answered within that
+ * delay, or as soon as one of them fails. Once the first valid answer arrives,
+ * the sources still running get a short grace period to report a higher
+ * version; after that they are cancelled.
+ * <p>
+ * The latency of every source is tracked. Sources that have not answered yet
+ * are tried first, in their configured order, so that each gets measured;
+ * after that, sources are tried fastest first.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class CompositeUpdateSource implements UpdateSource {
+    private static final Logger LOGGER = LogManager.getLogger(CompositeUpdateSource.class);
+    /** Weight of the newest sample in the latency average. */
+    private static final double SMOOTHING = 0.3;
+
+    private final List<UpdateSource> sources;
+    /** Smoothed latency per source in nanoseconds, 0 if not measured yet. */
+    private final AtomicLongArray latencies;
+    private Duration hedgeDelay = Duration.ZERO;
+    private Duration gracePeriod = Duration.ofMillis(250);
+    private Executor executor = Tasks.defaultExecutor();
+
+    public CompositeUpdateSource(UpdateSource... sources) {
+        this(List.of(sources));
+    }
+
+    /**
+     * @param sources The sources, in the order they are tried until their
+     *                latencies are known.
+     */
+    public CompositeUpdateSource(List<UpdateSource> sources) {
+        if (sources.isEmpty())
+            throw new IllegalArgumentException("At least one source is required");
+        this.sources = List.copyOf(sources);
+        this.latencies = new AtomicLongArray(sources.size());
+    }
+
+    /**
+     * @param hedgeDelay Time to wait for a source before also asking the next
+     *                   one; zero queries all sources at once.
+     */
+    public void setHedgeDelay(Duration hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
+    /**
+     * @param gracePeriod Time the remaining sources get to report a higher
+     *                    version after the first valid answer.
+     */
+    public void setGracePeriod(Duration gracePeriod) {
+        this.gracePeriod = gracePeriod;
+    }
+
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return The smoothed latency of the source, or null if it has not
+     *         answered yet.
+     */
+    public Duration latencyOf(UpdateSource source) {
+        int index = sources.indexOf(source);
+        if (index < 0 || latencies.get(index) == 0) {
+            return null;
+        }
+        return Duration.ofNanos(latencies.get(index));
+    }
+
+    @Override
+    public UpdateInfo fetchUpdate() throws IOException, InterruptedException {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < sources.size(); i++) {
+            order.add(i);
+        }
+        // Unmeasured sources have latency 0 and come first; the stable sort
+        // keeps them in their configured order.
+        order.sort(Comparator.comparingLong(latencies::get));
+
+        BlockingQueue<Answer> answers = new LinkedBlockingQueue<>();
+        List<CompletableFuture<UpdateInfo>> running = new ArrayList<>();
+        long[] startedAt = new long[sources.size()];
+        boolean hedged = !hedgeDelay.isZero() && !hedgeDelay.isNegative();
+
+        UpdateInfo best = null;
+        Version bestVersion = null;
+        boolean answeredEmpty = false;
+        IOException failure = null;
+        int launched = 0;
+        int pending = 0;
+        long nextLaunch = System.nanoTime();
+        long settleBy = Long.MAX_VALUE;
+
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                boolean mayLaunch = launched < order.size() && best == null;
+                if (mayLaunch && (!hedged || now - nextLaunch >= 0)) {
+                    int index = order.get(launched++);
+                    startedAt[index] = now;
+                    running.add(launch(index, answers));
+                    pending++;
+                    nextLaunch = now + hedgeDelay.toNanos();
+                    continue;
+                }
+                if (pending == 0 || (best != null && now - settleBy >= 0)) {
+                    break;
+                }
+
+                long wait = Long.MAX_VALUE;
+                if (mayLaunch)
+                    wait = nextLaunch - now;
+                if (best != null)
+                    wait = Math.min(wait, settleBy - now);
+                Answer answer = answers.poll(Math.max(0, wait), TimeUnit.NANOSECONDS);
+                if (answer == null) {
+                    continue;
+                }
+                pending--;
+                long elapsed = System.nanoTime() - startedAt[answer.index];
+
+                if (answer.error != null) {
+                    // Push a failing source back without forgetting its history.
+                    record(answer.index, Math.max(elapsed, 2 * latencies.get(answer.index)));
+                    LOGGER.warn("Update source {} failed: {}", sources.get(answer.index), answer.error.toString());
+                    if (failure == null) {
+                        failure = new IOException("All update sources failed", answer.error);
+                    } else {
+                        failure.addSuppressed(answer.error);
+                    }
+                    nextLaunch = System.nanoTime(); // fail over right away
+                    continue;
+                }
+
+                record(answer.index, elapsed);
+                UpdateInfo info = answer.info;
+                if (info == null || info.version() == null) {
+                    answeredEmpty = true;
+                    continue;
+                }
+                Version version = new Version(info.version());
+                if (best == null) {
+                    settleBy = System.nanoTime() + gracePeriod.toNanos();
+                }
+                if (bestVersion == null || version.compareTo(bestVersion) > 0) {
+                    best = info;
+                    bestVersion = version;
+                }
+            }
+        } finally {
+            long now = System.nanoTime();
+            for (int i = 0; i < running.size(); i++) {
+                int index = order.get(i);
+                if (running.get(i).cancel(true)) {
+                    // A cancelled source took at least this long.
+                    record(index, Math.max(now - startedAt[index], latencies.get(index)));
+                }
+            }
+        }
+
+        if (best != null || answeredEmpty) {
+            return best;
+        }
+        throw failure;
+    }
+
+    private CompletableFuture<UpdateInfo> launch(int index, BlockingQueue<Answer> answers) {
+        UpdateSource source = sources.get(index);
+        CompletableFuture<UpdateInfo> future = Tasks.run(new CompletableFuture<>(), source::fetchUpdate, executor);
+        future.whenComplete((info, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause()
+                    : error;
+            answers.add(new Answer(index, info, cause));
+        });
+        return future;
+    }
+
+    private void record(int index, long nanos) {
+        long sample = Math.max(1, nanos);
+        latencies.getAndUpdate(index, old -> old == 0 ? sample : (long) (old + SMOOTHING * (sample - old)));
+    }
+
+    private record Answer(int index, UpdateInfo info, Throwable error) {
+    }
+}
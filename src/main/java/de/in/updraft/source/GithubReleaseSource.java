@@ -1,19 +1,55 @@
 package de.in.updraft.source;
 
+import de.in.updraft.DeltaPatch;
 import de.in.updraft.UpdateChannel;
 import de.in.updraft.UpdateInfo;
 import de.in.updraft.UpdateSource;
+import de.in.updraft.metrics.Instrumentation;
+import de.in.updraft.metrics.Outcome;
+import de.in.updraft.metrics.Phase;
+import de.in.updraft.transport.HttpTransport;
+import de.in.updraft.transport.Transport;
+import de.in.updraft.util.JsonReader;
+import de.in.updraft.util.Version;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.StringReader;
 import java.net.URI;
-import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Fetches update information from GitHub Releases.
+ * <p>
+ * Binary patches are picked up from assets named
+ * {@code <artifact>.from-<version>.patch}, e.g.
+ * {@code app.tar.gz.from-1.2.0.patch}. They are only used if GitHub reports a
+ * SHA-256 digest for the artifact, which is needed to verify the result. A
+ * patch to an archive applies to the archive of the installed version, which
+ * the runner keeps after extracting it. An
+ * asset named {@code manifest.json} enables file-level updates of archive
+ * distributions; {@code manifest.json.sig} holds its signature. The artifact is verified against the size and digest GitHub
+ * reports, and against a detached signature in an asset named
+ * {@code <artifact>.sig} if there is one.
+ * <p>
+ * The {@link UpdateChannel#NIGHTLY} channel reads the release list page by page
+ * and picks the highest version that has an artifact for this platform,
+ * skipping drafts. Since GitHub lists the newest releases first, paging stops
+ * as soon as a page brings nothing newer than the best release so far. This
+ * is a heuristic: if a full page of backports to older lines was published
+ * after the highest release, that release is on a later page and is missed.
+ * {@link #setMaxPages(int)} bounds the number of pages read in any case.
+ * Later pages are only read together with a live first page: a result the
+ * metadata cache serves, e.g. during a rate-limit back-off, causes no
+ * requests. A first page persisted by an earlier process is read alone, as
+ * its {@code Link} header was not kept, until it changes on the server.
  * 
  * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
  */
@@ -21,120 +57,365 @@ public class GithubReleaseSource implements UpdateSource {
     private final String repoOwner;
     private final String repoName;
     private final UpdateChannel channel;
-    private final HttpClient httpClient;
+    private static final int PER_PAGE = 100;
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"?next\"?");
+
+    private final Transport transport;
+    private MetadataCache cache = new MetadataCache();
+    private int maxPages = 10;
 
     public GithubReleaseSource(String repoOwner, String repoName, UpdateChannel channel) {
+        this(repoOwner, repoName, channel, HttpTransport.shared());
+    }
+
+    /**
+     * @param transport Transport used for the API requests; share it with the
+     *                  {@link de.in.updraft.UpdateRunner} to reuse connections.
+     */
+    public GithubReleaseSource(String repoOwner, String repoName, UpdateChannel channel, Transport transport) {
         this.repoOwner = repoOwner;
         this.repoName = repoName;
         this.channel = channel;
-        this.httpClient = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
+        this.transport = transport;
     }
 
     private static final java.util.logging.Logger LOGGER = java.util.logging.Logger
             .getLogger(GithubReleaseSource.class.getName());
 
+    /**
+     * Replaces the default in-memory cache, e.g. with one persisted to disk so
+     * that restarts do not count against the API rate limit.
+     *
+     * @param cache The metadata cache.
+     */
+    public void setMetadataCache(MetadataCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * @param maxPages The number of release list pages the nightly channel
+     *                 reads at most.
+     */
+    public void setMaxPages(int maxPages) {
+        this.maxPages = maxPages;
+    }
+
     @Override
     public UpdateInfo fetchUpdate() throws IOException, InterruptedException {
         String url = channel == UpdateChannel.STABLE
                 ? String.format("https://api.github.com/repos/%s/%s/releases/latest", repoOwner, repoName)
-                : String.format("https://api.github.com/repos/%s/%s/releases", repoOwner, repoName);
+                : String.format("https://api.github.com/repos/%s/%s/releases?per_page=%d", repoOwner, repoName,
+                        PER_PAGE);
 
         LOGGER.info("Fetching update from: " + url + " (Channel: " + channel + ")");
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Accept", "application/vnd.github.v3+json")
-                .GET()
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() == 404) {
-            LOGGER.warning("No releases found (404) at " + url);
-            return null; // No releases found
-        }
-        if (response.statusCode() != 200) {
-            LOGGER.severe("GitHub API returned status " + response.statusCode());
-            throw new IOException("GitHub API returned status " + response.statusCode());
-        }
-
-        String json = response.body();
+        Instrumentation.Span span = Instrumentation.start(Phase.METADATA, url, null);
         UpdateInfo info;
-        if (channel == UpdateChannel.STABLE) {
-            info = parseOne(json);
-        } else {
-            // Take the first one from the list (array starts with [)
-            info = parseFirst(json);
+        try {
+            info = fetch(url);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            span.failure(e);
+            throw e;
         }
 
         if (info != null) {
+            span.version(info.version()).success();
             LOGGER.info("Found version: " + info.version());
         } else {
+            span.end(Outcome.NO_UPDATE, null);
             LOGGER.info("No version found in response.");
         }
         return info;
     }
 
-    private UpdateInfo parseFirst(String jsonArray) throws IOException {
-        // Very lazy array parsing: find the first object {}
-        // Since we only need the first release, we can treat the whole array as
-        // containing at least one object.
-        // We look for the first occurrence of "tag_name", "body",
-        // "browser_download_url"
-        return parseOne(jsonArray);
+    private UpdateInfo fetch(String url) throws IOException, InterruptedException {
+        return cache.fetch(transport, request(url), new MetadataCache.ResponseParser() {
+            @Override
+            public UpdateInfo parse(int status, InputStream body) throws IOException {
+                return parse(status, null, body);
+            }
+
+            @Override
+            public UpdateInfo parse(int status, HttpHeaders headers, InputStream body) throws IOException {
+                if (status == 404) {
+                    LOGGER.warning("No releases found (404) at " + url);
+                    return null; // No releases found
+                }
+                if (status != 200) {
+                    LOGGER.severe("GitHub API returned status " + status);
+                    throw new IOException("GitHub API returned status " + status);
+                }
+                if (channel == UpdateChannel.STABLE) {
+                    return GithubReleaseSource.this.parse(body);
+                }
+                if (headers == null) {
+                    // Persisted by an earlier process; see the class comment.
+                    return GithubReleaseSource.this.parse(body);
+                }
+                return parsePages(headers, body);
+            }
+        });
     }
 
-    protected UpdateInfo parseOne(String json) throws IOException {
-        String version = extractValue(json, "tag_name");
-        String body = extractValue(json, "body");
-        String downloadUrl = extractDownloadUrl(json);
+    private HttpRequest.Builder request(String url) {
+        return transport.newRequest(URI.create(url))
+                .header("Accept", "application/vnd.github.v3+json")
+                .GET();
+    }
 
-        if (version == null || downloadUrl == null) {
-            throw new IOException("Failed to parse GitHub release info");
+    /**
+     * Parses a single release, or picks the best release of one list page.
+     */
+    UpdateInfo parse(InputStream body) throws IOException {
+        JsonReader reader = new JsonReader(body);
+        if (channel == UpdateChannel.STABLE) {
+            return toUpdateInfo(readRelease(reader, true));
         }
+        Selection selection = new Selection();
+        readPage(reader, selection);
+        return selection.info;
+    }
 
-        return new UpdateInfo(version, downloadUrl, body != null ? body : "");
+    /**
+     * Picks the best release from the first page and the pages it links to.
+     *
+     * @param headers The live headers of the first page.
+     */
+    private UpdateInfo parsePages(HttpHeaders headers, InputStream body) throws IOException {
+        Selection selection = new Selection();
+        readPage(new JsonReader(body), selection);
+        String next = nextLink(headers);
+        for (int page = 2; next != null && page <= maxPages; page++) {
+            HttpResponse<InputStream> response;
+            try {
+                response = transport.send(request(next).build(), HttpResponse.BodyHandlers.ofInputStream());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while reading releases");
+            }
+            try (InputStream in = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new IOException("GitHub API returned status " + response.statusCode() + " for " + next);
+                }
+                if (!readPage(new JsonReader(in), selection) && selection.info != null) {
+                    // Older releases will hardly carry a higher version.
+                    LOGGER.fine("Stopping at release page " + page);
+                    break;
+                }
+                next = nextLink(response.headers());
+            }
+        }
+        return selection.info;
     }
 
-    protected String extractValue(String json, String key) {
-        // Regex to find "key": "value"
-        Pattern pattern = Pattern.compile("\"" + key + "\"\\s*:\\s*\"([^\"]+)\"");
-        Matcher matcher = pattern.matcher(json);
-        if (matcher.find()) {
-            return matcher.group(1).replace("\\r\\n", "\n").replace("\\n", "\n");
+    static String nextLink(HttpHeaders headers) {
+        for (String link : headers.allValues("Link")) {
+            Matcher matcher = NEXT_LINK.matcher(link);
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
         }
         return null;
     }
 
-    protected String extractDownloadUrl(String json) {
-        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
-        // Look for browser_download_url in assets
-        // We look for tar.gz on Linux/Mac and .7z/.zip on Windows
-        String regex;
-        if (isWindows) {
-            // Prioritize zip as it's the standard now
-            regex = "\"browser_download_url\"\\s*:\\s*\"([^\"]+\\.zip)\"";
-        } else {
-            regex = "\"browser_download_url\"\\s*:\\s*\"([^\"]+\\.tar\\.gz)\"";
+    /** The best release seen so far. */
+    private static class Selection {
+        Version version;
+        UpdateInfo info;
+    }
+
+    /**
+     * Reads a page of the release list one release at a time.
+     *
+     * @return true if the page contained a better release than the selection.
+     */
+    private boolean readPage(JsonReader reader, Selection selection) throws IOException {
+        boolean improved = false;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            Release release = readRelease(reader, false);
+            if (release.draft() || release.tagName() == null
+                    || (release.prerelease() && channel == UpdateChannel.STABLE)) {
+                continue;
+            }
+            Version version = new Version(release.tagName());
+            if (selection.version != null && !version.isNewerThan(selection.version)) {
+                continue;
+            }
+            if (selectArtifact(release.assets()) == null) {
+                continue; // nothing for this platform
+            }
+            selection.version = version;
+            selection.info = toUpdateInfo(release);
+            improved = true;
+        }
+        reader.endArray();
+        return improved;
+    }
+
+    protected UpdateInfo parseOne(String json) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            return toUpdateInfo(readRelease(reader, false));
+        }
+    }
+
+    /**
+     * A release as returned by the GitHub API, reduced to the fields we use.
+     */
+    record Release(String tagName, String body, boolean draft, boolean prerelease, List<Asset> assets) {
+    }
+
+    /**
+     * A release asset. The digest is the hex SHA-256 if GitHub reports one, the
+     * size is -1 if unknown.
+     */
+    record Asset(String name, String url, String digest, long size) {
+    }
+
+    /**
+     * Reads one release object.
+     *
+     * @param stopEarly Return as soon as all fields are known, leaving the rest
+     *                  of the object unread. Only allowed if the caller reads
+     *                  nothing after this release.
+     */
+    static Release readRelease(JsonReader reader, boolean stopEarly) throws IOException {
+        String tagName = null;
+        String body = null;
+        Boolean draft = null;
+        Boolean prerelease = null;
+        List<Asset> assets = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+            case "tag_name":
+                tagName = reader.nextStringOrNull();
+                break;
+            case "body":
+                body = reader.nextStringOrNull();
+                break;
+            case "draft":
+                draft = reader.nextBoolean();
+                break;
+            case "prerelease":
+                prerelease = reader.nextBoolean();
+                break;
+            case "assets":
+                assets = readAssets(reader);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+            if (stopEarly && tagName != null && body != null && draft != null && prerelease != null
+                    && assets != null) {
+                break;
+            }
+        }
+        if (!stopEarly || !reader.hasNext()) {
+            reader.endObject();
+        }
+        return new Release(tagName, body, Boolean.TRUE.equals(draft), Boolean.TRUE.equals(prerelease),
+                assets != null ? assets : List.of());
+    }
+
+    private static List<Asset> readAssets(JsonReader reader) throws IOException {
+        List<Asset> assets = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String name = null;
+            String url = null;
+            String digest = null;
+            long size = -1;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                case "name":
+                    name = reader.nextStringOrNull();
+                    break;
+                case "browser_download_url":
+                    url = reader.nextStringOrNull();
+                    break;
+                case "digest":
+                    digest = reader.nextStringOrNull();
+                    break;
+                case "size":
+                    size = reader.nextLong();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+                }
+            }
+            reader.endObject();
+            if (url != null) {
+                if (name == null) {
+                    name = url.substring(url.lastIndexOf('/') + 1);
+                }
+                if (digest != null && digest.startsWith("sha256:")) {
+                    digest = digest.substring("sha256:".length());
+                } else {
+                    digest = null;
+                }
+                assets.add(new Asset(name, url, digest, size));
+            }
+        }
+        reader.endArray();
+        return assets;
+    }
+
+    protected UpdateInfo toUpdateInfo(Release release) throws IOException {
+        Asset artifact = selectArtifact(release.assets());
+        if (release.tagName() == null || artifact == null) {
+            throw new IOException("Failed to parse GitHub release info");
         }
 
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(json);
-        if (matcher.find()) {
-            return matcher.group(1);
+        List<DeltaPatch> patches = new ArrayList<>();
+        String manifestUrl = null;
+        String manifestSignatureUrl = null;
+        String signatureUrl = null;
+        String patchPrefix = artifact.name() + ".from-";
+        for (Asset asset : release.assets()) {
+            if (asset.name().equals("manifest.json")) {
+                manifestUrl = asset.url();
+            } else if (asset.name().equals("manifest.json.sig")) {
+                manifestSignatureUrl = asset.url();
+            } else if (asset.name().equals(artifact.name() + ".sig")) {
+                signatureUrl = asset.url();
+            } else if (artifact.digest() != null && asset.name().startsWith(patchPrefix)
+                    && asset.name().endsWith(".patch")) {
+                String from = asset.name().substring(patchPrefix.length(), asset.name().length() - ".patch".length());
+                patches.add(new DeltaPatch(from, asset.url(), artifact.digest()));
+            }
         }
+        return new UpdateInfo(release.tagName(), artifact.url(), release.body() != null ? release.body() : "",
+                patches, manifestUrl, artifact.digest(), artifact.size(), signatureUrl, List.of(),
+                manifestSignatureUrl);
+    }
 
-        // Fallback: if preferred format not found, look for any archive
+    /**
+     * Picks the platform archive: zip on Windows (tar.gz as fallback), tar.gz
+     * everywhere else.
+     */
+    protected Asset selectArtifact(List<Asset> assets) {
+        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
         if (isWindows) {
-            regex = "\"browser_download_url\"\\s*:\\s*\"([^\"]+\\.tar\\.gz)\"";
-            pattern = Pattern.compile(regex);
-            matcher = pattern.matcher(json);
-            if (matcher.find()) {
-                return matcher.group(1);
+            // Prioritize zip as it's the standard now
+            Asset zip = findBySuffix(assets, ".zip");
+            if (zip != null) {
+                return zip;
             }
         }
+        return findBySuffix(assets, ".tar.gz");
+    }
 
+    private static Asset findBySuffix(List<Asset> assets, String suffix) {
+        for (Asset asset : assets) {
+            if (asset.url().endsWith(suffix)) {
+                return asset;
+            }
+        }
         return null;
     }
 }
@@ -1,63 +1,231 @@
 package de.in.updraft.source;
 
+import de.in.updraft.Artifact;
+import de.in.updraft.DeltaPatch;
 import de.in.updraft.UpdateInfo;
 import de.in.updraft.UpdateSource;
+import de.in.updraft.metrics.Instrumentation;
+import de.in.updraft.metrics.Outcome;
+import de.in.updraft.metrics.Phase;
+import de.in.updraft.transport.HttpTransport;
+import de.in.updraft.transport.Transport;
+import de.in.updraft.util.JsonReader;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Fetches update information from a static JSON file.
  * Expects: { "version": "...", "url": "...", "changelog": "..." }
+ * and optionally "patches": [{ "from": "...", "url": "...", "sha256": "..." }]
+ * where sha256 is the hash of the artifact rebuilt by the patch,
+ * "manifest": "..." pointing to a file manifest for archive distributions
+ * (with "manifestSignature" for a detached signature of it), and
+ * "sha256", "size" and "signature" (URL of a detached signature) to verify the
+ * artifact. A release of several artifacts lists them in "artifacts":
+ * [{ "path": "...", "url": "...", "sha256": "...", "size": ..., "signature": "..." }]
+ * where path is relative to the install directory; "url" may then be omitted.
  * 
  * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
  */
 public class JsonMetadataSource implements UpdateSource {
     private final String metadataUrl;
-    private final HttpClient httpClient;
+    private final Transport transport;
+    private MetadataCache cache = new MetadataCache();
 
     public JsonMetadataSource(String metadataUrl) {
+        this(metadataUrl, HttpTransport.shared());
+    }
+
+    /**
+     * @param metadataUrl The location of the JSON file.
+     * @param transport   Transport used for the requests.
+     */
+    public JsonMetadataSource(String metadataUrl, Transport transport) {
         this.metadataUrl = metadataUrl;
-        this.httpClient = HttpClient.newBuilder()
-                .followRedirects(HttpClient.Redirect.NORMAL)
-                .build();
+        this.transport = transport;
+    }
+
+    /**
+     * Replaces the default in-memory cache, e.g. with one persisted to disk.
+     *
+     * @param cache The metadata cache.
+     */
+    public void setMetadataCache(MetadataCache cache) {
+        this.cache = cache;
     }
 
     @Override
     public UpdateInfo fetchUpdate() throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(metadataUrl))
-                .GET()
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 200) {
-            throw new IOException("Metadata URL returned status " + response.statusCode());
+        Instrumentation.Span span = Instrumentation.start(Phase.METADATA, metadataUrl, null);
+        try {
+            UpdateInfo info = fetch();
+            if (info != null) {
+                span.version(info.version()).success();
+            } else {
+                span.end(Outcome.NO_UPDATE, null);
+            }
+            return info;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            span.failure(e);
+            throw e;
         }
+    }
+
+    private UpdateInfo fetch() throws IOException, InterruptedException {
+        HttpRequest.Builder request = transport.newRequest(URI.create(metadataUrl))
+                .GET();
+
+        return cache.fetch(transport, request, (status, body) -> {
+            if (status != 200) {
+                throw new IOException("Metadata URL returned status " + status);
+            }
+            return parse(new InputStreamReader(body, StandardCharsets.UTF_8));
+        });
+    }
+
+    UpdateInfo parse(Reader in) throws IOException {
+        String version = null;
+        String downloadUrl = null;
+        String changelog = null;
+        String manifest = null;
+        String manifestSignature = null;
+        String sha256 = null;
+        long size = -1;
+        String signature = null;
+        List<DeltaPatch> patches = List.of();
+        List<Artifact> artifacts = List.of();
 
-        String json = response.body();
-        String version = extractValue(json, "version");
-        String downloadUrl = extractValue(json, "url");
-        String changelog = extractValue(json, "changelog");
+        JsonReader reader = new JsonReader(in);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+            case "version":
+                version = reader.nextStringOrNull();
+                break;
+            case "url":
+                downloadUrl = reader.nextStringOrNull();
+                break;
+            case "changelog":
+                changelog = reader.nextStringOrNull();
+                break;
+            case "manifest":
+                manifest = reader.nextStringOrNull();
+                break;
+            case "manifestSignature":
+                manifestSignature = reader.nextStringOrNull();
+                break;
+            case "sha256":
+                sha256 = reader.nextStringOrNull();
+                break;
+            case "size":
+                size = reader.nextLong();
+                break;
+            case "signature":
+                signature = reader.nextStringOrNull();
+                break;
+            case "patches":
+                patches = readPatches(reader);
+                break;
+            case "artifacts":
+                artifacts = readArtifacts(reader);
+                break;
+            default:
+                reader.skipValue();
+                break;
+            }
+        }
+        reader.endObject();
 
+        if (downloadUrl == null && !artifacts.isEmpty()) {
+            downloadUrl = artifacts.get(0).url();
+        }
         if (version == null || downloadUrl == null) {
             throw new IOException("Failed to parse metadata JSON");
         }
 
-        return new UpdateInfo(version, downloadUrl, changelog != null ? changelog : "");
+        return new UpdateInfo(version, downloadUrl, changelog != null ? changelog : "", patches, manifest, sha256,
+                size, signature, artifacts, manifestSignature);
+    }
+
+    private static List<Artifact> readArtifacts(JsonReader reader) throws IOException {
+        List<Artifact> artifacts = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String path = null;
+            String url = null;
+            String sha256 = null;
+            long size = -1;
+            String signature = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                case "path":
+                    path = reader.nextStringOrNull();
+                    break;
+                case "url":
+                    url = reader.nextStringOrNull();
+                    break;
+                case "sha256":
+                    sha256 = reader.nextStringOrNull();
+                    break;
+                case "size":
+                    size = reader.nextLong();
+                    break;
+                case "signature":
+                    signature = reader.nextStringOrNull();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+                }
+            }
+            reader.endObject();
+            if (path == null || url == null) {
+                throw new IOException("Artifact without path or url in metadata JSON");
+            }
+            artifacts.add(new Artifact(path, url, sha256, size, signature));
+        }
+        reader.endArray();
+        return artifacts;
     }
 
-    protected String extractValue(String json, String key) {
-        Pattern pattern = Pattern.compile("\"" + key + "\"\\s*:\\s*\"([^\"]+)\"");
-        Matcher matcher = pattern.matcher(json);
-        if (matcher.find()) {
-            return matcher.group(1).replace("\\r\\n", "\n").replace("\\n", "\n");
+    private static List<DeltaPatch> readPatches(JsonReader reader) throws IOException {
+        List<DeltaPatch> patches = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String from = null;
+            String url = null;
+            String sha256 = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                case "from":
+                    from = reader.nextStringOrNull();
+                    break;
+                case "url":
+                    url = reader.nextStringOrNull();
+                    break;
+                case "sha256":
+                    sha256 = reader.nextStringOrNull();
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+                }
+            }
+            reader.endObject();
+            if (from != null && url != null) {
+                patches.add(new DeltaPatch(from, url, sha256));
+            }
         }
-        return null;
+        reader.endArray();
+        return patches;
     }
 }
@@ -0,0 +1,325 @@
+package de.in.updraft.source;
+
+import de.in.updraft.UpdateInfo;
+import de.in.updraft.transport.Transport;
+import de.in.updraft.util.Checksums;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Caches update metadata per URL so that repeated checks cost as little as
+ * possible.
+ * <p>
+ * Responses are revalidated with {@code If-None-Match} and
+ * {@code If-Modified-Since}; a {@code 304 Not Modified} answer serves the cached
+ * {@link UpdateInfo}. Within the {@code Cache-Control: max-age} of a response
+ * no request is sent at all. When the server signals a rate limit
+ * ({@code X-RateLimit-Remaining: 0} or {@code Retry-After}), requests are
+ * suspended until the limit resets and the cached result is served instead;
+ * without one, the check fails with an {@link IOException} that names the reset
+ * time.
+ * <p>
+ * Concurrent checks of the same URL wait for the first one instead of sending
+ * their own requests. They wait on a {@link ReentrantLock}, which does not pin
+ * virtual threads during the request.
+ * <p>
+ * Entries live in memory and, if a directory is given, are also persisted so
+ * that they survive a restart.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class MetadataCache {
+    private static final Logger LOGGER = LogManager.getLogger(MetadataCache.class);
+    private static final Pattern MAX_AGE = Pattern.compile("max-age\\s*=\\s*(\\d+)");
+
+    private final Path directory;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cache that only lives in memory.
+     */
+    public MetadataCache() {
+        this(null);
+    }
+
+    /**
+     * @param directory Directory to persist entries in, or null for memory only.
+     */
+    public MetadataCache(Path directory) {
+        this(directory, Clock.systemUTC());
+    }
+
+    MetadataCache(Path directory, Clock clock) {
+        this.directory = directory;
+        this.clock = clock;
+    }
+
+    /**
+     * Turns a response into update information.
+     */
+    @FunctionalInterface
+    public interface ResponseParser {
+        /**
+         * @param statusCode The HTTP status; never 304.
+         * @param body       The response body. The parser may stop reading
+         *                   early; the stream is closed by the cache.
+         * @return The update info, or null if there is none.
+         * @throws IOException If the response is an error or cannot be parsed.
+         */
+        UpdateInfo parse(int statusCode, InputStream body) throws IOException;
+
+        /**
+         * Like {@link #parse(int, InputStream)}, for parsers that also need the
+         * response headers, e.g. to follow pagination links. A body persisted
+         * by an earlier process is parsed with {@code headers} null, as its
+         * headers were not kept.
+         */
+        default UpdateInfo parse(int statusCode, HttpHeaders headers, InputStream body) throws IOException {
+            return parse(statusCode, body);
+        }
+    }
+
+    /**
+     * Sends the request unless a fresh cached result exists, revalidating the
+     * cached result if there is one.
+     *
+     * @param transport The transport to send with.
+     * @param request   The request, without conditional headers.
+     * @param parser    Parser for responses that carry a body.
+     * @return The update info, possibly from the cache.
+     * @throws IOException          If the request or parsing fails, or if a rate
+     *                              limit is active and nothing is cached.
+     * @throws InterruptedException If interrupted.
+     */
+    public UpdateInfo fetch(Transport transport, HttpRequest.Builder request, ResponseParser parser)
+            throws IOException, InterruptedException {
+        HttpRequest probe = request.build();
+        String key = probe.uri().toString();
+        Entry entry = entries.computeIfAbsent(key, this::load);
+
+        entry.lock.lockInterruptibly();
+        try {
+            long now = clock.millis();
+            if (entry.blockedUntil > now) {
+                LOGGER.info("Rate limited until {}, serving cached metadata for {}",
+                        Instant.ofEpochMilli(entry.blockedUntil), key);
+                return cachedWhileLimited(key, entry, parser);
+            }
+            if (entry.cached && entry.expiresAt > now) {
+                return info(key, entry, parser);
+            }
+            if (entry.cached) {
+                if (entry.etag != null)
+                    request.setHeader("If-None-Match", entry.etag);
+                if (entry.lastModified != null)
+                    request.setHeader("If-Modified-Since", entry.lastModified);
+            }
+
+            HttpResponse<InputStream> response = transport.send(request.build(),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                HttpHeaders headers = response.headers();
+                now = clock.millis();
+                long blockedUntil = rateLimitedUntil(response.statusCode(), headers, now);
+
+                if (response.statusCode() == 304 && entry.cached) {
+                    entry.expiresAt = now + maxAge(headers);
+                    entry.blockedUntil = blockedUntil;
+                    save(key, entry);
+                    return info(key, entry, parser);
+                }
+                if ((response.statusCode() == 403 || response.statusCode() == 429) && blockedUntil > now) {
+                    LOGGER.warn("Metadata request to {} was rate limited, backing off for {} s", key,
+                            (blockedUntil - now) / 1000);
+                    entry.blockedUntil = blockedUntil;
+                    save(key, entry);
+                    return cachedWhileLimited(key, entry, parser);
+                }
+                if (response.statusCode() != 200) {
+                    return parser.parse(response.statusCode(), headers, body);
+                }
+
+                UpdateInfo info;
+                if (directory != null) {
+                    // Keep the body for revalidation after a restart; parse it
+                    // from disk so that memory use stays flat.
+                    Files.createDirectories(directory);
+                    Path tmp = Files.createTempFile(directory, "body", ".tmp");
+                    try {
+                        Files.copy(body, tmp, StandardCopyOption.REPLACE_EXISTING);
+                        try (InputStream in = Files.newInputStream(tmp)) {
+                            info = parser.parse(200, headers, in);
+                        }
+                        Files.move(tmp, file(key, ".body"), StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        Files.deleteIfExists(tmp);
+                    }
+                } else {
+                    info = parser.parse(200, headers, body);
+                }
+                entry.cached = true;
+                entry.info = info;
+                entry.etag = headers.firstValue("ETag").orElse(null);
+                entry.lastModified = headers.firstValue("Last-Modified").orElse(null);
+                entry.expiresAt = now + maxAge(headers);
+                entry.blockedUntil = blockedUntil;
+                save(key, entry);
+                return info;
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    /**
+     * @throws IOException If there is no cached result to fall back on.
+     */
+    private UpdateInfo cachedWhileLimited(String key, Entry entry, ResponseParser parser) throws IOException {
+        if (!entry.cached) {
+            throw new IOException("Rate limit for " + key + " is active until "
+                    + Instant.ofEpochMilli(entry.blockedUntil) + " and no cached metadata is available");
+        }
+        return info(key, entry, parser);
+    }
+
+    /**
+     * Returns the cached result, parsing a body persisted by an earlier process
+     * on first use.
+     */
+    private UpdateInfo info(String key, Entry entry, ResponseParser parser) throws IOException {
+        if (entry.info == null && entry.cached && directory != null && Files.exists(file(key, ".body"))) {
+            try (InputStream in = Files.newInputStream(file(key, ".body"))) {
+                entry.info = parser.parse(200, null, in);
+            }
+        }
+        return entry.info;
+    }
+
+    /**
+     * Drops all entries, in memory and on disk.
+     *
+     * @throws IOException If a persisted entry cannot be deleted.
+     */
+    public void clear() throws IOException {
+        for (String key : entries.keySet()) {
+            if (directory != null) {
+                Files.deleteIfExists(file(key, ".properties"));
+                Files.deleteIfExists(file(key, ".body"));
+            }
+        }
+        entries.clear();
+    }
+
+    static long maxAge(HttpHeaders headers) {
+        String cacheControl = String.join(",", headers.allValues("Cache-Control"));
+        if (cacheControl.contains("no-cache") || cacheControl.contains("no-store")) {
+            return 0;
+        }
+        Matcher matcher = MAX_AGE.matcher(cacheControl);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) * 1000 : 0;
+    }
+
+    /**
+     * @return The time until which no further requests should be sent, or 0.
+     */
+    static long rateLimitedUntil(int statusCode, HttpHeaders headers, long now) {
+        if (statusCode == 403 || statusCode == 429) {
+            var retryAfter = headers.firstValueAsLong("Retry-After");
+            if (retryAfter.isPresent()) {
+                return now + retryAfter.getAsLong() * 1000;
+            }
+        }
+        if (headers.firstValueAsLong("X-RateLimit-Remaining").orElse(1) == 0) {
+            var reset = headers.firstValueAsLong("X-RateLimit-Reset");
+            if (reset.isPresent()) {
+                return Math.max(now, reset.getAsLong() * 1000);
+            }
+            if (statusCode == 403 || statusCode == 429) {
+                // GitHub's documented minimum wait when no reset time is given.
+                return now + 60_000;
+            }
+        }
+        return 0;
+    }
+
+    private Entry load(String key) {
+        Entry entry = new Entry();
+        if (directory == null || !Files.exists(file(key, ".properties"))) {
+            return entry;
+        }
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file(key, ".properties"))) {
+            props.load(in);
+            entry.etag = props.getProperty("etag");
+            entry.lastModified = props.getProperty("lastModified");
+            entry.expiresAt = Long.parseLong(props.getProperty("expiresAt", "0"));
+            entry.blockedUntil = Long.parseLong(props.getProperty("blockedUntil", "0"));
+            entry.cached = Files.exists(file(key, ".body"));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Ignoring unreadable metadata cache entry for {}: {}", key, e.getMessage());
+            return new Entry();
+        }
+        return entry;
+    }
+
+    private void save(String key, Entry entry) {
+        if (directory == null) {
+            return;
+        }
+        Properties props = new Properties();
+        props.setProperty("url", key);
+        if (entry.etag != null)
+            props.setProperty("etag", entry.etag);
+        if (entry.lastModified != null)
+            props.setProperty("lastModified", entry.lastModified);
+        props.setProperty("expiresAt", String.valueOf(entry.expiresAt));
+        props.setProperty("blockedUntil", String.valueOf(entry.blockedUntil));
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, "entry", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                props.store(out, "SimpleUpDraft4J metadata cache");
+            }
+            Files.move(tmp, file(key, ".properties"), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warn("Could not persist metadata cache entry for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private Path file(String key, String suffix) {
+        byte[] hash = Checksums.sha256().digest(key.getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(Checksums.toHex(hash).substring(0, 32) + suffix);
+    }
+
+    private static class Entry {
+        final ReentrantLock lock = new ReentrantLock();
+        String etag;
+        String lastModified;
+        long expiresAt;
+        long blockedUntil;
+        boolean cached;
+        UpdateInfo info;
+    }
+}
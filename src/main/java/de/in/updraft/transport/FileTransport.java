@@ -0,0 +1,362 @@
+package de.in.updraft.transport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import javax.net.ssl.SSLSession;
+
+/**
+ * {@link Transport} that serves requests from a local directory instead of the
+ * network, for tests and for sites without internet access.
+ * <p>
+ * {@code https://example.com/app/1.0/app.tar.gz} is answered with
+ * {@code <root>/example.com/app/1.0/app.tar.gz}; the query string is ignored.
+ * {@code file:} URIs are served directly. Only GET and HEAD are supported,
+ * including byte ranges, {@code If-Range} and conditional requests, so
+ * downloads behave as they would against a web server.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class FileTransport implements Transport {
+    private static final Logger LOGGER = LogManager.getLogger(FileTransport.class);
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final Executor executor;
+
+    /**
+     * @param root Directory holding one subdirectory per host.
+     */
+    public FileTransport(Path root) {
+        this(root, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param root     Directory holding one subdirectory per host.
+     * @param executor Executor for asynchronous requests.
+     */
+    public FileTransport(Path root, Executor executor) {
+        this.root = root.toAbsolutePath().normalize();
+        this.executor = executor;
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        String method = request.method();
+        if (!method.equals("GET") && !method.equals("HEAD")) {
+            return respond(request, 405, Map.of(), null, 0, 0, handler);
+        }
+        Path file = resolve(request.uri());
+        if (file == null || !Files.isRegularFile(file)) {
+            LOGGER.debug("No file for {}", request.uri());
+            return respond(request, 404, Map.of(), null, 0, 0, handler);
+        }
+
+        long size = Files.size(file);
+        Instant modified = Files.getLastModifiedTime(file).toInstant().truncatedTo(ChronoUnit.SECONDS);
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(modified.getEpochSecond()) + "\"";
+        String lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(modified,
+                ZoneOffset.UTC));
+
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.put("Accept-Ranges", List.of("bytes"));
+        headers.put("ETag", List.of(etag));
+        headers.put("Last-Modified", List.of(lastModified));
+
+        if (notModified(request, etag, modified)) {
+            return respond(request, 304, headers, null, 0, 0, handler);
+        }
+
+        long start = 0;
+        long end = size - 1;
+        int status = 200;
+        Optional<String> range = request.headers().firstValue("Range");
+        Optional<String> ifRange = request.headers().firstValue("If-Range");
+        if (range.isPresent() && (ifRange.isEmpty() || ifRange.get().equals(etag)
+                || ifRange.get().equals(lastModified))) {
+            long[] bounds = parseRange(range.get(), size);
+            if (bounds == null) {
+                headers.put("Content-Range", List.of("bytes */" + size));
+                return respond(request, 416, headers, null, 0, 0, handler);
+            }
+            start = bounds[0];
+            end = bounds[1];
+            status = 206;
+            headers.put("Content-Range", List.of("bytes " + start + "-" + end + "/" + size));
+        }
+        long length = end - start + 1;
+        headers.put("Content-Length", List.of(String.valueOf(length)));
+        return respond(request, status, headers, method.equals("GET") ? file : null, start, length, handler);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> handler) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return send(request, handler);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * @return The file for the URI, or null if it lies outside the root.
+     */
+    Path resolve(URI uri) {
+        if ("file".equalsIgnoreCase(uri.getScheme())) {
+            return Path.of(uri);
+        }
+        if (uri.getHost() == null || uri.getPath() == null) {
+            return null;
+        }
+        Path file = root.resolve(uri.getHost()).resolve(uri.getPath().replaceFirst("^/+", "")).normalize();
+        return file.startsWith(root.resolve(uri.getHost())) ? file : null;
+    }
+
+    private static boolean notModified(HttpRequest request, String etag, Instant modified) {
+        Optional<String> ifNoneMatch = request.headers().firstValue("If-None-Match");
+        if (ifNoneMatch.isPresent()) {
+            return ifNoneMatch.get().equals(etag) || ifNoneMatch.get().equals("*");
+        }
+        Optional<String> ifModifiedSince = request.headers().firstValue("If-Modified-Since");
+        if (ifModifiedSince.isPresent()) {
+            try {
+                Instant since = ZonedDateTime.parse(ifModifiedSince.get(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant();
+                return !modified.isAfter(since);
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a single {@code bytes=} range.
+     *
+     * @return The first and last byte, or null if the range cannot be served.
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? size - 1 : Math.min(size - 1, Long.parseLong(spec.substring(dash + 1)));
+            }
+            return start < size && start <= end ? new long[] { start, end } : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static <T> HttpResponse<T> respond(HttpRequest request, int status, Map<String, List<String>> headerMap,
+            Path file, long offset, long length, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        HttpHeaders headers = HttpHeaders.of(headerMap, (name, value) -> true);
+        HttpResponse.BodySubscriber<T> subscriber = handler.apply(new Info(status, headers));
+        subscriber.onSubscribe(new FileSubscription(subscriber, file, offset, file != null ? length : 0));
+        try {
+            // Streaming subscribers complete right away and pull the data as it
+            // is read; all others have been fed completely by now.
+            T body = subscriber.getBody().toCompletableFuture().get();
+            return new Response<>(request, status, headers, body);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private record Info(int statusCode, HttpHeaders headers) implements HttpResponse.ResponseInfo {
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+
+    private record Response<T>(HttpRequest request, int statusCode, HttpHeaders headers, T body)
+            implements HttpResponse<T> {
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
+    }
+
+    /**
+     * Feeds a file region to a body subscriber as it asks for data. A request
+     * made from within {@code onNext} only raises the demand; the thread that
+     * is already delivering picks it up, so the stack does not grow.
+     */
+    private static final class FileSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super List<ByteBuffer>> subscriber;
+        private final Path file;
+        private long position;
+        private long remaining;
+        private FileChannel channel;
+        private long demand;
+        private boolean delivering;
+        private boolean done;
+
+        FileSubscription(Flow.Subscriber<? super List<ByteBuffer>> subscriber, Path file, long offset, long length) {
+            this.subscriber = subscriber;
+            this.file = file;
+            this.position = offset;
+            this.remaining = length;
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                if (n <= 0) {
+                    done = true;
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                    if (delivering) {
+                        return;
+                    }
+                    delivering = true;
+                }
+            }
+            if (n <= 0) {
+                closeChannel();
+                subscriber.onError(new IllegalArgumentException("Non-positive request: " + n));
+                return;
+            }
+            deliver();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                done = true;
+            }
+            closeChannel();
+        }
+
+        private void deliver() {
+            while (true) {
+                synchronized (this) {
+                    if (done || demand == 0) {
+                        delivering = false;
+                        return;
+                    }
+                    if (demand != Long.MAX_VALUE) {
+                        demand--;
+                    }
+                    if (remaining == 0) {
+                        done = true;
+                    }
+                }
+                if (remaining == 0) {
+                    closeChannel();
+                    subscriber.onComplete();
+                    return;
+                }
+                ByteBuffer buffer;
+                try {
+                    if (channel == null) {
+                        channel = FileChannel.open(file, StandardOpenOption.READ);
+                    }
+                    buffer = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, remaining));
+                    while (buffer.hasRemaining()) {
+                        int read = channel.read(buffer, position + buffer.position());
+                        if (read < 0) {
+                            throw new IOException("File " + file + " shrank while being served");
+                        }
+                    }
+                } catch (IOException e) {
+                    synchronized (this) {
+                        done = true;
+                    }
+                    closeChannel();
+                    subscriber.onError(e);
+                    return;
+                }
+                buffer.flip();
+                position += buffer.remaining();
+                remaining -= buffer.remaining();
+                subscriber.onNext(List.of(buffer));
+            }
+        }
+
+        private void closeChannel() {
+            FileChannel current;
+            synchronized (this) {
+                current = channel;
+                channel = null;
+            }
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Could not close {}: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package de.in.updraft.transport;
+
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Transport} backed by a single {@link HttpClient}, which pools
+ * connections and negotiates HTTP/2 where the server supports it.
+ * <p>
+ * Every request gets the configured request timeout and user agent unless it
+ * sets its own.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class HttpTransport implements Transport {
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    public static final String DEFAULT_USER_AGENT = "SimpleUpDraft4J";
+
+    private static volatile HttpTransport shared;
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final String userAgent;
+
+    private HttpTransport(HttpClient httpClient, Duration requestTimeout, String userAgent) {
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+        this.userAgent = userAgent;
+    }
+
+    /**
+     * @return The transport used by all components that are not given one
+     *         explicitly.
+     */
+    public static HttpTransport shared() {
+        HttpTransport transport = shared;
+        if (transport == null) {
+            synchronized (HttpTransport.class) {
+                transport = shared;
+                if (transport == null) {
+                    shared = transport = newBuilder().build();
+                }
+            }
+        }
+        return transport;
+    }
+
+    /**
+     * Wraps an existing client without adding timeouts or a user agent.
+     */
+    public static HttpTransport of(HttpClient httpClient) {
+        return new HttpTransport(httpClient, null, null);
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public HttpClient httpClient() {
+        return httpClient;
+    }
+
+    @Override
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        return httpClient.send(decorate(request), handler);
+    }
+
+    @Override
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+            HttpResponse.BodyHandler<T> handler) {
+        return httpClient.sendAsync(decorate(request), handler);
+    }
+
+    private HttpRequest decorate(HttpRequest request) {
+        boolean addTimeout = requestTimeout != null && request.timeout().isEmpty();
+        boolean addAgent = userAgent != null && request.headers().firstValue("User-Agent").isEmpty();
+        if (!addTimeout && !addAgent) {
+            return request;
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        if (addTimeout)
+            builder.timeout(requestTimeout);
+        if (addAgent)
+            builder.header("User-Agent", userAgent);
+        return builder.build();
+    }
+
+    /**
+     * Builder for {@link HttpTransport}.
+     */
+    public static class Builder {
+        private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+        private Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+        private String userAgent = DEFAULT_USER_AGENT;
+        private ProxySelector proxy;
+        private Executor executor;
+
+        private Builder() {
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Time allowed until the response headers arrive. Body transfer is not
+         * limited, so large downloads are not cut off.
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        public Builder userAgent(String userAgent) {
+            this.userAgent = userAgent;
+            return this;
+        }
+
+        public Builder proxy(ProxySelector proxy) {
+            this.proxy = proxy;
+            return this;
+        }
+
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public HttpTransport build() {
+            HttpClient.Builder builder = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .followRedirects(HttpClient.Redirect.NORMAL);
+            if (connectTimeout != null)
+                builder.connectTimeout(connectTimeout);
+            if (proxy != null)
+                builder.proxy(proxy);
+            if (executor != null)
+                builder.executor(executor);
+            return new HttpTransport(builder.build(), requestTimeout, userAgent);
+        }
+    }
+}
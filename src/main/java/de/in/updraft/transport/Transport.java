@@ -0,0 +1,49 @@
+package de.in.updraft.transport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the HTTP requests of sources and downloads.
+ * <p>
+ * Sharing one transport between {@code GithubReleaseSource},
+ * {@code JsonMetadataSource} and {@code UpdateRunner} lets a check and the
+ * following download reuse the same connections. Implementations must be
+ * thread-safe.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public interface Transport {
+
+    /**
+     * Sends a request and blocks until the response headers have arrived.
+     *
+     * @param request The request.
+     * @param handler Handler for the response body.
+     * @return The response.
+     * @throws IOException          If sending fails or times out.
+     * @throws InterruptedException If interrupted.
+     */
+    <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException;
+
+    /**
+     * Sends a request asynchronously.
+     *
+     * @param request The request.
+     * @param handler Handler for the response body.
+     * @return A future for the response.
+     */
+    <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request, HttpResponse.BodyHandler<T> handler);
+
+    /**
+     * @param uri The target of the request.
+     * @return A request builder for the URI.
+     */
+    default HttpRequest.Builder newRequest(URI uri) {
+        return HttpRequest.newBuilder(uri);
+    }
+}
@@ -1,20 +1,34 @@
 package de.in.updraft.ui;
 
 import de.in.updraft.GithubUpdater;
+import de.in.updraft.UpdateHandle;
 import de.in.updraft.UpdateInfo;
+import de.in.updraft.download.DownloadProgress;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.swing.*;
 import java.awt.*;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 
 /**
  * Swing-based helper for displaying update dialogs.
- * 
+ * <p>
+ * The dialog is not modal, so the application stays usable while a large
+ * update downloads. After "Update Now" it shows the phase, transferred bytes,
+ * rate and remaining time, and offers to cancel the download. The download
+ * threads only count bytes; a Swing timer reads the counts a few times per
+ * second, so the event dispatch thread sees one update per tick however fast
+ * the data arrives.
+ *
  * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
  */
 public class SimpleSwingUpdater {
     private static final Logger LOGGER = LogManager.getLogger(SimpleSwingUpdater.class);
+    private static final int REFRESH_MILLIS = 250;
 
     private final GithubUpdater updater;
 
@@ -26,7 +40,7 @@ public class SimpleSwingUpdater {
         if (info == null)
             return;
 
-        JDialog dialog = new JDialog((Frame) null, "Update Available", true);
+        JDialog dialog = new JDialog((Frame) null, "Update Available", false);
         dialog.setLayout(new BorderLayout(10, 10));
 
         JPanel contentPanel = new JPanel(new BorderLayout(5, 5));
@@ -50,16 +64,8 @@ public class SimpleSwingUpdater {
         JButton laterButton = new JButton("Later");
 
         updateButton.addActionListener(e -> {
-            dialog.dispose();
-            new Thread(() -> {
-                try {
-                    updater.performUpdate(info);
-                } catch (Exception ex) {
-                    LOGGER.error("Update failed", ex);
-                    SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
-                            "Update failed: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE));
-                }
-            }).start();
+            buttonPanel.removeAll();
+            showProgress(dialog, contentPanel, buttonPanel, updater.performUpdateAsync(info));
         });
 
         laterButton.addActionListener(e -> dialog.dispose());
@@ -74,4 +80,123 @@ public class SimpleSwingUpdater {
         dialog.setLocationRelativeTo(null);
         dialog.setVisible(true);
     }
+
+    /**
+     * Replaces the changelog with a progress bar that follows the update.
+     */
+    private void showProgress(JDialog dialog, JPanel contentPanel, JPanel buttonPanel, UpdateHandle handle) {
+        JProgressBar progressBar = new JProgressBar(0, 1000);
+        progressBar.setStringPainted(true);
+        JLabel statusLabel = new JLabel(" ");
+        JButton cancelButton = new JButton("Cancel");
+
+        JPanel progressPanel = new JPanel(new BorderLayout(5, 5));
+        progressPanel.add(progressBar, BorderLayout.NORTH);
+        progressPanel.add(statusLabel, BorderLayout.SOUTH);
+        contentPanel.remove(((BorderLayout) contentPanel.getLayout()).getLayoutComponent(BorderLayout.CENTER));
+        contentPanel.add(progressPanel, BorderLayout.CENTER);
+        buttonPanel.add(cancelButton);
+        dialog.setTitle("Updating");
+        dialog.pack();
+
+        Timer timer = new Timer(REFRESH_MILLIS, e -> {
+            UpdateHandle.Phase phase = handle.phase();
+            refresh(progressBar, statusLabel, phase, handle.progress());
+            cancelButton.setEnabled(phase == UpdateHandle.Phase.DOWNLOADING || phase == UpdateHandle.Phase.VERIFYING);
+        });
+        timer.setInitialDelay(0);
+        timer.start();
+
+        cancelButton.addActionListener(e -> {
+            if (!handle.cancel()) {
+                cancelButton.setEnabled(false);
+            }
+        });
+
+        handle.completion().whenComplete((result, ex) -> SwingUtilities.invokeLater(() -> {
+            timer.stop();
+            if (ex == null) {
+                // Reached if the update was applied without a restart.
+                progressBar.setValue(progressBar.getMaximum());
+                progressBar.setString("Done");
+                statusLabel.setText("The update has been installed.");
+                buttonPanel.removeAll();
+                JButton closeButton = new JButton("Close");
+                closeButton.addActionListener(c -> dialog.dispose());
+                buttonPanel.add(closeButton);
+                buttonPanel.revalidate();
+                buttonPanel.repaint();
+                return;
+            }
+            dialog.dispose();
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof CancellationException) {
+                LOGGER.info("Update cancelled");
+                return;
+            }
+            LOGGER.error("Update failed", cause);
+            JOptionPane.showMessageDialog(null, "Update failed: " + cause.getMessage(), "Error",
+                    JOptionPane.ERROR_MESSAGE);
+        }));
+    }
+
+    private static void refresh(JProgressBar progressBar, JLabel statusLabel, UpdateHandle.Phase phase,
+            DownloadProgress progress) {
+        double fraction = progress.fraction();
+        switch (phase) {
+        case DOWNLOADING:
+            progressBar.setIndeterminate(fraction < 0);
+            progressBar.setValue(fraction < 0 ? 0 : (int) (fraction * progressBar.getMaximum()));
+            progressBar.setString(fraction < 0 ? "Downloading" : Math.round(fraction * 100) + " %");
+            statusLabel.setText(describe(progress));
+            break;
+        case VERIFYING:
+            progressBar.setIndeterminate(false);
+            progressBar.setValue(progressBar.getMaximum());
+            progressBar.setString("Verifying");
+            statusLabel.setText("Checking the downloaded update");
+            break;
+        case APPLYING:
+            progressBar.setIndeterminate(true);
+            progressBar.setString("Installing");
+            statusLabel.setText("Installing the update; the application may restart");
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * @return A line like {@code 12.3 MB of 250.0 MB, 8.4 MB/s, 0:28 left}.
+     */
+    static String describe(DownloadProgress progress) {
+        StringBuilder sb = new StringBuilder(formatBytes(progress.transferred()));
+        if (progress.total() >= 0) {
+            sb.append(" of ").append(formatBytes(progress.total()));
+        }
+        double rate = progress.bytesPerSecond();
+        if (rate >= 0) {
+            sb.append(", ").append(formatBytes((long) rate)).append("/s");
+        }
+        Duration remaining = progress.remaining();
+        if (remaining != null) {
+            long seconds = remaining.getSeconds();
+            sb.append(String.format(Locale.ROOT, ", %d:%02d left", seconds / 60, seconds % 60));
+        }
+        return sb.toString();
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        String[] units = { "KB", "MB", "GB", "TB" };
+        double value = bytes;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format(Locale.ROOT, "%.1f %s", value, units[unit]);
+    }
 }
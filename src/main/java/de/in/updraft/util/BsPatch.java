@@ -0,0 +1,208 @@
+package de.in.updraft.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Applies patches in the bsdiff 4.x format ({@code BSDIFF40}).
+ * <p>
+ * The three patch blocks must be gzip-compressed (as written e.g. by jbsdiff
+ * with gzip compression), because the JDK has no bzip2 decoder. The old file
+ * is read with positional reads and the new file is streamed to disk, so memory
+ * use does not depend on the artifact size.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public final class BsPatch {
+    private static final byte[] MAGIC = "BSDIFF40".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 32;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private BsPatch() {
+    }
+
+    /**
+     * Rebuilds the new file from the old file and a patch.
+     *
+     * @param oldFile   The file the patch was created against.
+     * @param patchFile The patch.
+     * @param newFile   The file to write.
+     * @return The lower-case hex SHA-256 of the written file.
+     * @throws IOException If the patch is malformed or I/O fails.
+     */
+    public static String apply(Path oldFile, Path patchFile, Path newFile) throws IOException {
+        try (FileChannel patch = FileChannel.open(patchFile, StandardOpenOption.READ);
+                FileChannel old = FileChannel.open(oldFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (patch.read(header, header.position()) < 0) {
+                    throw new IOException("Patch is truncated");
+                }
+            }
+            byte[] bytes = header.array();
+            for (int i = 0; i < MAGIC.length; i++) {
+                if (bytes[i] != MAGIC[i]) {
+                    throw new IOException("Not a BSDIFF40 patch");
+                }
+            }
+            long ctrlLength = offtin(bytes, 8);
+            long diffLength = offtin(bytes, 16);
+            long newSize = offtin(bytes, 24);
+            if (ctrlLength < 0 || diffLength < 0 || newSize < 0
+                    || HEADER_SIZE + ctrlLength + diffLength > patch.size()) {
+                throw new IOException("Corrupt patch header");
+            }
+
+            MessageDigest digest = Checksums.sha256();
+            try (DataInputStream ctrl = block(patch, HEADER_SIZE, ctrlLength);
+                    InputStream diff = block(patch, HEADER_SIZE + ctrlLength, diffLength);
+                    InputStream extra = block(patch, HEADER_SIZE + ctrlLength + diffLength,
+                            patch.size() - HEADER_SIZE - ctrlLength - diffLength);
+                    OutputStream out = new DigestOutputStream(
+                            new BufferedOutputStream(Files.newOutputStream(newFile), BUFFER_SIZE), digest)) {
+                patch(old, ctrl, diff, extra, out, newSize);
+            }
+            return Checksums.toHex(digest.digest());
+        }
+    }
+
+    private static void patch(FileChannel old, DataInputStream ctrl, InputStream diff, InputStream extra,
+            OutputStream out, long newSize) throws IOException {
+        byte[] triple = new byte[24];
+        byte[] diffBuffer = new byte[BUFFER_SIZE];
+        ByteBuffer oldBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long oldSize = old.size();
+        long newPos = 0;
+        long oldPos = 0;
+
+        while (newPos < newSize) {
+            ctrl.readFully(triple);
+            long diffCount = offtin(triple, 0);
+            long extraCount = offtin(triple, 8);
+            long seek = offtin(triple, 16);
+            if (diffCount < 0 || extraCount < 0 || newPos + diffCount + extraCount > newSize) {
+                throw new IOException("Corrupt patch control block");
+            }
+
+            // Add the diff block to the bytes of the old file.
+            long remaining = diffCount;
+            while (remaining > 0) {
+                int chunk = (int) Math.min(remaining, BUFFER_SIZE);
+                readFully(diff, diffBuffer, chunk);
+                long from = Math.max(oldPos, 0);
+                long to = Math.min(oldPos + chunk, oldSize);
+                if (from < to) {
+                    int start = (int) (from - oldPos);
+                    oldBuffer.clear().position(start).limit((int) (to - oldPos));
+                    while (oldBuffer.hasRemaining()) {
+                        if (old.read(oldBuffer, oldPos + oldBuffer.position()) < 0) {
+                            throw new EOFException("Old file changed while patching");
+                        }
+                    }
+                    for (int i = start; i < oldBuffer.limit(); i++) {
+                        diffBuffer[i] += oldBuffer.get(i);
+                    }
+                }
+                out.write(diffBuffer, 0, chunk);
+                oldPos += chunk;
+                remaining -= chunk;
+            }
+            newPos += diffCount;
+
+            // Copy the extra block verbatim.
+            remaining = extraCount;
+            while (remaining > 0) {
+                int chunk = (int) Math.min(remaining, BUFFER_SIZE);
+                readFully(extra, diffBuffer, chunk);
+                out.write(diffBuffer, 0, chunk);
+                remaining -= chunk;
+            }
+            newPos += extraCount;
+            oldPos += seek;
+        }
+    }
+
+    private static DataInputStream block(FileChannel patch, long offset, long length) throws IOException {
+        InputStream raw = new BlockInputStream(patch, offset, length);
+        BufferedInputStream buffered = new BufferedInputStream(raw, BUFFER_SIZE);
+        buffered.mark(2);
+        int b1 = buffered.read();
+        int b2 = buffered.read();
+        buffered.reset();
+        if (b1 == 'B' && b2 == 'Z') {
+            throw new IOException("bzip2-compressed patches are not supported, use gzip blocks");
+        }
+        return new DataInputStream(new GZIPInputStream(buffered, BUFFER_SIZE));
+    }
+
+    private static void readFully(InputStream in, byte[] buffer, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int read = in.read(buffer, offset, length - offset);
+            if (read < 0) {
+                throw new EOFException("Patch block ended early");
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * Decodes the bsdiff sign-magnitude little-endian 64 bit integer.
+     */
+    static long offtin(byte[] buffer, int offset) {
+        long value = buffer[offset + 7] & 0x7F;
+        for (int i = 6; i >= 0; i--) {
+            value = (value << 8) | (buffer[offset + i] & 0xFF);
+        }
+        return (buffer[offset + 7] & 0x80) != 0 ? -value : value;
+    }
+
+    /**
+     * Reads one block of the patch file with positional reads, so that the three
+     * blocks can be consumed independently from the same channel.
+     */
+    private static class BlockInputStream extends InputStream {
+        private final FileChannel channel;
+        private long position;
+        private long remaining;
+
+        BlockInputStream(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.position = offset;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, remaining)), position);
+            if (read > 0) {
+                position += read;
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
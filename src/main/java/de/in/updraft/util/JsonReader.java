@@ -0,0 +1,401 @@
+package de.in.updraft.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Small streaming JSON reader without dependencies.
+ * <p>
+ * Tokens are pulled one at a time from a {@link Reader}, so the caller can
+ * pick the values it needs, skip everything else without building strings,
+ * and stop as soon as it is done. Memory use depends on the largest string
+ * read, not on the size of the document.
+ * <p>
+ * The reader is lenient about separators: commas and colons are treated like
+ * whitespace, which is fine for the well-formed documents we consume.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class JsonReader implements Closeable {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder text = new StringBuilder();
+    private int pos;
+    private int limit;
+
+    public JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    public JsonReader(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return The type of the next token without consuming it.
+     * @throws IOException If reading fails or the input is malformed.
+     */
+    public Token peek() throws IOException {
+        int c = skipSeparators();
+        switch (c) {
+        case -1:
+            return Token.END_DOCUMENT;
+        case '{':
+            return Token.BEGIN_OBJECT;
+        case '}':
+            return Token.END_OBJECT;
+        case '[':
+            return Token.BEGIN_ARRAY;
+        case ']':
+            return Token.END_ARRAY;
+        case '"':
+            return Token.STRING;
+        case 't':
+        case 'f':
+            return Token.BOOLEAN;
+        case 'n':
+            return Token.NULL;
+        default:
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                return Token.NUMBER;
+            }
+            throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        pos++;
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        pos++;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        pos++;
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        pos++;
+    }
+
+    /**
+     * @return true if the current object or array has more elements.
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.STRING);
+        return readString();
+    }
+
+    /**
+     * Reads a string. Numbers and booleans are returned as their literal text.
+     */
+    public String nextString() throws IOException {
+        Token token = peek();
+        if (token == Token.STRING) {
+            return readString();
+        }
+        if (token == Token.NUMBER || token == Token.BOOLEAN) {
+            return readLiteral();
+        }
+        throw syntaxError("Expected a string but was " + token);
+    }
+
+    public long nextLong() throws IOException {
+        Token token = peek();
+        if (token != Token.NUMBER && token != Token.STRING) {
+            throw syntaxError("Expected a number but was " + token);
+        }
+        String value = token == Token.STRING ? readString() : readLiteral();
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Not an integer: " + value);
+        }
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        return Boolean.parseBoolean(readLiteral());
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        readLiteral();
+    }
+
+    /**
+     * Reads a string value, or returns null for a JSON null.
+     */
+    public String nextStringOrNull() throws IOException {
+        if (peek() == Token.NULL) {
+            nextNull();
+            return null;
+        }
+        return nextString();
+    }
+
+    /**
+     * Quotes a value as a JSON string literal that {@link #nextString()}
+     * reads back unchanged.
+     *
+     * @return The literal, or {@code null} for a null value.
+     */
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+            case '"':
+                sb.append("\\\"");
+                break;
+            case '\\':
+                sb.append("\\\\");
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            case '\t':
+                sb.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Skips the next value, including nested objects and arrays, without
+     * building any strings.
+     */
+    public void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            switch (peek()) {
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+                pos++;
+                depth++;
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                pos++;
+                depth--;
+                break;
+            case STRING:
+                pos++;
+                skipString();
+                break;
+            case END_DOCUMENT:
+                throw syntaxError("Unexpected end of document");
+            default:
+                skipLiteral();
+                break;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Finds the first string value stored under the given key at any depth of
+     * the next value.
+     *
+     * @return The value, or null if the key does not occur.
+     */
+    public String findString(String key) throws IOException {
+        Token token = peek();
+        if (token == Token.BEGIN_OBJECT) {
+            beginObject();
+            while (hasNext()) {
+                String name = nextName();
+                if (name.equals(key) && peek() == Token.STRING) {
+                    return nextString();
+                }
+                String found = findString(key);
+                if (found != null) {
+                    return found;
+                }
+            }
+            endObject();
+        } else if (token == Token.BEGIN_ARRAY) {
+            beginArray();
+            while (hasNext()) {
+                String found = findString(key);
+                if (found != null) {
+                    return found;
+                }
+            }
+            endArray();
+        } else if (token != Token.END_DOCUMENT) {
+            skipValue();
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("Expected " + expected + " but was " + token);
+        }
+    }
+
+    private int skipSeparators() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[pos];
+            if (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == ',' || c == ':') {
+                pos++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            pos = limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = read;
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            throw syntaxError("Unexpected end of document");
+        }
+        return buffer[pos++];
+    }
+
+    private String readString() throws IOException {
+        pos++; // opening quote
+        text.setLength(0);
+        while (true) {
+            // Copy unescaped runs in bulk.
+            int start = pos;
+            while (pos < limit && buffer[pos] != '"' && buffer[pos] != '\\') {
+                pos++;
+            }
+            text.append(buffer, start, pos - start);
+            if (pos == limit) {
+                if (!fill()) {
+                    throw syntaxError("Unterminated string");
+                }
+                continue;
+            }
+            char c = buffer[pos++];
+            if (c == '"') {
+                return text.toString();
+            }
+            text.append(readEscape());
+        }
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+        case 'n':
+            return '\n';
+        case 'r':
+            return '\r';
+        case 't':
+            return '\t';
+        case 'b':
+            return '\b';
+        case 'f':
+            return '\f';
+        case 'u':
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(read(), 16);
+                if (digit < 0) {
+                    throw syntaxError("Malformed unicode escape");
+                }
+                value = (value << 4) | digit;
+            }
+            return (char) value;
+        default:
+            // \" \\ \/ and lenient handling of anything else
+            return (char) c;
+        }
+    }
+
+    private String readLiteral() throws IOException {
+        text.setLength(0);
+        while (true) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            char c = buffer[pos];
+            if (isLiteralChar(c)) {
+                text.append(c);
+                pos++;
+            } else {
+                break;
+            }
+        }
+        return text.toString();
+    }
+
+    private void skipLiteral() throws IOException {
+        while ((pos < limit || fill()) && isLiteralChar(buffer[pos])) {
+            pos++;
+        }
+    }
+
+    private static boolean isLiteralChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'E';
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("Malformed JSON: " + message);
+    }
+}
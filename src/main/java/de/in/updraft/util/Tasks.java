@@ -0,0 +1,184 @@
+package de.in.updraft.util;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs blocking work behind a {@link CompletableFuture}.
+ * <p>
+ * Unlike {@link CompletableFuture#supplyAsync}, completing the future from the
+ * outside, by {@code cancel}, {@code orTimeout} or {@code completeExceptionally},
+ * interrupts the worker, so a cancelled HTTP request or download actually
+ * stops.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public final class Tasks {
+
+    private Tasks() {
+    }
+
+    /**
+     * @return A shared executor that starts a virtual thread per task where the
+     *         runtime supports them, and uses a pool of daemon threads otherwise.
+     */
+    public static Executor defaultExecutor() {
+        return DefaultExecutor.INSTANCE;
+    }
+
+    /**
+     * Runs the task on the executor and completes the future with its result.
+     * If the future is completed by anyone else first, the worker is
+     * interrupted.
+     *
+     * @param future   The future to complete.
+     * @param task     The blocking task.
+     * @param executor The executor to run on.
+     * @return The given future.
+     */
+    public static <T> CompletableFuture<T> run(CompletableFuture<T> future, Callable<T> task, Executor executor) {
+        Worker worker = new Worker();
+        future.whenComplete((result, error) -> worker.interrupt());
+        try {
+            executor.execute(() -> {
+                if (!worker.start()) {
+                    return;
+                }
+                try {
+                    future.complete(task.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    worker.finish();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Runs the tasks on at most the given number of daemon threads. The first
+     * failure interrupts the tasks still running and is rethrown once they
+     * have stopped, so that nothing is left writing behind the caller's back.
+     *
+     * @param tasks   The blocking tasks.
+     * @param threads The maximum number of tasks running at a time.
+     * @param name    The name of the threads.
+     * @return The results in the order of the tasks.
+     * @throws IOException          The first failure, wrapped if it is not an
+     *                              {@link IOException}.
+     * @throws InterruptedException If interrupted.
+     */
+    public static <T> List<T> invokeAll(List<Callable<T>> tasks, int threads, String name)
+            throws IOException, InterruptedException {
+        if (tasks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())), r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        boolean failed = true;
+        try {
+            ExecutorCompletionService<T> completion = new ExecutorCompletionService<>(executor);
+            Map<Future<T>, Integer> order = new HashMap<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                order.put(completion.submit(tasks.get(i)), i);
+            }
+            List<T> results = new ArrayList<>(Collections.nCopies(tasks.size(), null));
+            for (int i = 0; i < tasks.size(); i++) {
+                Future<T> future = completion.take();
+                try {
+                    results.set(order.get(future), future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    if (e.getCause() instanceof InterruptedException) {
+                        throw (InterruptedException) e.getCause();
+                    }
+                    throw new IOException(e.getCause());
+                }
+            }
+            failed = false;
+            return results;
+        } finally {
+            executor.shutdownNow();
+            if (failed) {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            }
+        }
+    }
+
+    /**
+     * Tracks the thread running a task so that it can be interrupted while,
+     * and only while, it runs the task.
+     */
+    private static final class Worker {
+        private Thread thread;
+        private boolean done;
+
+        synchronized boolean start() {
+            if (done) {
+                return false;
+            }
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        synchronized void interrupt() {
+            done = true;
+            // The worker completing the future itself must not be interrupted.
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+
+        void finish() {
+            synchronized (this) {
+                done = true;
+                thread = null;
+            }
+            // Do not leak an interrupt into the next task of a pooled thread.
+            Thread.interrupted();
+        }
+    }
+
+    private static final class DefaultExecutor {
+        static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                // Java 21+; looked up reflectively so that the library still runs on 17.
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                AtomicInteger count = new AtomicInteger();
+                return Executors.newCachedThreadPool(r -> {
+                    Thread thread = new Thread(r, "updraft-worker-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
+}
@@ -1,74 +1,311 @@
 package de.in.updraft.util;
 
+import java.util.Arrays;
+
 /**
- * Utility for SemVer comparison.
- * 
+ * A version following SemVer 2.0 precedence.
+ * <p>
+ * The string is parsed in a single pass without regular expressions. A leading
+ * {@code v} is ignored, and so is build metadata after {@code +}. Versions with
+ * fewer or more than three numeric parts are accepted, missing parts count as
+ * zero, and non-numeric parts count as zero as well. Pre-release identifiers
+ * are compared field by field, numerically where they are numeric, so
+ * {@code rc.2} precedes {@code rc.10}.
+ * <p>
+ * The numeric parts are packed into a long when they are small enough, so
+ * sorting many versions mostly compares two longs.
+ *
  * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
  */
-public class Version implements Comparable<Version> {
-    private final int[] parts;
-    private final String suffix;
+public final class Version implements Comparable<Version> {
+    private static final long[] NO_PARTS = {};
+    private static final int PART_BITS = 21;
+    private static final long PART_LIMIT = 1L << PART_BITS;
+
+    private final long major;
+    private final long minor;
+    private final long patch;
+    /** Numeric parts after the third; trailing zeros are dropped. */
+    private final long[] extra;
+    /** Number of numeric parts as written, for {@link #toString()}. */
+    private final int partCount;
+    private final String preRelease;
+    private final String build;
+    /** Packed major, minor, patch and release flag, or -1 if they do not fit. */
+    private final long key;
+    private int hash;
+    private String text;
 
+    /**
+     * @param version The version, e.g. {@code v1.2.3-rc.1+build.5}.
+     */
     public Version(String version) {
         if (version == null)
             throw new IllegalArgumentException("Version cannot be null");
 
-        // Remove 'v' prefix if present
-        if (version.startsWith("v")) {
-            version = version.substring(1);
+        int length = version.length();
+        int pos = length > 0 && (version.charAt(0) == 'v' || version.charAt(0) == 'V') ? 1 : 0;
+        long first = 0;
+        long second = 0;
+        long third = 0;
+        long[] more = NO_PARTS;
+        int count = 0;
+        while (true) {
+            long value = 0;
+            boolean numeric = true;
+            int start = pos;
+            for (; pos < length; pos++) {
+                char c = version.charAt(pos);
+                if (c == '.' || c == '-' || c == '+') {
+                    break;
+                }
+                if (c >= '0' && c <= '9' && numeric) {
+                    value = value > (Long.MAX_VALUE - 9) / 10 ? Long.MAX_VALUE : value * 10 + (c - '0');
+                } else {
+                    numeric = false;
+                }
+            }
+            if (!numeric || pos == start) {
+                value = 0;
+            }
+            if (count == 0) {
+                first = value;
+            } else if (count == 1) {
+                second = value;
+            } else if (count == 2) {
+                third = value;
+            } else {
+                if (count - 3 == more.length) {
+                    more = Arrays.copyOf(more, Math.max(2, more.length * 2));
+                }
+                more[count - 3] = value;
+            }
+            count++;
+            if (pos < length && version.charAt(pos) == '.') {
+                pos++;
+            } else {
+                break;
+            }
         }
 
-        String[] mainParts = version.split("-", 2);
-        String[] numericParts = mainParts[0].split("\\.");
+        int plus = version.indexOf('+', pos);
+        int preEnd = plus >= 0 ? plus : length;
+        this.preRelease = pos < preEnd && version.charAt(pos) == '-' ? version.substring(pos + 1, preEnd) : "";
+        this.build = plus >= 0 ? version.substring(plus + 1) : "";
+        this.major = first;
+        this.minor = second;
+        this.patch = third;
+        this.partCount = count;
 
-        this.parts = new int[numericParts.length];
-        for (int i = 0; i < numericParts.length; i++) {
-            try {
-                this.parts[i] = Integer.parseInt(numericParts[i]);
-            } catch (NumberFormatException e) {
-                this.parts[i] = 0;
-            }
+        int extraLength = Math.max(0, count - 3);
+        while (extraLength > 0 && more[extraLength - 1] == 0) {
+            extraLength--;
         }
+        this.extra = extraLength == 0 ? NO_PARTS
+                : extraLength == more.length ? more : Arrays.copyOf(more, extraLength);
+        this.key = extraLength == 0 && major < PART_LIMIT / 2 && minor < PART_LIMIT && patch < PART_LIMIT
+                ? major << (2 * PART_BITS + 1) | minor << (PART_BITS + 1) | patch << 1 | (preRelease.isEmpty() ? 1 : 0)
+                : -1;
+    }
 
-        this.suffix = mainParts.length > 1 ? mainParts[1] : "";
+    public long major() {
+        return major;
+    }
+
+    public long minor() {
+        return minor;
+    }
+
+    public long patch() {
+        return patch;
+    }
+
+    /**
+     * @return The pre-release identifiers without the dash, or an empty string.
+     */
+    public String preRelease() {
+        return preRelease;
+    }
+
+    /**
+     * @return The build metadata without the plus, or an empty string. It does
+     *         not take part in comparisons.
+     */
+    public String build() {
+        return build;
+    }
+
+    public boolean isPreRelease() {
+        return !preRelease.isEmpty();
     }
 
     @Override
     public int compareTo(Version o) {
-        int length = Math.max(this.parts.length, o.parts.length);
-        for (int i = 0; i < length; i++) {
-            int thisPart = i < this.parts.length ? this.parts[i] : 0;
-            int thatPart = i < o.parts.length ? o.parts[i] : 0;
-            if (thisPart < thatPart)
-                return -1;
-            if (thisPart > thatPart)
-                return 1;
+        if (key >= 0 && o.key >= 0 && key != o.key) {
+            return Long.compare(key, o.key);
+        }
+        int result = compareCore(o);
+        if (result != 0) {
+            return result;
+        }
+        // A release has higher precedence than its pre-releases.
+        if (preRelease.isEmpty() || o.preRelease.isEmpty()) {
+            return Boolean.compare(preRelease.isEmpty(), o.preRelease.isEmpty());
+        }
+        return comparePreRelease(preRelease, o.preRelease);
+    }
+
+    /**
+     * Compares the numeric parts only.
+     */
+    int compareCore(Version o) {
+        int result = Long.compare(major, o.major);
+        if (result == 0)
+            result = Long.compare(minor, o.minor);
+        if (result == 0)
+            result = Long.compare(patch, o.patch);
+        for (int i = 0; result == 0 && i < Math.max(extra.length, o.extra.length); i++) {
+            result = Long.compare(i < extra.length ? extra[i] : 0, i < o.extra.length ? o.extra[i] : 0);
         }
+        return result;
+    }
 
-        // Suffix comparison (simplified: actual version > pre-release version)
-        if (this.suffix.isEmpty() && !o.suffix.isEmpty())
-            return 1;
-        if (!this.suffix.isEmpty() && o.suffix.isEmpty())
-            return -1;
+    /**
+     * Compares dot-separated identifiers in place.
+     */
+    private static int comparePreRelease(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int endA = identifierEnd(a, i);
+            int endB = identifierEnd(b, j);
+            int result = compareIdentifier(a, i, endA, b, j, endB);
+            if (result != 0) {
+                return result;
+            }
+            i = endA + 1;
+            j = endB + 1;
+        }
+        // A longer list of otherwise equal identifiers has higher precedence.
+        return Boolean.compare(i < a.length(), j < b.length());
+    }
 
-        return this.suffix.compareTo(o.suffix);
+    private static int identifierEnd(String s, int from) {
+        int end = s.indexOf('.', from);
+        return end < 0 ? s.length() : end;
+    }
+
+    private static int compareIdentifier(String a, int startA, int endA, String b, int startB, int endB) {
+        boolean numericA = isNumeric(a, startA, endA);
+        boolean numericB = isNumeric(b, startB, endB);
+        if (numericA && numericB) {
+            while (startA < endA - 1 && a.charAt(startA) == '0')
+                startA++;
+            while (startB < endB - 1 && b.charAt(startB) == '0')
+                startB++;
+            if (endA - startA != endB - startB) {
+                return Integer.compare(endA - startA, endB - startB);
+            }
+        } else if (numericA != numericB) {
+            // Numeric identifiers have lower precedence than alphanumeric ones.
+            return numericA ? -1 : 1;
+        }
+        int length = Math.min(endA - startA, endB - startB);
+        for (int k = 0; k < length; k++) {
+            int result = Character.compare(a.charAt(startA + k), b.charAt(startB + k));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(endA - startA, endB - startB);
+    }
+
+    private static boolean isNumeric(String s, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int k = start; k < end; k++) {
+            char c = s.charAt(k);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isNewerThan(Version other) {
+        return compareTo(other) > 0;
     }
 
     public boolean isNewerThan(String other) {
-        return compareTo(new Version(other)) > 0;
+        return isNewerThan(new Version(other));
     }
 
+    /**
+     * Versions are equal if they have the same precedence, so build metadata and
+     * trailing zero parts are ignored.
+     */
     @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < parts.length; i++) {
-            sb.append(parts[i]);
-            if (i < parts.length - 1)
-                sb.append(".");
+    public boolean equals(Object obj) {
+        return obj instanceof Version && compareTo((Version) obj) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = Long.hashCode(major);
+            h = 31 * h + Long.hashCode(minor);
+            h = 31 * h + Long.hashCode(patch);
+            for (long part : extra) {
+                h = 31 * h + Long.hashCode(part);
+            }
+            h = 31 * h + preReleaseHash();
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Hashes the identifiers so that {@code rc.01} and {@code rc.1}, which are
+     * equal in precedence, get the same hash.
+     */
+    private int preReleaseHash() {
+        int h = 0;
+        for (int i = 0; i < preRelease.length(); i++) {
+            int end = identifierEnd(preRelease, i);
+            int start = i;
+            if (isNumeric(preRelease, start, end)) {
+                while (start < end - 1 && preRelease.charAt(start) == '0')
+                    start++;
+            }
+            for (int k = start; k < end; k++) {
+                h = 31 * h + preRelease.charAt(k);
+            }
+            h = 31 * h + '.';
+            i = end;
         }
-        if (!suffix.isEmpty()) {
-            sb.append("-").append(suffix);
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        String s = text;
+        if (s == null) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < partCount; i++) {
+                if (i > 0)
+                    sb.append('.');
+                sb.append(i == 0 ? major : i == 1 ? minor : i == 2 ? patch : i - 3 < extra.length ? extra[i - 3] : 0);
+            }
+            if (!preRelease.isEmpty()) {
+                sb.append('-').append(preRelease);
+            }
+            if (!build.isEmpty()) {
+                sb.append('+').append(build);
+            }
+            text = s = sb.toString();
         }
-        return sb.toString();
+        return s;
     }
 }
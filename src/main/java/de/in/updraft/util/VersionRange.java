@@ -0,0 +1,271 @@
+package de.in.updraft.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A set of versions written in the notation known from npm and Cargo, e.g.
+ * {@code >=1.2.0 <2.0.0}, {@code ^1.4}, {@code ~2.1.3}, {@code 1.x},
+ * {@code 1.0.0 - 1.5} or several of them joined by {@code ||}.
+ * <p>
+ * Comparators separated by spaces must all match. Partial versions are filled
+ * with zeros, and {@code ^} allows changes that do not modify the left-most
+ * non-zero part. Pre-releases only match if a comparator of the same set names
+ * a pre-release of the same major, minor and patch version, so that
+ * {@code >=1.0.0} does not select {@code 2.0.0-alpha}.
+ * <p>
+ * The range is parsed once; matching only compares versions.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public final class VersionRange implements Predicate<Version> {
+    /** Matches every release. */
+    public static final VersionRange ANY = parse("*");
+
+    private enum Op {
+        EQ, GT, GE, LT, LE
+    }
+
+    private record Bound(Op op, Version version) {
+        boolean test(Version candidate) {
+            int result = candidate.compareTo(version);
+            switch (op) {
+            case EQ:
+                return result == 0;
+            case GT:
+                return result > 0;
+            case GE:
+                return result >= 0;
+            case LT:
+                return result < 0;
+            default:
+                return result <= 0;
+            }
+        }
+    }
+
+    /** A version with possibly missing parts, e.g. {@code 1.2} or {@code 1.x}. */
+    private record Partial(long major, long minor, long patch, int given, String preRelease) {
+        Version lower() {
+            return of(major, minor, patch, preRelease);
+        }
+
+        /** The first version above all versions this one stands for. */
+        Version next() {
+            return given == 1 ? of(major + 1, 0, 0, "") : of(major, minor + 1, 0, "");
+        }
+    }
+
+    private final String text;
+    private final Bound[][] sets;
+
+    private VersionRange(String text, Bound[][] sets) {
+        this.text = text;
+        this.sets = sets;
+    }
+
+    /**
+     * @param range The range expression.
+     * @return The parsed range.
+     * @throws IllegalArgumentException If the expression is malformed.
+     */
+    public static VersionRange parse(String range) {
+        if (range == null)
+            throw new IllegalArgumentException("Range cannot be null");
+        String[] alternatives = range.trim().split("\\s*\\|\\|\\s*", -1);
+        Bound[][] sets = new Bound[alternatives.length][];
+        for (int i = 0; i < alternatives.length; i++) {
+            sets[i] = parseSet(alternatives[i], range);
+        }
+        return new VersionRange(range.trim(), sets);
+    }
+
+    private static Bound[] parseSet(String set, String range) {
+        List<Bound> bounds = new ArrayList<>();
+        String[] tokens = set.isEmpty() ? new String[0] : set.split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (i + 2 < tokens.length && tokens[i + 1].equals("-")) {
+                Partial from = partial(tokens[i], range);
+                Partial to = partial(tokens[i + 2], range);
+                if (from.given() > 0)
+                    bounds.add(new Bound(Op.GE, from.lower()));
+                if (to.given() == 3)
+                    bounds.add(new Bound(Op.LE, to.lower()));
+                else if (to.given() > 0)
+                    bounds.add(new Bound(Op.LT, to.next()));
+                i += 2;
+                continue;
+            }
+            int opLength = operatorLength(token);
+            if (opLength == token.length()) {
+                // Operator separated from its version by a space.
+                if (i + 1 >= tokens.length)
+                    throw new IllegalArgumentException("Missing version after " + token + " in " + range);
+                token = token + tokens[++i];
+            }
+            addComparator(bounds, token.substring(0, opLength), partial(token.substring(opLength), range), range);
+        }
+        return bounds.toArray(new Bound[0]);
+    }
+
+    private static int operatorLength(String token) {
+        if (token.startsWith(">=") || token.startsWith("<="))
+            return 2;
+        if (token.startsWith(">") || token.startsWith("<") || token.startsWith("=") || token.startsWith("^")
+                || token.startsWith("~"))
+            return token.startsWith("~>") ? 2 : 1;
+        return 0;
+    }
+
+    private static void addComparator(List<Bound> bounds, String op, Partial p, String range) {
+        if (p.given() == 0) {
+            if (op.equals(">") || op.equals("<"))
+                throw new IllegalArgumentException("Cannot compare with a wildcard in " + range);
+            return; // matches everything
+        }
+        switch (op) {
+        case "":
+        case "=":
+            if (p.given() == 3) {
+                bounds.add(new Bound(Op.EQ, p.lower()));
+            } else {
+                bounds.add(new Bound(Op.GE, p.lower()));
+                bounds.add(new Bound(Op.LT, p.next()));
+            }
+            break;
+        case ">":
+            bounds.add(p.given() == 3 ? new Bound(Op.GT, p.lower()) : new Bound(Op.GE, p.next()));
+            break;
+        case ">=":
+            bounds.add(new Bound(Op.GE, p.lower()));
+            break;
+        case "<":
+            bounds.add(new Bound(Op.LT, p.lower()));
+            break;
+        case "<=":
+            bounds.add(p.given() == 3 ? new Bound(Op.LE, p.lower()) : new Bound(Op.LT, p.next()));
+            break;
+        case "~":
+        case "~>":
+            bounds.add(new Bound(Op.GE, p.lower()));
+            bounds.add(new Bound(Op.LT,
+                    p.given() == 1 ? of(p.major() + 1, 0, 0, "") : of(p.major(), p.minor() + 1, 0, "")));
+            break;
+        default: // ^
+            bounds.add(new Bound(Op.GE, p.lower()));
+            Version upper;
+            if (p.major() > 0 || p.given() == 1)
+                upper = of(p.major() + 1, 0, 0, "");
+            else if (p.minor() > 0 || p.given() == 2)
+                upper = of(0, p.minor() + 1, 0, "");
+            else
+                upper = of(0, 0, p.patch() + 1, "");
+            bounds.add(new Bound(Op.LT, upper));
+        }
+    }
+
+    private static Partial partial(String token, String range) {
+        String core = token;
+        String pre = "";
+        int plus = core.indexOf('+');
+        if (plus >= 0)
+            core = core.substring(0, plus);
+        int dash = core.indexOf('-');
+        if (dash >= 0) {
+            pre = core.substring(dash + 1);
+            core = core.substring(0, dash);
+        }
+        if (core.startsWith("v") || core.startsWith("V"))
+            core = core.substring(1);
+        long[] parts = new long[3];
+        int given = 0;
+        String[] fields = core.split("\\.", -1);
+        if (fields.length > 3)
+            throw new IllegalArgumentException("Too many parts in " + token + " of " + range);
+        for (String field : fields) {
+            if (field.equals("x") || field.equals("X") || field.equals("*"))
+                break;
+            try {
+                parts[given] = Long.parseLong(field);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid version " + token + " in " + range);
+            }
+            given++;
+        }
+        if (!pre.isEmpty() && given < 3)
+            throw new IllegalArgumentException("Pre-release needs a full version: " + token + " in " + range);
+        return new Partial(parts[0], parts[1], parts[2], given, pre);
+    }
+
+    private static Version of(long major, long minor, long patch, String preRelease) {
+        return new Version(major + "." + minor + "." + patch + (preRelease.isEmpty() ? "" : "-" + preRelease));
+    }
+
+    @Override
+    public boolean test(Version version) {
+        for (Bound[] set : sets) {
+            if (matches(set, version)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean matches(String version) {
+        return test(new Version(version));
+    }
+
+    private static boolean matches(Bound[] set, Version version) {
+        for (Bound bound : set) {
+            if (!bound.test(version)) {
+                return false;
+            }
+        }
+        if (!version.isPreRelease()) {
+            return true;
+        }
+        for (Bound bound : set) {
+            if (bound.version().isPreRelease() && bound.version().compareCore(version) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param versions The candidates.
+     * @return The matching versions in ascending order.
+     */
+    public List<Version> filter(Collection<Version> versions) {
+        List<Version> result = new ArrayList<>(versions.size());
+        for (Version version : versions) {
+            if (test(version)) {
+                result.add(version);
+            }
+        }
+        result.sort(null);
+        return result;
+    }
+
+    /**
+     * @param versions The candidates.
+     * @return The highest matching version, or null if none matches.
+     */
+    public Version highest(Iterable<Version> versions) {
+        Version best = null;
+        for (Version version : versions) {
+            if ((best == null || version.compareTo(best) > 0) && test(version)) {
+                best = version;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
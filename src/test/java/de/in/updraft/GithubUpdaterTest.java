@@ -0,0 +1,138 @@
+package de.in.updraft;
+
+import de.in.updraft.download.DownloadProgress;
+import de.in.updraft.transport.FileTransport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the asynchronous API of {@link GithubUpdater}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class GithubUpdaterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCheckForUpdatesAsync() throws Exception {
+        UpdateSource source = () -> new UpdateInfo("1.1.0", "https://example.com/app.jar", "");
+        GithubUpdater updater = new GithubUpdater("1.0.0", source, tempDir.resolve("app.jar"));
+
+        assertEquals("1.1.0", updater.checkForUpdatesAsync().get(5, TimeUnit.SECONDS).version());
+        assertNull(new GithubUpdater("1.1.0", source, tempDir.resolve("app.jar")).checkForUpdatesAsync()
+                .get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCheckTimeoutInterruptsSource() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        UpdateSource source = () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return null;
+        };
+        GithubUpdater updater = new GithubUpdater("1.0.0", source, tempDir.resolve("app.jar"));
+        updater.setCheckTimeout(Duration.ofMillis(100));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> updater.checkForUpdatesAsync().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelDownload() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        UpdateRunner runner = new UpdateRunner(tempDir.resolve("app.jar")) {
+            @Override
+            public StagedUpdate stage(UpdateInfo info, String installedVersion, DownloadProgress progress)
+                    throws InterruptedException {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return null;
+            }
+
+            @Override
+            public void apply(StagedUpdate staged) {
+                fail("A cancelled update must not be applied");
+            }
+        };
+        GithubUpdater updater = new GithubUpdater("1.0.0", () -> null, runner);
+
+        UpdateHandle handle = updater.performUpdateAsync(new UpdateInfo("1.1.0", "https://example.com/app.jar", ""));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(UpdateHandle.Phase.DOWNLOADING, handle.phase());
+        assertTrue(handle.cancel());
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(UpdateHandle.Phase.CANCELLED, handle.phase());
+        assertThrows(CancellationException.class, () -> handle.completion().get());
+    }
+
+    @Test
+    public void testDownloadDeadline() throws Exception {
+        UpdateRunner runner = new UpdateRunner(tempDir.resolve("app.jar")) {
+            @Override
+            public StagedUpdate stage(UpdateInfo info, String installedVersion, DownloadProgress progress)
+                    throws InterruptedException {
+                Thread.sleep(10_000);
+                return null;
+            }
+        };
+        GithubUpdater updater = new GithubUpdater("1.0.0", () -> null, runner);
+        updater.setDownloadTimeout(Duration.ofMillis(100));
+
+        UpdateHandle handle = updater.performUpdateAsync(new UpdateInfo("1.1.0", "https://example.com/app.jar", ""));
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> handle.completion().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(UpdateHandle.Phase.FAILED, handle.phase());
+    }
+
+    @Test
+    public void testStageAsyncKeepsUpdateForLater() throws Exception {
+        Path mirror = tempDir.resolve("mirror");
+        Files.createDirectories(mirror.resolve("example.com"));
+        Files.writeString(mirror.resolve("example.com/app.jar"), "new");
+        Path appJar = Files.writeString(tempDir.resolve("app.jar"), "old");
+        UpdateRunner runner = new UpdateRunner(appJar, new FileTransport(mirror));
+        runner.setStagingDirectory(tempDir.resolve("staging"));
+        GithubUpdater updater = new GithubUpdater("1.0.0", () -> null, runner);
+        assertNull(updater.stagedUpdate());
+
+        UpdateHandle handle = updater.stageAsync(new UpdateInfo("1.1.0", "https://example.com/app.jar", ""));
+        handle.completion().get(5, TimeUnit.SECONDS);
+        assertEquals(UpdateHandle.Phase.DONE, handle.phase());
+        assertEquals("1.1.0", updater.stagedUpdate().version());
+        assertEquals("old", Files.readString(appJar));
+
+        // Once 1.1.0 runs, the staged update is outdated.
+        GithubUpdater updated = new GithubUpdater("1.1.0", () -> null, runner);
+        assertNull(updated.stagedUpdate());
+        assertNull(runner.pendingUpdate());
+        assertFalse(updated.applyStaged());
+    }
+}
@@ -0,0 +1,279 @@
+package de.in.updraft;
+
+import de.in.updraft.download.VerificationException;
+import de.in.updraft.transport.FileTransport;
+import de.in.updraft.util.BsPatchTest;
+import de.in.updraft.util.Checksums;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link UpdateRunner}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class UpdateRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static String sha256(String content) {
+        return Checksums.toHex(Checksums.sha256().digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testLauncherProcessInstallsUpdate() throws Exception {
+        Path appJar = Files.writeString(tempDir.resolve("app.jar"), "old");
+        Path staged = Files.writeString(tempDir.resolve("staged.jar"), "new");
+        UpdateRunner runner = new UpdateRunner(appJar);
+        runner.setStagingDirectory(tempDir.resolve("staging"));
+        assertNull(runner.lastUpdateStatus());
+
+        // Stand in for the application: a process that has already exited.
+        Process app = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-version").start();
+        Process launcher = runner.startLauncher(staged, null, List.of(), "2.0.0", app.pid(), List.of());
+        assertTrue(launcher.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(0, launcher.exitValue());
+
+        assertEquals("new", Files.readString(appJar));
+        UpdateStatus status = runner.lastUpdateStatus();
+        assertTrue(status.success());
+        assertEquals("2.0.0", status.version());
+        assertNotNull(status.time());
+    }
+
+    @Test
+    public void testRelaunchCommandStartsWithJava() {
+        List<String> command = new UpdateRunner(tempDir.resolve("app.jar")).relaunchCommand();
+        assertTrue(Path.of(command.get(0)).getFileName().toString().startsWith("java"));
+        assertTrue(command.size() > 1);
+    }
+
+    @Test
+    public void testStageExtractsArchiveWhileDownloading() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("app.jar"));
+            zip.write("new".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("lib/a.jar"));
+            zip.write("a".getBytes(StandardCharsets.UTF_8));
+        }
+        Path mirror = tempDir.resolve("mirror");
+        Files.createDirectories(mirror.resolve("example.com"));
+        Files.write(mirror.resolve("example.com/app-2.0.0.zip"), bytes.toByteArray());
+
+        Path appJar = Files.writeString(tempDir.resolve("app.jar"), "old");
+        UpdateRunner runner = new UpdateRunner(appJar, new FileTransport(mirror));
+        runner.setStagingDirectory(tempDir.resolve("staging"));
+        StagedUpdate staged = runner.stage(new UpdateInfo("2.0.0", "https://example.com/app-2.0.0.zip", ""), null);
+
+        assertTrue(Files.isDirectory(staged.path()));
+        assertEquals("new", Files.readString(staged.path().resolve("app.jar")));
+        assertEquals("a", Files.readString(staged.path().resolve("lib/a.jar")));
+        assertEquals("old", Files.readString(appJar));
+    }
+
+    @Test
+    public void testPatchesArchiveOfInstalledVersion() throws Exception {
+        byte[] oldZip = zip("app.jar", "old app");
+        byte[] newZip = zip("app.jar", "new app");
+        Path mirror = tempDir.resolve("mirror");
+        Files.createDirectories(mirror.resolve("example.com"));
+        Files.write(mirror.resolve("example.com/app-1.0.0.zip"), oldZip);
+        Files.write(mirror.resolve("example.com/app.zip.from-1.0.0.patch"), BsPatchTest.diff(oldZip, newZip));
+
+        Path appJar = Files.writeString(tempDir.resolve("app.jar"), "old");
+        UpdateRunner runner = new UpdateRunner(appJar, new FileTransport(mirror));
+        runner.setStagingDirectory(tempDir.resolve("staging"));
+        runner.stage(new UpdateInfo("v1.0.0", "https://example.com/app-1.0.0.zip", ""), null);
+
+        // As GitHub describes it: the digest of the archive and a patch asset,
+        // while the full archive is not available.
+        String digest = Checksums.toHex(Checksums.sha256().digest(newZip));
+        UpdateInfo info = new UpdateInfo("v2.0.0", "https://example.com/app.zip", "",
+                List.of(new DeltaPatch("1.0.0", "https://example.com/app.zip.from-1.0.0.patch", digest)), null,
+                digest, newZip.length, null);
+        StagedUpdate staged = runner.stage(info, "1.0.0");
+
+        assertEquals("new app", Files.readString(staged.path().resolve("app.jar")));
+    }
+
+    @Test
+    public void testSignatureKeyProtectsManifest() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        KeyPair keys = generator.generateKeyPair();
+        String manifest = "{\"files\": [{\"path\": \"app.jar\", \"size\": 4, \"sha256\": \"" + sha256("next")
+                + "\"}]}";
+        Path mirror = tempDir.resolve("mirror");
+        Path site = Files.createDirectories(mirror.resolve("example.com"));
+        Files.writeString(site.resolve("manifest.json"), manifest);
+        Files.writeString(site.resolve("app.jar"), "next");
+        Files.write(site.resolve("manifest.json.sig"), sign(keys, "{\"files\": []}"));
+        Files.write(site.resolve("good-manifest.json.sig"), sign(keys, manifest));
+        Files.writeString(site.resolve("app-2.0.0.jar"), "good");
+        Files.write(site.resolve("app-2.0.0.jar.sig"), sign(keys, "good"));
+
+        Path appJar = Files.writeString(tempDir.resolve("app.jar"), "old");
+        UpdateRunner runner = new UpdateRunner(appJar, new FileTransport(mirror));
+        runner.setStagingDirectory(tempDir.resolve("staging"));
+        runner.setSignatureKey(keys.getPublic());
+
+        // An unsigned or tampered manifest is skipped for the signed artifact.
+        for (String manifestSignature : new String[] { null, "https://example.com/manifest.json.sig" }) {
+            StagedUpdate staged = runner.stage(new UpdateInfo("2.0.0", "https://example.com/app-2.0.0.jar", "",
+                    List.of(), "https://example.com/manifest.json", null, -1,
+                    "https://example.com/app-2.0.0.jar.sig", List.of(), manifestSignature), null);
+            assertEquals("good", Files.readString(staged.path()));
+        }
+
+        StagedUpdate staged = runner.stage(new UpdateInfo("2.0.0", "https://example.com/app-2.0.0.jar", "",
+                List.of(), "https://example.com/manifest.json", null, -1, "https://example.com/app-2.0.0.jar.sig",
+                List.of(), "https://example.com/good-manifest.json.sig"), null);
+        assertEquals("next", Files.readString(staged.path().resolve("app.jar")));
+    }
+
+    private static byte[] sign(KeyPair keys, String content) throws Exception {
+        Signature signer = Signature.getInstance("SHA256withECDSA");
+        signer.initSign(keys.getPrivate());
+        signer.update(content.getBytes(StandardCharsets.UTF_8));
+        return signer.sign();
+    }
+
+    private static byte[] zip(String name, String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    public void testPendingUpdateSurvivesRestart() throws Exception {
+        Path mirror = tempDir.resolve("mirror");
+        Files.createDirectories(mirror.resolve("example.com"));
+        Files.writeString(mirror.resolve("example.com/app-2.0.0.jar"), "new");
+        Path appJar = Files.writeString(tempDir.resolve("app.jar"), "old");
+        Path staging = tempDir.resolve("staging");
+
+        UpdateRunner runner = new UpdateRunner(appJar, new FileTransport(mirror));
+        runner.setStagingDirectory(staging);
+        assertNull(runner.pendingUpdate());
+        StagedUpdate staged = runner.stageForLater(
+                new UpdateInfo("2.0.0", "https://example.com/app-2.0.0.jar", ""), null, null);
+        assertTrue(staged.path().startsWith(staging));
+        assertEquals("old", Files.readString(appJar));
+
+        // A new process finds the update where the last one left it.
+        UpdateRunner restarted = new UpdateRunner(appJar, new FileTransport(mirror));
+        restarted.setStagingDirectory(staging);
+        StagedUpdate pending = restarted.pendingUpdate();
+        assertEquals("2.0.0", pending.version());
+        assertEquals("new", Files.readString(pending.path()));
+
+        restarted.discardPendingUpdate();
+        assertNull(restarted.pendingUpdate());
+        assertFalse(Files.exists(staged.path()));
+        assertFalse(restarted.applyPending());
+    }
+
+    @Test
+    public void testStagesAllArtifactsTogether() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("bin/java"));
+            zip.write("jre2".getBytes(StandardCharsets.UTF_8));
+        }
+        Path mirror = tempDir.resolve("mirror");
+        Files.createDirectories(mirror.resolve("example.com"));
+        Files.writeString(mirror.resolve("example.com/app.jar"), "app2");
+        Files.writeString(mirror.resolve("example.com/pdf.jar"), "pdf2");
+        Files.write(mirror.resolve("example.com/jre.zip"), bytes.toByteArray());
+
+        Path install = Files.createDirectories(tempDir.resolve("install/jre/lib"));
+        Path appJar = Files.writeString(tempDir.resolve("install/app.jar"), "app1");
+        Files.writeString(install.resolve("old.so"), "old");
+        UpdateRunner runner = new UpdateRunner(appJar, new FileTransport(mirror));
+        runner.setStagingDirectory(tempDir.resolve("staging"));
+        runner.setParallelDownloads(2);
+        UpdateInfo info = new UpdateInfo("2.0.0", "https://example.com/app.jar", "", List.of(), null, null, -1,
+                null, List.of(new Artifact("app.jar", "https://example.com/app.jar", sha256("app2"), 4,
+                        null), new Artifact("plugins/pdf.jar", "https://example.com/pdf.jar"),
+                        new Artifact("jre", "https://example.com/jre.zip")));
+
+        StagedUpdate staged = runner.stage(info, null);
+        assertEquals("app2", Files.readString(staged.path().resolve("app.jar")));
+        assertEquals("pdf2", Files.readString(staged.path().resolve("plugins/pdf.jar")));
+        assertEquals("jre2", Files.readString(staged.path().resolve("jre/bin/java")));
+        assertEquals(List.of("jre/lib/old.so"), staged.removed());
+        assertEquals("app1", Files.readString(appJar));
+    }
+
+    @Test
+    public void testArchivesWithSameFileNameAreKeptApart() throws Exception {
+        Path mirror = tempDir.resolve("mirror");
+        Files.createDirectories(mirror.resolve("example.com/a"));
+        Files.createDirectories(mirror.resolve("example.com/b"));
+        for (String name : List.of("a", "b")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+                zip.putNextEntry(new ZipEntry("lib.txt"));
+                zip.write(name.repeat(100_000).getBytes(StandardCharsets.UTF_8));
+            }
+            Files.write(mirror.resolve("example.com/" + name + "/lib.zip"), bytes.toByteArray());
+        }
+
+        Path appJar = Files.writeString(Files.createDirectories(tempDir.resolve("install")).resolve("app.jar"),
+                "app1");
+        UpdateRunner runner = new UpdateRunner(appJar, new FileTransport(mirror));
+        runner.setStagingDirectory(tempDir.resolve("staging"));
+        runner.setParallelDownloads(2);
+        UpdateInfo info = new UpdateInfo("2.0.0", "https://example.com/a/lib.zip", "", List.of(), null, null, -1,
+                null, List.of(new Artifact("a/lib", "https://example.com/a/lib.zip"),
+                        new Artifact("b/lib", "https://example.com/b/lib.zip")));
+
+        StagedUpdate staged = runner.stage(info, null);
+        assertEquals("a".repeat(100_000), Files.readString(staged.path().resolve("a/lib/lib.txt")));
+        assertEquals("b".repeat(100_000), Files.readString(staged.path().resolve("b/lib/lib.txt")));
+    }
+
+    @Test
+    public void testFailingArtifactFailsTheUpdate() throws Exception {
+        Path mirror = tempDir.resolve("mirror");
+        Files.createDirectories(mirror.resolve("example.com"));
+        Files.writeString(mirror.resolve("example.com/app.jar"), "app2");
+        Files.writeString(mirror.resolve("example.com/pdf.jar"), "tampered");
+
+        Path appJar = Files.writeString(tempDir.resolve("app.jar"), "app1");
+        UpdateRunner runner = new UpdateRunner(appJar, new FileTransport(mirror));
+        runner.setStagingDirectory(tempDir.resolve("staging"));
+        UpdateInfo info = new UpdateInfo("2.0.0", "https://example.com/app.jar", "", List.of(), null, null, -1,
+                null, List.of(new Artifact("app.jar", "https://example.com/app.jar"),
+                        new Artifact("plugins/pdf.jar", "https://example.com/pdf.jar", sha256("pdf2"),
+                                -1, null)));
+
+        VerificationException e = assertThrows(VerificationException.class, () -> runner.stage(info, null));
+        assertTrue(e.getMessage().startsWith("plugins/pdf.jar"), e.getMessage());
+
+        UpdateInfo escaping = new UpdateInfo("2.0.0", "https://example.com/app.jar", "", List.of(), null, null, -1,
+                null, List.of(new Artifact("../app.jar", "https://example.com/app.jar")));
+        assertThrows(IOException.class, () -> runner.stage(escaping, null));
+    }
+}
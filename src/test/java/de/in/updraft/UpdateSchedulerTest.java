@@ -0,0 +1,105 @@
+package de.in.updraft;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link UpdateScheduler}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class UpdateSchedulerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testBackoffAndSpeedUp() {
+        UpdateScheduler scheduler = new UpdateScheduler(new GithubUpdater("1.0.0", () -> null,
+                tempDir.resolve("app.jar")));
+        scheduler.setMinInterval(Duration.ofMinutes(5));
+        scheduler.setMaxInterval(Duration.ofMinutes(60));
+
+        long interval = Duration.ofMinutes(10).toMillis();
+        interval = scheduler.nextInterval(interval, false);
+        assertEquals(Duration.ofMinutes(20).toMillis(), interval);
+        interval = scheduler.nextInterval(scheduler.nextInterval(interval, false), false);
+        assertEquals(Duration.ofMinutes(60).toMillis(), interval);
+        assertEquals(Duration.ofMinutes(5).toMillis(), scheduler.nextInterval(interval, true));
+    }
+
+    @Test
+    public void testJitterStaysInRange() {
+        UpdateScheduler scheduler = new UpdateScheduler(new GithubUpdater("1.0.0", () -> null,
+                tempDir.resolve("app.jar")), new Random(42));
+        scheduler.setJitter(0.25);
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int i = 0; i < 1_000; i++) {
+            long delay = scheduler.jittered(1_000);
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        assertTrue(min >= 750 && min < 800, "min " + min);
+        assertTrue(max <= 1_250 && max > 1_200, "max " + max);
+    }
+
+    @Test
+    public void testDeliversEachReleaseOnceAndSurvivesErrors() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        UpdateSource source = () -> {
+            int n = calls.incrementAndGet();
+            if (n == 1) {
+                throw new IOException("offline");
+            }
+            return new UpdateInfo(n < 4 ? "1.0.0" : "1.1.0", "https://example.com/app.tar.gz", "");
+        };
+        List<String> events = new CopyOnWriteArrayList<>();
+        CountDownLatch found = new CountDownLatch(1);
+        AtomicReference<UpdateInfo> update = new AtomicReference<>();
+
+        try (UpdateScheduler scheduler = new UpdateScheduler(new GithubUpdater("0.9.0", source,
+                tempDir.resolve("app.jar")))) {
+            scheduler.setInterval(Duration.ofMillis(10));
+            scheduler.setMinInterval(Duration.ofMillis(10));
+            scheduler.setMaxInterval(Duration.ofMillis(20));
+            scheduler.addListener(new UpdateCheckListener() {
+                @Override
+                public void onUpdateAvailable(UpdateInfo info) {
+                    events.add(info.version());
+                    update.set(info);
+                    if (info.version().equals("1.1.0"))
+                        found.countDown();
+                }
+
+                @Override
+                public void onNoUpdate() {
+                    events.add("none");
+                }
+
+                @Override
+                public void onCheckFailed(Exception e) {
+                    events.add("error");
+                }
+            });
+            scheduler.start(Duration.ZERO);
+            assertTrue(found.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of("error", "1.0.0", "none", "1.1.0"), events.subList(0, 4));
+        assertEquals("1.1.0", update.get().version());
+    }
+}
@@ -0,0 +1,197 @@
+package de.in.updraft.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link ArchiveExtractor}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class ArchiveExtractorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testExtractsTarGz() throws Exception {
+        Tar tar = new Tar();
+        tar.add("./app/", '5', "", 0755, null);
+        tar.add("./app/bin/run.sh", '0', "#!/bin/sh\n", 0755, null);
+        String longName = "app/lib/" + "x".repeat(120) + ".jar";
+        tar.addLongName(longName);
+        tar.add(longName.substring(0, 99), '0', "long", 0644, null);
+        StringBuilder big = new StringBuilder();
+        while (big.length() < 3 * 1024 * 1024) {
+            big.append("0123456789abcdef");
+        }
+        tar.add("app/data.bin", '0', big.toString(), 0644, null);
+        for (int i = 0; i < 200; i++) {
+            tar.add("app/res/file" + i + ".txt", '0', "content " + i, 0644, null);
+        }
+        tar.add("app/res/file7.txt", '0', "replaced", 0644, null);
+
+        Path dest = tempDir.resolve("out");
+        long written = new ArchiveExtractor(4, 1024 * 1024, 2 * 1024 * 1024)
+                .extract(new ByteArrayInputStream(tar.gzip()), "app.tar.gz", dest);
+
+        assertEquals("#!/bin/sh\n", Files.readString(dest.resolve("app/bin/run.sh")));
+        assertEquals("long", Files.readString(dest.resolve(longName)));
+        assertEquals(big.length(), Files.size(dest.resolve("app/data.bin")));
+        assertEquals("content 199", Files.readString(dest.resolve("app/res/file199.txt")));
+        assertEquals("replaced", Files.readString(dest.resolve("app/res/file7.txt")));
+        assertTrue(written > big.length());
+        if (!System.getProperty("os.name").toLowerCase().contains("win")) {
+            assertTrue(Files.isExecutable(dest.resolve("app/bin/run.sh")));
+        }
+    }
+
+    @Test
+    public void testExtractsZip() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("lib/"));
+            zip.putNextEntry(new ZipEntry("lib/a.jar"));
+            zip.write("a".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("app.jar"));
+            zip.write("app".getBytes(StandardCharsets.UTF_8));
+        }
+        Path dest = tempDir.resolve("out");
+        new ArchiveExtractor().extract(new ByteArrayInputStream(bytes.toByteArray()), "app.zip", dest);
+
+        assertEquals("a", Files.readString(dest.resolve("lib/a.jar")));
+        assertEquals("app", Files.readString(dest.resolve("app.jar")));
+    }
+
+    @Test
+    public void testRejectsEntriesOutsideDestination() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("../evil.txt"));
+            zip.write("x".getBytes(StandardCharsets.UTF_8));
+        }
+        Path dest = tempDir.resolve("out");
+        assertThrows(IOException.class,
+                () -> new ArchiveExtractor().extract(new ByteArrayInputStream(bytes.toByteArray()), "a.zip", dest));
+        assertFalse(Files.exists(tempDir.resolve("evil.txt")));
+
+        Tar tar = new Tar();
+        tar.add("/etc/evil", '0', "x", 0644, null);
+        assertThrows(IOException.class,
+                () -> new ArchiveExtractor().extract(new ByteArrayInputStream(tar.gzip()), "a.tgz", dest));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void testSymbolicLinks() throws Exception {
+        Tar tar = new Tar();
+        tar.add("lib/a.jar", '0', "a", 0644, null);
+        tar.add("current.jar", '2', "", 0777, "lib/a.jar");
+        Path dest = tempDir.resolve("out");
+        new ArchiveExtractor().extract(new ByteArrayInputStream(tar.gzip()), "a.tar.gz", dest);
+        assertTrue(Files.isSymbolicLink(dest.resolve("current.jar")));
+        assertEquals("a", Files.readString(dest.resolve("current.jar")));
+
+        Tar escaping = new Tar();
+        escaping.add("lib/link", '2', "", 0777, "../../outside");
+        assertThrows(IOException.class, () -> new ArchiveExtractor()
+                .extract(new ByteArrayInputStream(escaping.gzip()), "b.tar.gz", tempDir.resolve("out2")));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    public void testRejectsChainedLinksLeavingDestination() throws Exception {
+        Path dest = Files.createDirectories(tempDir.resolve("stage/out"));
+        Tar tar = new Tar();
+        tar.add("a", '2', "", 0777, ".");
+        tar.add("a/b", '2', "", 0777, "..");
+        tar.add("a/b/evil", '0', "evil", 0644, null);
+        assertThrows(IOException.class,
+                () -> new ArchiveExtractor().extract(new ByteArrayInputStream(tar.gzip()), "c.tar.gz", dest));
+        assertFalse(Files.exists(tempDir.resolve("stage/evil")));
+
+        // A link to a directory that exists is followed, and one climbing out of it is caught.
+        Tar climbing = new Tar();
+        climbing.add("dir/x", '0', "x", 0644, null);
+        climbing.add("d", '2', "", 0777, "dir");
+        climbing.add("up", '2', "", 0777, "d/../..");
+        Path dest2 = tempDir.resolve("stage/out2");
+        assertThrows(IOException.class,
+                () -> new ArchiveExtractor().extract(new ByteArrayInputStream(climbing.gzip()), "d.tar.gz", dest2));
+
+        // Writing through a link that stays inside is fine.
+        Tar inside = new Tar();
+        inside.add("lib/", '5', "", 0755, null);
+        inside.add("current", '2', "", 0777, "lib");
+        inside.add("current/a.jar", '0', "a", 0644, null);
+        Path dest3 = tempDir.resolve("stage/out3");
+        new ArchiveExtractor().extract(new ByteArrayInputStream(inside.gzip()), "e.tar.gz", dest3);
+        assertEquals("a", Files.readString(dest3.resolve("lib/a.jar")));
+    }
+
+    /**
+     * Writes ustar archives.
+     */
+    static class Tar {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void add(String name, char type, String content, int mode, String link) throws IOException {
+            byte[] data = content.getBytes(StandardCharsets.UTF_8);
+            byte[] header = new byte[512];
+            put(header, 0, name, 100);
+            put(header, 100, String.format("%07o", mode), 8);
+            put(header, 108, "0000000", 8);
+            put(header, 116, "0000000", 8);
+            put(header, 124, String.format("%011o", data.length), 12);
+            put(header, 136, "00000000000", 12);
+            header[156] = (byte) type;
+            if (link != null)
+                put(header, 157, link, 100);
+            put(header, 257, "ustar", 6);
+            put(header, 263, "00", 2);
+            for (int i = 148; i < 156; i++) {
+                header[i] = ' ';
+            }
+            int sum = 0;
+            for (byte b : header) {
+                sum += b & 0xff;
+            }
+            put(header, 148, String.format("%06o", sum), 7);
+            out.write(header);
+            out.write(data);
+            out.write(new byte[(512 - data.length % 512) % 512]);
+        }
+
+        void addLongName(String name) throws IOException {
+            add("././@LongLink", 'L', name + "\0", 0644, null);
+        }
+
+        byte[] gzip() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(out.toByteArray());
+                gzip.write(new byte[1024]);
+            }
+            return bytes.toByteArray();
+        }
+
+        private static void put(byte[] header, int offset, String value, int length) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(bytes, 0, header, offset, Math.min(bytes.length, length));
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package de.in.updraft.download;
+
+import de.in.updraft.transport.HttpTransport;
+import de.in.updraft.util.Checksums;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link ArtifactCache}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class ArtifactCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testConcurrentFetchesDownloadOnce() throws Exception {
+        byte[] data = new byte[200_000];
+        new Random(7).nextBytes(data);
+        String sha256 = Checksums.toHex(Checksums.sha256().digest(data));
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        try (HttpStub stub = new HttpStub(data, false)) {
+            List<Future<Path>> results = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                // One cache and engine per instance, as in separate processes.
+                ArtifactCache cache = new ArtifactCache(tempDir.resolve("cache"));
+                DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()));
+                results.add(pool.submit(() -> cache.fetch(stub.uri("/app.jar"), sha256, engine,
+                        new ArtifactVerifier(sha256, data.length))));
+            }
+            Path first = results.get(0).get();
+            for (Future<Path> result : results) {
+                assertEquals(first, result.get());
+            }
+            assertArrayEquals(data, Files.readAllBytes(first));
+            assertEquals(1, stub.getRequests());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        Path dir = Files.createDirectories(tempDir.resolve("cache"));
+        Instant now = Instant.now();
+        Path expired = write(dir, "a", 10, now.minus(Duration.ofDays(40)));
+        Path older = write(dir, "b", 100, now.minus(Duration.ofDays(2)));
+        Path newer = write(dir, "c", 100, now.minus(Duration.ofDays(1)));
+        Path recent = write(dir, "d", 100, now);
+        Path lock = write(dir, "b.lock", 0, now.minus(Duration.ofDays(40)));
+
+        ArtifactCache cache = new ArtifactCache(dir);
+        cache.setMaxSize(250);
+        cache.evict();
+
+        assertFalse(Files.exists(expired));
+        assertFalse(Files.exists(older));
+        assertTrue(Files.exists(newer));
+        assertTrue(Files.exists(recent));
+        assertTrue(Files.exists(lock));
+    }
+
+    @Test
+    public void testUseIsRecordedOnLockFile() throws Exception {
+        ArtifactCache cache = new ArtifactCache(tempDir.resolve("cache"));
+        URI uri = URI.create("https://example.com/app.jar");
+        String sha256 = Checksums.toHex(Checksums.sha256().digest("app".getBytes(StandardCharsets.UTF_8)));
+        Path entry = cache.fetch(uri, sha256, target -> Files.writeString(target, "app"));
+        Instant written = Instant.now().minus(Duration.ofDays(40));
+        Files.setLastModifiedTime(entry, FileTime.from(written));
+
+        assertEquals(entry, cache.fetch(uri, sha256, target -> fail("cached")));
+        // The entry may be linked into an installation; its time stays put.
+        assertEquals(written, Files.getLastModifiedTime(entry).toInstant());
+        cache.evict();
+        assertTrue(Files.exists(entry));
+
+        assertThrows(IllegalArgumentException.class, () -> cache.fetch(uri, null, target -> fail("cached")));
+    }
+
+    @Test
+    public void testTamperedEntryIsDownloadedAgain() throws Exception {
+        ArtifactCache cache = new ArtifactCache(tempDir.resolve("cache"));
+        URI uri = URI.create("https://example.com/app.jar");
+        byte[] data = "app".getBytes(StandardCharsets.UTF_8);
+        String sha256 = Checksums.toHex(Checksums.sha256().digest(data));
+        Path entry = cache.fetch(uri, sha256, target -> Files.write(target, data));
+        Files.writeString(entry, "bad");
+
+        AtomicInteger downloads = new AtomicInteger();
+        Path again = cache.fetch(uri, sha256, new ArtifactVerifier(sha256, data.length), target -> {
+            downloads.incrementAndGet();
+            Files.write(target, data);
+        });
+        assertEquals(1, downloads.get());
+        assertArrayEquals(data, Files.readAllBytes(again));
+    }
+
+    private static Path write(Path dir, String name, int size, Instant modified) throws Exception {
+        Path file = Files.write(dir.resolve(name), new byte[size]);
+        Files.setLastModifiedTime(file, FileTime.from(modified));
+        return file;
+    }
+}
@@ -0,0 +1,72 @@
+package de.in.updraft.download;
+
+import de.in.updraft.util.Checksums;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link ArtifactVerifier}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class ArtifactVerifierTest {
+
+    private static final byte[] DATA = "the new release".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testChecksumAndLength() throws Exception {
+        String sha256 = Checksums.toHex(Checksums.sha256().digest(DATA));
+        ArtifactVerifier verifier = new ArtifactVerifier(sha256.toUpperCase(), DATA.length);
+        verifier.update(DATA, 0, DATA.length);
+        verifier.verify();
+
+        verifier.reset();
+        verifier.update(DATA, 0, 3);
+        assertThrows(VerificationException.class, verifier::verify);
+
+        verifier.reset();
+        verifier.update(DATA, 0, DATA.length);
+        assertThrows(VerificationException.class, () -> verifier.update(DATA, 0, 1));
+        assertThrows(VerificationException.class, () -> verifier.expectLength(DATA.length + 1));
+    }
+
+    @Test
+    public void testWrappedStreamVerifiesAtEnd() throws Exception {
+        ArtifactVerifier verifier = new ArtifactVerifier("00", -1);
+        try (InputStream in = verifier.wrap(new ByteArrayInputStream(DATA))) {
+            assertEquals(4, in.readNBytes(4).length);
+            assertThrows(VerificationException.class, () -> in.transferTo(OutputStream.nullOutputStream()));
+        }
+    }
+
+    @Test
+    public void testSignature() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        KeyPair keys = generator.generateKeyPair();
+        Signature signer = Signature.getInstance("SHA256withECDSA");
+        signer.initSign(keys.getPrivate());
+        signer.update(DATA);
+        byte[] signature = signer.sign();
+
+        byte[] encoded = Base64.getEncoder().encode(signature);
+        ArtifactVerifier verifier = new ArtifactVerifier(null, -1, ArtifactVerifier.decodeSignature(encoded),
+                keys.getPublic());
+        verifier.update(DATA, 0, DATA.length);
+        verifier.verify();
+
+        verifier.reset();
+        verifier.update(DATA, 1, DATA.length - 1);
+        assertThrows(VerificationException.class, verifier::verify);
+    }
+}
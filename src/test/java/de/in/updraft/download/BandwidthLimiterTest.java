@@ -0,0 +1,39 @@
+package de.in.updraft.download;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link BandwidthLimiter}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class BandwidthLimiterTest {
+
+    @Test
+    public void testDebtDelaysNextChunk() {
+        BandwidthLimiter limiter = new BandwidthLimiter(1_000_000);
+        // The burst of 100 KB is free, the next 100 KB cost a tenth of a second.
+        assertEquals(0, limiter.reserve(100_000));
+        long wait = limiter.reserve(100_000);
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(80) && wait <= TimeUnit.MILLISECONDS.toNanos(100),
+                "wait " + wait);
+    }
+
+    @Test
+    public void testRateChangesAtRuntime() {
+        BandwidthLimiter limiter = new BandwidthLimiter(1_000_000);
+        limiter.reserve(200_000);
+        limiter.setRate(0);
+        assertEquals(0, limiter.rate());
+        assertEquals(0, limiter.reserve(10_000_000));
+
+        limiter.setRate(100_000);
+        assertEquals(100_000, limiter.rate());
+        limiter.reserve(16 * 1024);
+        assertTrue(limiter.reserve(100_000) >= TimeUnit.MILLISECONDS.toNanos(900));
+    }
+}
@@ -0,0 +1,211 @@
+package de.in.updraft.download;
+
+import de.in.updraft.transport.HttpTransport;
+import de.in.updraft.util.Checksums;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link DownloadEngine}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class DownloadEngineTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static byte[] payload(int size) {
+        byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void testRangedDownload() throws Exception {
+        byte[] data = payload(100_003);
+        try (HttpStub stub = new HttpStub(data, true)) {
+            DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 4, 10_000);
+            Path target = tempDir.resolve("ranged.bin");
+
+            assertEquals(data.length, engine.download(stub.uri("/app.tar.gz"), target));
+            assertArrayEquals(data, Files.readAllBytes(target));
+            assertEquals(4, stub.rangeRequests());
+        }
+    }
+
+    @Test
+    public void testFallbackWithoutRanges() throws Exception {
+        byte[] data = payload(50_000);
+        try (HttpStub stub = new HttpStub(data, false)) {
+            DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 4, 1_000);
+            Path target = tempDir.resolve("single.bin");
+
+            assertEquals(data.length, engine.download(stub.uri("/app.jar"), target));
+            assertArrayEquals(data, Files.readAllBytes(target));
+            assertEquals(0, stub.rangeRequests());
+            assertEquals(1, stub.getRequests());
+        }
+    }
+
+    @Test
+    public void testSmallFileUsesSingleConnection() throws Exception {
+        byte[] data = payload(5_000);
+        try (HttpStub stub = new HttpStub(data, true)) {
+            DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 8, 10_000);
+            Path target = tempDir.resolve("small.bin");
+
+            engine.download(stub.uri("/app.jar"), target);
+            assertArrayEquals(data, Files.readAllBytes(target));
+            assertEquals(0, stub.rangeRequests());
+        }
+    }
+
+    @Test
+    public void testRetryResumesPartialDownload() throws Exception {
+        byte[] data = payload(40_000);
+        try (HttpStub stub = new HttpStub(data, true)) {
+            stub.failNext(1, 10_000);
+            DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 1, 1_000);
+            engine.setRetryPolicy(new RetryPolicy(3, Duration.ofMillis(10), Duration.ofMillis(50)));
+            Path target = tempDir.resolve("retry.bin");
+
+            engine.download(stub.uri("/app.jar"), target);
+            assertArrayEquals(data, Files.readAllBytes(target));
+            assertNotNull(stub.lastRange());
+            assertFalse(stub.lastRange().startsWith("bytes=0-"), "Second attempt should resume, got "
+                    + stub.lastRange());
+            assertFalse(Files.exists(DownloadState.sidecarOf(target)));
+        }
+    }
+
+    @Test
+    public void testSegmentsWithoutValidator() throws Exception {
+        byte[] data = payload(40_000);
+        try (HttpStub stub = new HttpStub(data, true)) {
+            stub.setEtag(null);
+            stub.failNext(1, 5_000);
+            DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 4, 1_000);
+            engine.setRetryPolicy(RetryPolicy.NONE);
+            Path target = tempDir.resolve("unvalidated.bin");
+
+            // Nothing to resume from, so no state is kept.
+            assertThrows(IOException.class, () -> engine.download(stub.uri("/app.jar"), target));
+            assertFalse(Files.exists(DownloadState.sidecarOf(target)));
+
+            int before = stub.rangeRequests();
+            engine.download(stub.uri("/app.jar"), target);
+            assertArrayEquals(data, Files.readAllBytes(target));
+            assertEquals(before + 4, stub.rangeRequests());
+        }
+    }
+
+    @Test
+    public void testResumeAfterRestart() throws Exception {
+        byte[] data = payload(40_000);
+        Path target = tempDir.resolve("restart.bin");
+        try (HttpStub stub = new HttpStub(data, true)) {
+            stub.failNext(2, 15_000);
+            DownloadEngine first = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 2, 1_000);
+            first.setRetryPolicy(RetryPolicy.NONE);
+            assertThrows(IOException.class, () -> first.download(stub.uri("/app.jar"), target));
+            assertTrue(Files.exists(DownloadState.sidecarOf(target)));
+
+            DownloadEngine second = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 2, 1_000);
+            second.download(stub.uri("/app.jar"), target);
+            assertArrayEquals(data, Files.readAllBytes(target));
+            assertEquals(4, stub.rangeRequests());
+        }
+    }
+
+    @Test
+    public void testChangedArtifactStartsOver() throws Exception {
+        byte[] data = payload(40_000);
+        Path target = tempDir.resolve("changed.bin");
+        try (HttpStub stub = new HttpStub(data, true)) {
+            stub.failNext(1, 15_000);
+            DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 1, 1_000);
+            engine.setRetryPolicy(RetryPolicy.NONE);
+            assertThrows(IOException.class, () -> engine.download(stub.uri("/app.jar"), target));
+
+            stub.setEtag("\"v2\"");
+            engine.download(stub.uri("/app.jar"), target);
+            assertArrayEquals(data, Files.readAllBytes(target));
+            assertNull(stub.lastRange());
+        }
+    }
+
+    @Test
+    public void testVerifiesRangedDownloadInline() throws Exception {
+        byte[] data = payload(300_000);
+        String sha256 = Checksums.toHex(Checksums.sha256().digest(data));
+        try (HttpStub stub = new HttpStub(data, true)) {
+            DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 4, 10_000);
+            Path target = tempDir.resolve("verified.bin");
+            engine.download(stub.uri("/app.jar"), target, new ArtifactVerifier(sha256, data.length));
+            assertArrayEquals(data, Files.readAllBytes(target));
+
+            // A mismatch is not retried; the same artifact would fail again.
+            engine.setRetryPolicy(new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(1)));
+            int before = stub.getRequests();
+            String wrong = sha256.replace(sha256.charAt(0), sha256.charAt(0) == '0' ? '1' : '0');
+            assertThrows(VerificationException.class, () -> engine.download(stub.uri("/app.jar"),
+                    tempDir.resolve("bad.bin"), new ArtifactVerifier(wrong, data.length)));
+            assertFalse(Files.exists(DownloadState.sidecarOf(tempDir.resolve("bad.bin"))));
+            assertEquals(before + 4, stub.getRequests());
+        }
+    }
+
+    @Test
+    public void testRejectsWrongLengthBeforeDownloading() throws Exception {
+        byte[] data = payload(50_000);
+        try (HttpStub stub = new HttpStub(data, false)) {
+            DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 4, 1_000);
+            engine.setRetryPolicy(RetryPolicy.NONE);
+            assertThrows(VerificationException.class, () -> engine.download(stub.uri("/app.jar"),
+                    tempDir.resolve("short.bin"), new ArtifactVerifier(null, 10_000)));
+            assertEquals(0, stub.getRequests());
+        }
+    }
+
+    @Test
+    public void testBandwidthLimitSlowsRangedDownload() throws Exception {
+        byte[] data = payload(300_000);
+        try (HttpStub stub = new HttpStub(data, true)) {
+            DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 4, 10_000);
+            engine.setBandwidthLimiter(new BandwidthLimiter(1_000_000));
+            Path target = tempDir.resolve("throttled.bin");
+
+            long start = System.nanoTime();
+            engine.download(stub.uri("/app.tar.gz"), target);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            assertArrayEquals(data, Files.readAllBytes(target));
+            // 300 KB at 1 MB/s, minus the initial burst and the debt of the last chunk
+            assertTrue(millis >= 150, "took only " + millis + " ms");
+        }
+    }
+
+    @Test
+    public void testReportsProgress() throws Exception {
+        byte[] data = payload(50_000);
+        for (boolean ranges : new boolean[] { true, false }) {
+            try (HttpStub stub = new HttpStub(data, ranges)) {
+                DownloadEngine engine = new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient()), 4, 10_000);
+                DownloadProgress progress = new DownloadProgress();
+                engine.download(stub.uri("/app.jar"), tempDir.resolve("progress-" + ranges + ".bin"), null, progress);
+                assertEquals(data.length, progress.total());
+                assertEquals(data.length, progress.transferred());
+                assertTrue(progress.isComplete());
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package de.in.updraft.download;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class DownloadProgressTest {
+
+    @Test
+    public void testRateAndRemainingTime() {
+        AtomicLong now = new AtomicLong();
+        DownloadProgress progress = new DownloadProgress(now::get);
+        progress.start(10_000, 2_000);
+        assertEquals(0.2, progress.fraction(), 1e-9);
+        assertEquals(-1, progress.bytesPerSecond());
+        assertNull(progress.remaining());
+
+        now.addAndGet(1_000_000_000L);
+        progress.add(1_000);
+        assertEquals(1_000, progress.bytesPerSecond(), 1e-9);
+        assertEquals(Duration.ofSeconds(7), progress.remaining());
+
+        // A faster second is smoothed rather than taken as is.
+        now.addAndGet(1_000_000_000L);
+        progress.add(3_000);
+        double rate = progress.bytesPerSecond();
+        assertTrue(rate > 1_000 && rate < 3_000, "rate " + rate);
+        assertFalse(progress.isComplete());
+
+        progress.add(4_000);
+        assertTrue(progress.isComplete());
+        assertEquals(1.0, progress.fraction(), 1e-9);
+    }
+
+    @Test
+    public void testUnknownSizeAndRestart() {
+        AtomicLong now = new AtomicLong();
+        DownloadProgress progress = new DownloadProgress(now::get);
+        progress.start(-1, 0);
+        progress.add(500);
+        assertEquals(-1, progress.fraction());
+        assertFalse(progress.isComplete());
+        now.addAndGet(500_000_000L);
+        assertEquals(1_000, progress.bytesPerSecond(), 1e-9);
+        assertNull(progress.remaining());
+
+        // A retry counts from the bytes it resumes with.
+        progress.start(2_000, 1_500);
+        assertEquals(1_500, progress.transferred());
+        assertEquals(-1, progress.bytesPerSecond());
+    }
+}
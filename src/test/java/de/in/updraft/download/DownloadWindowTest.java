@@ -0,0 +1,51 @@
+package de.in.updraft.download;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link DownloadWindow}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class DownloadWindowTest {
+
+    private static DownloadWindow at(int hour, int minute) {
+        ZonedDateTime now = ZonedDateTime.of(2024, 3, 1, hour, minute, 0, 0, ZoneOffset.UTC);
+        return new DownloadWindow(Clock.fixed(now.toInstant(), ZoneOffset.UTC));
+    }
+
+    @Test
+    public void testWindowSpanningMidnight() {
+        assertTrue(at(23, 0).add(LocalTime.of(22, 0), LocalTime.of(6, 0)).isOpen());
+        assertTrue(at(5, 59).add(LocalTime.of(22, 0), LocalTime.of(6, 0)).isOpen());
+
+        DownloadWindow closed = at(6, 0).add(LocalTime.of(22, 0), LocalTime.of(6, 0));
+        assertFalse(closed.isOpen());
+        assertEquals(Duration.ofHours(16), closed.untilOpen());
+    }
+
+    @Test
+    public void testNearestWindowWins() {
+        DownloadWindow window = at(12, 30).add(LocalTime.of(2, 0), LocalTime.of(4, 0))
+                .add(LocalTime.of(13, 0), LocalTime.of(14, 0));
+        assertEquals(Duration.ofMinutes(30), window.untilOpen());
+        assertTrue(at(12, 30).isOpen());
+    }
+
+    @Test
+    public void testMinimumSize() {
+        DownloadWindow window = at(12, 0).add(LocalTime.of(22, 0), LocalTime.of(6, 0));
+        window.setMinimumSize(1_000_000);
+        assertFalse(window.appliesTo(999_999));
+        assertTrue(window.appliesTo(1_000_000));
+        assertTrue(window.appliesTo(-1));
+    }
+}
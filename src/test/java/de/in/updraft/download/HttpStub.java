@@ -0,0 +1,151 @@
+package de.in.updraft.download;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal loopback HTTP server serving a default payload and optional
+ * per-path files, optionally with support for range requests.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class HttpStub implements AutoCloseable {
+    private final HttpServer server;
+    private final byte[] payload;
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final List<String> paths = new CopyOnWriteArrayList<>();
+    private final boolean ranges;
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicInteger getRequests = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile int failAfterBytes;
+    private volatile String etag = "\"v1\"";
+    private volatile String lastRange;
+
+    public HttpStub(byte[] payload, boolean ranges) throws IOException {
+        this.payload = payload;
+        this.ranges = ranges;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    public URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    /**
+     * Serves the given content at the path instead of the default payload.
+     */
+    public void put(String path, byte[] content) {
+        files.put(path, content);
+    }
+
+    /**
+     * @return The paths of all GET requests received so far.
+     */
+    public List<String> requestedPaths() {
+        return paths;
+    }
+
+    public int rangeRequests() {
+        return rangeRequests.get();
+    }
+
+    public int getRequests() {
+        return getRequests.get();
+    }
+
+    public String lastRange() {
+        return lastRange;
+    }
+
+    /**
+     * @param etag The entity tag to send, or null for none.
+     */
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    /**
+     * Makes the next GET requests drop the connection after the given number of
+     * body bytes.
+     */
+    public void failNext(int requests, int afterBytes) {
+        this.failAfterBytes = afterBytes;
+        failures.set(requests);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] payload = files.getOrDefault(exchange.getRequestURI().getPath(), this.payload);
+        if (payload == null) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        if (ranges) {
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+        }
+        if (etag != null) {
+            exchange.getResponseHeaders().add("ETag", etag);
+        }
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(payload.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        getRequests.incrementAndGet();
+        paths.add(exchange.getRequestURI().getPath());
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        if (ifRange != null && !ifRange.equals(etag)) {
+            range = null;
+        }
+        lastRange = range;
+        int start = 0;
+        int end = payload.length - 1;
+        int status = 200;
+        if (ranges && range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring(6).split("-", 2);
+            start = Integer.parseInt(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                end = Math.min(end, Integer.parseInt(bounds[1]));
+            }
+            status = 206;
+            rangeRequests.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + payload.length);
+        }
+        int length = end - start + 1;
+        exchange.sendResponseHeaders(status, length);
+        if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            OutputStream out = exchange.getResponseBody();
+            out.write(payload, start, Math.min(length, failAfterBytes));
+            out.flush();
+            // Closing the exchange before the announced length was written
+            // drops the connection.
+            exchange.close();
+            return;
+        }
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(payload, start, length);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
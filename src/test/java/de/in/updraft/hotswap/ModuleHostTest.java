@@ -0,0 +1,118 @@
+package de.in.updraft.hotswap;
+
+import de.in.updraft.StagedUpdate;
+import de.in.updraft.UpdateRunner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link ModuleHost}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class ModuleHostTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Compiles a module that appends its version to the "history" list of the
+     * handed-over state.
+     */
+    private Path moduleJar(String version, boolean failOnStart) throws IOException {
+        Path src = tempDir.resolve("src-" + version + "/demo/Module.java");
+        Files.createDirectories(src.getParent());
+        Files.writeString(src, "package demo;\n"
+                + "import java.util.*;\n"
+                + "public class Module implements de.in.updraft.hotswap.HotSwappable {\n"
+                + "  private Map<String, Object> state;\n"
+                + "  @SuppressWarnings(\"unchecked\")\n"
+                + "  public void start(Map<String, Object> state) {\n"
+                + (failOnStart ? "    if (true) throw new IllegalStateException(\"broken\");\n" : "")
+                + "    ((List<String>) state.computeIfAbsent(\"history\", k -> new ArrayList<String>()))"
+                + ".add(\"" + version + "\");\n"
+                + "    this.state = state;\n"
+                + "  }\n"
+                + "  public Map<String, Object> stop() { return state; }\n"
+                + "}\n");
+        Path classes = tempDir.resolve("classes-" + version);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int result = compiler.run(null, null, null, "-d", classes.toString(), "-cp",
+                System.getProperty("java.class.path"), src.toString());
+        assertEquals(0, result);
+
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(ModuleHost.MODULE_ATTRIBUTE, "demo.Module");
+        Path jar = tempDir.resolve("module-" + version + ".jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+            out.putNextEntry(new JarEntry("demo/Module.class"));
+            Files.copy(classes.resolve("demo/Module.class"), (OutputStream) out);
+            out.closeEntry();
+        }
+        return jar;
+    }
+
+    @Test
+    public void testSwapHandsOverState() throws Exception {
+        try (ModuleHost host = new ModuleHost(tempDir.resolve("work"))) {
+            host.start(moduleJar("1", false));
+            ClassLoader first = host.module().getClass().getClassLoader();
+
+            host.swap(moduleJar("2", false));
+            assertNotSame(first, host.module().getClass().getClassLoader());
+
+            Map<String, Object> state = host.stop();
+            assertEquals(List.of("1", "2"), state.get("history"));
+        }
+    }
+
+    @Test
+    public void testFailedStartKeepsOldVersion() throws Exception {
+        try (ModuleHost host = new ModuleHost(tempDir.resolve("work"))) {
+            host.start(moduleJar("1", false));
+            HotSwappable running = host.module();
+
+            assertThrows(IOException.class, () -> host.swap(moduleJar("2", true)));
+            assertSame(running, host.module());
+            assertEquals(List.of("1", "1"), host.stop().get("history"));
+        }
+    }
+
+    @Test
+    public void testRunnerAppliesJarWithoutRestart() throws Exception {
+        Path appJar = tempDir.resolve("app.jar");
+        Files.copy(moduleJar("1", false), appJar);
+        try (ModuleHost host = new ModuleHost(tempDir.resolve("work"))) {
+            host.start(appJar);
+            UpdateRunner runner = new UpdateRunner(appJar);
+            runner.setModuleHost(host);
+
+            Path update = tempDir.resolve("update.jar");
+            Files.copy(moduleJar("2", false), update);
+            runner.apply(new StagedUpdate("2", update, List.of()));
+
+            assertArrayEquals(Files.readAllBytes(tempDir.resolve("module-2.jar")), Files.readAllBytes(appJar));
+            // The backup may share the old jar's inode and must keep its content.
+            assertArrayEquals(Files.readAllBytes(tempDir.resolve("module-1.jar")),
+                    Files.readAllBytes(tempDir.resolve("app-backup.jar")));
+            assertFalse(Files.exists(update));
+            assertEquals(List.of("1", "2"), host.stop().get("history"));
+        }
+    }
+}
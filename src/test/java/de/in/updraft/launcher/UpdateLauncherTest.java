@@ -0,0 +1,220 @@
+package de.in.updraft.launcher;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link UpdateLauncher}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class UpdateLauncherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path writePlan(Properties plan) throws IOException {
+        plan.setProperty("status", tempDir.resolve("status.properties").toString());
+        Path file = tempDir.resolve("update.plan");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            plan.store(out, null);
+        }
+        return file;
+    }
+
+    private Properties status() throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(tempDir.resolve("status.properties"))) {
+            props.load(in);
+        }
+        return props;
+    }
+
+    @Test
+    public void testWaitsForExitAndInstallsJar() throws Exception {
+        Path app = Files.writeString(tempDir.resolve("app.jar"), "old");
+        Path staged = Files.writeString(tempDir.resolve("staged.jar"), "new");
+        Process parent = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-version").start();
+
+        Properties plan = new Properties();
+        plan.setProperty("pid", String.valueOf(parent.pid()));
+        plan.setProperty("mode", UpdateLauncher.MODE_JAR);
+        plan.setProperty("source", staged.toString());
+        plan.setProperty("target", app.toString());
+        plan.setProperty("version", "2.0.0");
+        Path planFile = writePlan(plan);
+
+        assertTrue(UpdateLauncher.run(planFile));
+        assertFalse(parent.isAlive());
+        assertEquals("new", Files.readString(app));
+        assertFalse(Files.exists(staged));
+        assertFalse(Files.exists(planFile));
+        assertEquals(UpdateLauncher.STATUS_SUCCESS, status().getProperty("status"));
+        assertEquals("2.0.0", status().getProperty("version"));
+    }
+
+    @Test
+    public void testRestoresBackupOnFailure() throws Exception {
+        Path app = Files.writeString(tempDir.resolve("app.jar"), "broken");
+        Path backup = Files.writeString(tempDir.resolve("app-backup.jar"), "old");
+
+        Properties plan = new Properties();
+        plan.setProperty("pid", String.valueOf(Long.MAX_VALUE));
+        plan.setProperty("mode", UpdateLauncher.MODE_JAR);
+        plan.setProperty("source", tempDir.resolve("missing.jar").toString());
+        plan.setProperty("target", app.toString());
+        plan.setProperty("backup", backup.toString());
+
+        assertFalse(UpdateLauncher.run(writePlan(plan)));
+        assertEquals("old", Files.readString(app));
+        assertFalse(Files.exists(tempDir.resolve("app.jar.new")));
+        assertEquals(UpdateLauncher.STATUS_FAILED, status().getProperty("status"));
+    }
+
+    @Test
+    public void testInstallsStagedDirectory() throws Exception {
+        Path install = Files.createDirectories(tempDir.resolve("install"));
+        Files.writeString(install.resolve("app.jar"), "app");
+        Files.createDirectories(install.resolve("lib"));
+        Files.writeString(install.resolve("lib/old.jar"), "old");
+        Path staged = Files.createDirectories(tempDir.resolve("staged/lib"));
+        Files.writeString(staged.resolve("new.jar"), "new");
+
+        Properties plan = new Properties();
+        plan.setProperty("pid", String.valueOf(Long.MAX_VALUE));
+        plan.setProperty("mode", UpdateLauncher.MODE_DIRECTORY);
+        plan.setProperty("source", tempDir.resolve("staged").toString());
+        plan.setProperty("target", install.resolve("app.jar").toString());
+        plan.setProperty("removed.0", "lib/old.jar");
+        plan.setProperty("removed.1", "../outside.txt");
+        Files.writeString(tempDir.resolve("outside.txt"), "keep");
+
+        assertTrue(UpdateLauncher.run(writePlan(plan)));
+        assertEquals("new", Files.readString(install.resolve("lib/new.jar")));
+        assertFalse(Files.exists(install.resolve("lib/old.jar")));
+        assertTrue(Files.exists(tempDir.resolve("outside.txt")));
+        assertFalse(Files.exists(tempDir.resolve("staged")));
+    }
+
+    @Test
+    public void testDirectorySwapKeepsPreviousVersion() throws Exception {
+        Path install = Files.createDirectories(tempDir.resolve("install/lib"));
+        Files.writeString(install.resolve("shared.jar"), "v1");
+        Files.writeString(install.resolve("unchanged.jar"), "same");
+        Path staged = Files.createDirectories(tempDir.resolve("staged/lib"));
+        Files.writeString(staged.resolve("shared.jar"), "v2");
+
+        Properties plan = new Properties();
+        plan.setProperty("pid", String.valueOf(Long.MAX_VALUE));
+        plan.setProperty("mode", UpdateLauncher.MODE_DIRECTORY);
+        plan.setProperty("source", tempDir.resolve("staged").toString());
+        plan.setProperty("target", tempDir.resolve("install/app.jar").toString());
+
+        assertTrue(UpdateLauncher.run(writePlan(plan)));
+        Path previous = tempDir.resolve("install" + UpdateLauncher.PREVIOUS_SUFFIX);
+        assertEquals("v2", Files.readString(install.resolve("shared.jar")));
+        assertEquals("v1", Files.readString(previous.resolve("lib/shared.jar")));
+        assertEquals("same", Files.readString(install.resolve("unchanged.jar")));
+        assertFalse(Files.exists(tempDir.resolve("install" + UpdateLauncher.NEXT_SUFFIX)));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS) // creating symbolic links needs extra privileges
+    public void testSymlinkFlip() throws Exception {
+        Path v1 = Files.createDirectories(tempDir.resolve("versions/app-1.0.0"));
+        Files.writeString(v1.resolve("app.jar"), "v1");
+        Path link = Files.createSymbolicLink(tempDir.resolve("app"), v1);
+        Path staged = Files.createDirectories(tempDir.resolve("staged"));
+        Files.writeString(staged.resolve("app.jar"), "v2");
+
+        Properties plan = new Properties();
+        plan.setProperty("pid", String.valueOf(Long.MAX_VALUE));
+        plan.setProperty("mode", UpdateLauncher.MODE_DIRECTORY);
+        plan.setProperty("source", staged.toString());
+        plan.setProperty("target", link.resolve("app.jar").toString());
+        plan.setProperty("version", "2.0.0");
+
+        assertTrue(UpdateLauncher.run(writePlan(plan)));
+        assertTrue(Files.isSymbolicLink(link));
+        assertEquals(tempDir.resolve("versions/app-2.0.0").toRealPath(), link.toRealPath());
+        assertEquals("v2", Files.readString(link.resolve("app.jar")));
+        assertEquals("v1", Files.readString(v1.resolve("app.jar")));
+
+        Properties rollback = new Properties();
+        rollback.setProperty("pid", String.valueOf(Long.MAX_VALUE));
+        rollback.setProperty("mode", UpdateLauncher.MODE_ROLLBACK);
+        rollback.setProperty("target", link.resolve("app.jar").toString());
+        assertTrue(UpdateLauncher.run(writePlan(rollback)));
+        assertEquals(v1.toRealPath(), link.toRealPath());
+        assertEquals(tempDir.resolve("versions/app-2.0.0").toRealPath(),
+                tempDir.resolve("app" + UpdateLauncher.PREVIOUS_SUFFIX).toRealPath());
+    }
+
+    @Test
+    public void testSymlinkUpdatesKeepTwoVersions() throws Exception {
+        Path v1 = Files.createDirectories(tempDir.resolve("versions/app-1.0.0"));
+        Files.writeString(v1.resolve("app.jar"), "v1");
+        Path link = Files.createSymbolicLink(tempDir.resolve("app"), v1);
+
+        for (String version : new String[] { "2.0.0", "3.0.0" }) {
+            Path staged = Files.createDirectories(tempDir.resolve("staged"));
+            Files.writeString(staged.resolve("app.jar"), version);
+            Properties plan = new Properties();
+            plan.setProperty("pid", String.valueOf(Long.MAX_VALUE));
+            plan.setProperty("mode", UpdateLauncher.MODE_DIRECTORY);
+            plan.setProperty("source", staged.toString());
+            plan.setProperty("target", link.resolve("app.jar").toString());
+            plan.setProperty("version", version);
+            assertTrue(UpdateLauncher.run(writePlan(plan)));
+        }
+
+        assertEquals("3.0.0", Files.readString(link.resolve("app.jar")));
+        assertEquals(tempDir.resolve("versions/app-2.0.0").toRealPath(),
+                tempDir.resolve("app" + UpdateLauncher.PREVIOUS_SUFFIX).toRealPath());
+        assertFalse(Files.exists(v1));
+    }
+
+    @Test
+    public void testRollbackRestoresPreviousDirectory() throws Exception {
+        Path install = Files.createDirectories(tempDir.resolve("install/plugins"));
+        Files.writeString(tempDir.resolve("install/app.jar"), "v2");
+        Files.writeString(install.resolve("pdf.jar"), "v2");
+        Path previous = Files.createDirectories(tempDir.resolve("install" + UpdateLauncher.PREVIOUS_SUFFIX + "/plugins"));
+        Files.writeString(previous.resolveSibling("app.jar"), "v1");
+        Files.writeString(previous.resolve("pdf.jar"), "v1");
+
+        Properties plan = new Properties();
+        plan.setProperty("pid", String.valueOf(Long.MAX_VALUE));
+        plan.setProperty("mode", UpdateLauncher.MODE_ROLLBACK);
+        plan.setProperty("target", tempDir.resolve("install/app.jar").toString());
+
+        assertTrue(UpdateLauncher.run(writePlan(plan)));
+        assertEquals("v1", Files.readString(tempDir.resolve("install/app.jar")));
+        assertEquals("v1", Files.readString(tempDir.resolve("install/plugins/pdf.jar")));
+        assertEquals("v2", Files.readString(
+                tempDir.resolve("install" + UpdateLauncher.PREVIOUS_SUFFIX + "/plugins/pdf.jar")));
+        assertFalse(Files.exists(tempDir.resolve("install" + UpdateLauncher.NEXT_SUFFIX)));
+    }
+
+    @Test
+    public void testRecoversInterruptedSwap() throws Exception {
+        Files.createDirectories(tempDir.resolve("install" + UpdateLauncher.PREVIOUS_SUFFIX));
+        Path next = Files.createDirectories(tempDir.resolve("install" + UpdateLauncher.NEXT_SUFFIX));
+        Files.writeString(next.resolve("app.jar"), "new");
+
+        UpdateLauncher.recover(tempDir.resolve("install"));
+        assertEquals("new", Files.readString(tempDir.resolve("install/app.jar")));
+    }
+}
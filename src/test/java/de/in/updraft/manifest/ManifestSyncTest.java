@@ -0,0 +1,108 @@
+package de.in.updraft.manifest;
+
+import de.in.updraft.download.DownloadEngine;
+import de.in.updraft.download.HttpStub;
+import de.in.updraft.transport.HttpTransport;
+import de.in.updraft.util.Checksums;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link ManifestSync}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class ManifestSyncTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static ReleaseManifest.Entry entry(String path, byte[] content) {
+        return new ReleaseManifest.Entry(path, content.length, sha256(content));
+    }
+
+    private static String sha256(byte[] content) {
+        return Checksums.toHex(Checksums.sha256().digest(content));
+    }
+
+    @Test
+    public void testPlanAndStage() throws Exception {
+        byte[] app = "app v2".getBytes(StandardCharsets.UTF_8);
+        byte[] same = "unchanged library".getBytes(StandardCharsets.UTF_8);
+        byte[] added = "new library".getBytes(StandardCharsets.UTF_8);
+
+        Path install = Files.createDirectories(tempDir.resolve("install"));
+        Files.createDirectories(install.resolve("lib"));
+        Files.write(install.resolve("app.jar"), "app v1".getBytes(StandardCharsets.UTF_8));
+        Files.write(install.resolve("lib/same.jar"), same);
+        Files.write(install.resolve("lib/old.jar"), "dropped".getBytes(StandardCharsets.UTF_8));
+        Files.write(install.resolve("settings.properties"), "user data".getBytes(StandardCharsets.UTF_8));
+        ReleaseManifest previous = new ReleaseManifest(null, List.of(
+                entry("app.jar", "app v1".getBytes(StandardCharsets.UTF_8)), entry("lib/same.jar", same),
+                entry("lib/old.jar", "dropped".getBytes(StandardCharsets.UTF_8))));
+        Files.writeString(install.resolve(ReleaseManifest.INSTALLED_NAME), previous.toJson());
+
+        ReleaseManifest manifest = new ReleaseManifest(null, List.of(entry("app.jar", app),
+                entry("lib/same.jar", same), entry("lib/new lib.jar", added)));
+
+        try (HttpStub stub = new HttpStub(null, true)) {
+            stub.put("/release/app.jar", app);
+            stub.put("/release/lib/new lib.jar", added);
+            ManifestSync sync = new ManifestSync(new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient())), 2, 2);
+
+            ManifestSync.Plan plan = sync.plan(manifest, install);
+            assertEquals(List.of("app.jar", "lib/new lib.jar"), plan.changed().stream()
+                    .map(ReleaseManifest.Entry::path).sorted().toList());
+            assertEquals(List.of("lib/old.jar"), plan.removed());
+            assertEquals(app.length + added.length, plan.downloadBytes());
+
+            Path staged = tempDir.resolve("staged");
+            sync.stage(plan, stub.uri("/release/manifest.json"), staged);
+            assertArrayEquals(app, Files.readAllBytes(staged.resolve("app.jar")));
+            assertArrayEquals(added, Files.readAllBytes(staged.resolve("lib/new lib.jar")));
+            assertFalse(Files.exists(staged.resolve("lib/same.jar")));
+            assertEquals(3, ReleaseManifest.parse(Files.readString(staged.resolve(ReleaseManifest.INSTALLED_NAME)))
+                    .files().size());
+            assertFalse(stub.requestedPaths().contains("/release/lib/same.jar"));
+        }
+    }
+
+    @Test
+    public void testStageRejectsWrongHash() throws Exception {
+        ReleaseManifest manifest = new ReleaseManifest(null, List.of(
+                new ReleaseManifest.Entry("app.jar", 3, sha256("abc".getBytes(StandardCharsets.UTF_8)))));
+        try (HttpStub stub = new HttpStub(null, true)) {
+            stub.put("/app.jar", "xyz".getBytes(StandardCharsets.UTF_8));
+            ManifestSync sync = new ManifestSync(new DownloadEngine(HttpTransport.of(HttpClient.newHttpClient())));
+            ManifestSync.Plan plan = sync.plan(manifest, Files.createDirectories(tempDir.resolve("empty")));
+
+            assertThrows(IOException.class, () -> sync.stage(plan, stub.uri("/manifest.json"), tempDir.resolve("s")));
+            assertFalse(Files.exists(tempDir.resolve("s/app.jar")));
+        }
+    }
+
+    @Test
+    public void testToJsonEscapesValues() throws Exception {
+        ReleaseManifest manifest = new ReleaseManifest("https://example.com/\"q\"\\", List.of(
+                new ReleaseManifest.Entry("lib/\"odd\"\tname.jar", 3, "ab\ncd")));
+
+        ReleaseManifest parsed = ReleaseManifest.parse(manifest.toJson());
+        assertEquals(manifest.baseUrl(), parsed.baseUrl());
+        assertEquals(manifest.files(), parsed.files());
+    }
+
+    @Test
+    public void testParseRejectsTraversal() {
+        String json = "{\"files\": [{\"path\": \"../evil.sh\", \"size\": 1, \"sha256\": \"00\"}]}";
+        assertThrows(IOException.class, () -> ReleaseManifest.parse(json));
+    }
+}
@@ -0,0 +1,79 @@
+package de.in.updraft.metrics;
+
+import de.in.updraft.GithubUpdater;
+import de.in.updraft.UpdateInfo;
+import de.in.updraft.UpdateSource;
+import de.in.updraft.download.ArtifactVerifier;
+import de.in.updraft.download.VerificationException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link Instrumentation}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class InstrumentationTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testCheckReportsOutcome() throws Exception {
+        List<PhaseEvent> events = new CopyOnWriteArrayList<>();
+        UpdateListener listener = events::add;
+        Instrumentation.addListener(listener);
+        try {
+            UpdateSource source = () -> new UpdateInfo("1.1.0", "https://example.com/app.jar", "");
+            new GithubUpdater("1.0.0", source, tempDir.resolve("app.jar")).checkForUpdates();
+            new GithubUpdater("1.1.0", source, tempDir.resolve("app.jar")).checkForUpdates();
+            UpdateSource failing = () -> {
+                throw new IOException("offline");
+            };
+            assertThrows(IOException.class,
+                    () -> new GithubUpdater("1.0.0", failing, tempDir.resolve("app.jar")).checkForUpdates());
+        } finally {
+            Instrumentation.removeListener(listener);
+        }
+
+        List<PhaseEvent> checks = events.stream().filter(e -> e.phase() == Phase.CHECK).toList();
+        assertEquals(3, checks.size());
+        assertEquals(Outcome.SUCCESS, checks.get(0).outcome());
+        assertEquals("1.1.0", checks.get(0).version());
+        assertEquals(Outcome.NO_UPDATE, checks.get(1).outcome());
+        assertEquals(Outcome.FAILURE, checks.get(2).outcome());
+        assertEquals("offline", checks.get(2).failure().getMessage());
+    }
+
+    @Test
+    public void testRecordsFlightRecorderEvents() throws Exception {
+        Path dump = tempDir.resolve("update.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(UpdatePhaseEvent.NAME);
+            recording.start();
+            ArtifactVerifier verifier = new ArtifactVerifier(null, 10);
+            verifier.reset();
+            verifier.update(new byte[4], 0, 4);
+            assertThrows(VerificationException.class, verifier::verify);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().equals(UpdatePhaseEvent.NAME)).toList();
+        assertEquals(1, events.size());
+        assertEquals("VERIFY", events.get(0).getString("phase"));
+        assertEquals("FAILURE", events.get(0).getString("outcome"));
+        assertEquals(4, events.get(0).getLong("bytes"));
+    }
+}
@@ -0,0 +1,36 @@
+package de.in.updraft.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link UpdateMetrics}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class UpdateMetricsTest {
+
+    @Test
+    public void testCountersAndTimers() {
+        UpdateMetrics metrics = new UpdateMetrics();
+        metrics.onPhase(new PhaseEvent(Phase.DOWNLOAD, "u", "2.0", 4_000_000, Duration.ofSeconds(2),
+                Outcome.SUCCESS, null));
+        metrics.onPhase(new PhaseEvent(Phase.DOWNLOAD, "u", "2.0", -1, Duration.ofSeconds(1), Outcome.FAILURE,
+                new IOException()));
+        metrics.onPhase(new PhaseEvent(Phase.DOWNLOAD, "u", "2.0", -1, Duration.ofMillis(10), Outcome.CANCELLED,
+                null));
+
+        UpdateMetrics.Stats stats = metrics.stats(Phase.DOWNLOAD);
+        assertEquals(3, stats.count());
+        assertEquals(1, stats.failures());
+        assertEquals(1, stats.cancelled());
+        assertEquals(Duration.ofMillis(3010), stats.total());
+        assertEquals(Duration.ofSeconds(2), stats.max());
+        assertEquals(4_000_000, stats.bytes());
+        assertEquals(0, metrics.stats(Phase.APPLY).count());
+    }
+}
@@ -0,0 +1,82 @@
+package de.in.updraft.peer;
+
+import de.in.updraft.StagedUpdate;
+import de.in.updraft.UpdateInfo;
+import de.in.updraft.UpdateRunner;
+import de.in.updraft.download.HttpStub;
+import de.in.updraft.source.JsonMetadataSource;
+import de.in.updraft.transport.HttpTransport;
+import de.in.updraft.util.Checksums;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link PeerServer}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class PeerServerTest {
+
+    private static final byte[] RELEASE = "release 2.0.0".getBytes(StandardCharsets.UTF_8);
+    private static final String SHA256 = Checksums.toHex(Checksums.sha256().digest(RELEASE));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testPeerServesArtifactAndMetadata() throws Exception {
+        try (HttpStub origin = new HttpStub(RELEASE, false);
+                PeerServer server = new PeerServer(tempDir.resolve("peer"), new InetSocketAddress("127.0.0.1", 0))) {
+            UpdateInfo info = new UpdateInfo("2.0.0", origin.uri("/app.jar").toString(), "Fixes \"x\"\n", List.of(),
+                    null, SHA256, RELEASE.length, null);
+            server.publish(info, Files.write(tempDir.resolve("downloaded.jar"), RELEASE));
+
+            UpdateInfo announced = new JsonMetadataSource(PeerServer.metadataUrl(server.uri()),
+                    HttpTransport.of(HttpClient.newHttpClient())).fetchUpdate();
+            assertEquals(info.version(), announced.version());
+            assertEquals(info.downloadUrl(), announced.downloadUrl());
+            assertEquals(info.changelog(), announced.changelog());
+            assertEquals(SHA256, announced.sha256());
+
+            UpdateRunner runner = runner("node-b");
+            runner.setPeers(List.of(server.uri()));
+            StagedUpdate staged = runner.stage(announced, null);
+            assertArrayEquals(RELEASE, Files.readAllBytes(staged.path()));
+            assertEquals(0, origin.getRequests());
+            Files.deleteIfExists(staged.path());
+        }
+    }
+
+    @Test
+    public void testBadPeerFallsBackToOrigin() throws Exception {
+        Path peerDir = Files.createDirectories(tempDir.resolve("peer"));
+        Files.writeString(peerDir.resolve(SHA256), "tampered");
+        try (HttpStub origin = new HttpStub(RELEASE, false);
+                PeerServer server = new PeerServer(peerDir, new InetSocketAddress("127.0.0.1", 0))) {
+            UpdateInfo info = new UpdateInfo("2.0.0", origin.uri("/app.jar").toString(), "", List.of(), null,
+                    SHA256, -1, null);
+            UpdateRunner runner = runner("node-c");
+            runner.setPeers(List.of(server.uri()));
+            StagedUpdate staged = runner.stage(info, null);
+            assertArrayEquals(RELEASE, Files.readAllBytes(staged.path()));
+            assertEquals(1, origin.getRequests());
+            Files.deleteIfExists(staged.path());
+        }
+    }
+
+    private UpdateRunner runner(String name) throws Exception {
+        Path appJar = Files.writeString(Files.createDirectories(tempDir.resolve(name)).resolve("app.jar"), "old");
+        UpdateRunner runner = new UpdateRunner(appJar, HttpTransport.of(HttpClient.newHttpClient()));
+        runner.setStagingDirectory(tempDir.resolve(name + "-staging"));
+        return runner;
+    }
+}
@@ -0,0 +1,98 @@
+package de.in.updraft.source;
+
+import de.in.updraft.UpdateInfo;
+import de.in.updraft.UpdateSource;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link CompositeUpdateSource}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class CompositeUpdateSourceTest {
+
+    private static UpdateSource source(String version, long delayMillis, AtomicInteger calls) {
+        return () -> {
+            calls.incrementAndGet();
+            Thread.sleep(delayMillis);
+            return new UpdateInfo(version, "https://example.com/" + version + ".tar.gz", "");
+        };
+    }
+
+    @Test
+    public void testReturnsHighestVersion() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompositeUpdateSource composite = new CompositeUpdateSource(source("1.0.0", 0, calls),
+                source("1.2.0", 100, calls), source("1.1.0", 0, calls));
+        composite.setGracePeriod(Duration.ofSeconds(5));
+
+        assertEquals("1.2.0", composite.fetchUpdate().version());
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void testCancelsSlowSourceAfterGracePeriod() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        UpdateSource slow = () -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return new UpdateInfo("9.0.0", "https://example.com/slow.tar.gz", "");
+        };
+        UpdateSource fast = source("1.0.0", 0, new AtomicInteger());
+        CompositeUpdateSource composite = new CompositeUpdateSource(slow, fast);
+        composite.setGracePeriod(Duration.ofMillis(50));
+
+        assertEquals("1.0.0", composite.fetchUpdate().version());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(composite.latencyOf(slow).compareTo(composite.latencyOf(fast)) > 0);
+    }
+
+    @Test
+    public void testHedgesAndPrefersFastestSource() throws Exception {
+        AtomicInteger slowCalls = new AtomicInteger();
+        AtomicInteger fastCalls = new AtomicInteger();
+        UpdateSource slow = source("1.0.0", 2_000, slowCalls);
+        UpdateSource fast = source("1.0.0", 0, fastCalls);
+        CompositeUpdateSource composite = new CompositeUpdateSource(slow, fast);
+        composite.setHedgeDelay(Duration.ofMillis(100));
+        composite.setGracePeriod(Duration.ZERO);
+
+        long start = System.nanoTime();
+        assertEquals("1.0.0", composite.fetchUpdate().version());
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1_500));
+        assertEquals(1, slowCalls.get());
+        assertEquals(1, fastCalls.get());
+
+        // The fast source now goes first and answers before the hedge fires.
+        composite.setHedgeDelay(Duration.ofSeconds(5));
+        composite.fetchUpdate();
+        assertEquals(1, slowCalls.get());
+        assertEquals(2, fastCalls.get());
+    }
+
+    @Test
+    public void testFailsOverAndReportsAllFailures() throws Exception {
+        UpdateSource broken = () -> {
+            throw new IOException("down");
+        };
+        CompositeUpdateSource composite = new CompositeUpdateSource(broken, source("1.0.0", 0, new AtomicInteger()));
+        composite.setHedgeDelay(Duration.ofSeconds(5));
+        assertEquals("1.0.0", composite.fetchUpdate().version());
+
+        IOException e = assertThrows(IOException.class, () -> new CompositeUpdateSource(broken, broken).fetchUpdate());
+        assertEquals("down", e.getCause().getMessage());
+        assertEquals(1, e.getSuppressed().length);
+    }
+}
@@ -1,8 +1,31 @@
 package de.in.updraft.source;
 
+import com.sun.net.httpserver.HttpServer;
+import de.in.updraft.DeltaPatch;
 import de.in.updraft.UpdateChannel;
 import de.in.updraft.UpdateInfo;
+import de.in.updraft.transport.HttpTransport;
+import de.in.updraft.transport.Transport;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -34,10 +57,190 @@ public class GithubReleaseSourceTest {
     }
 
     @Test
-    public void testExtractValue() {
+    public void testPatchAssets() throws Exception {
+        String url = "https://github.com/test/test/releases/download/v1.2.3/test.tar.gz";
+        String digest = "a".repeat(64);
+        String json = "{\"tag_name\": \"v1.2.3\", \"assets\": ["
+                + "{\"name\": \"test.tar.gz\", \"digest\": \"sha256:" + digest + "\", \"browser_download_url\": \""
+                + url + "\"},"
+                + "{\"name\": \"test.tar.gz.from-1.2.2.patch\", \"browser_download_url\": \"" + url
+                + ".from-1.2.2.patch\"}]}";
+
         GithubReleaseSource source = new GithubReleaseSource("owner", "repo", UpdateChannel.STABLE);
-        String json = "{\"foo\": \"bar\", \"nested\": {\"key\": \"value\"}}";
-        assertEquals("bar", source.extractValue(json, "foo"));
-        assertEquals("value", source.extractValue(json, "key"));
+        List<DeltaPatch> patches = source.parseOne(json).patches();
+
+        assertEquals(1, patches.size());
+        assertEquals("1.2.2", patches.get(0).fromVersion());
+        assertEquals(url + ".from-1.2.2.patch", patches.get(0).url());
+        assertEquals(digest, patches.get(0).targetSha256());
+    }
+
+    private static String release(String tag, boolean draft, boolean prerelease) {
+        return "{\"tag_name\": \"" + tag + "\", \"draft\": " + draft + ", \"prerelease\": " + prerelease
+                + ", \"assets\": [{\"name\": \"app.tar.gz\", \"uploader\": {\"login\": \"bot\"},"
+                + " \"browser_download_url\": \"https://example.com/" + tag + "/app.tar.gz\"},"
+                + " {\"name\": \"app.zip\", \"browser_download_url\": \"https://example.com/" + tag
+                + "/app.zip\"}], \"body\": \"Notes " + tag + "\"}";
+    }
+
+    @Test
+    public void testNightlyPicksHighestVersion() throws Exception {
+        // Listed by creation date: a backport was published after the release candidate.
+        String json = "[" + release("v1.9.1", false, false) + ", " + release("v3.0.0", true, false) + ", "
+                + release("v2.0.0-rc.10", false, true) + ", " + release("v2.0.0-rc.2", false, true) + ", "
+                + "{\"tag_name\": \"v9.0.0\", \"assets\": []}]";
+
+        GithubReleaseSource source = new GithubReleaseSource("owner", "repo", UpdateChannel.NIGHTLY);
+        UpdateInfo info = source.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("v2.0.0-rc.10", info.version());
+        assertEquals("Notes v2.0.0-rc.10", info.changelog());
+    }
+
+    @Test
+    public void testNightlyFollowsPagesUntilNothingNewer() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        String base = "https://api.github.com/repos/owner/repo/releases";
+        String[] pages = { "[" + release("v1.0.1", false, false) + "]",
+                "[" + release("v1.2.0", false, false) + "," + release("v1.1.0", false, false) + "]",
+                "[" + release("v1.0.0", false, false) + "]", "[" + release("v5.0.0", false, false) + "]" };
+        server.createContext("/repos/owner/repo/releases", exchange -> {
+            requests.incrementAndGet();
+            String query = exchange.getRequestURI().getQuery();
+            int page = query.contains("page=") && !query.endsWith("per_page=100")
+                    ? Integer.parseInt(query.substring(query.lastIndexOf('=') + 1))
+                    : 1;
+            if (page < pages.length) {
+                exchange.getResponseHeaders().add("Link",
+                        "<" + base + "?per_page=100&page=" + (page + 1) + ">; rel=\"next\", <" + base
+                                + "?per_page=100&page=" + pages.length + ">; rel=\"last\"");
+            }
+            byte[] body = pages[page - 1].getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        try {
+            GithubReleaseSource source = new GithubReleaseSource("owner", "repo", UpdateChannel.NIGHTLY,
+                    redirectTo(server));
+            UpdateInfo info = source.fetchUpdate();
+
+            assertEquals("v1.2.0", info.version());
+            // The third page has nothing newer, so the fourth is never requested.
+            assertEquals(3, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testNightlyRevalidatesFirstPage(@TempDir Path tempDir) throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        AtomicInteger notModified = new AtomicInteger();
+        AtomicBoolean rateLimited = new AtomicBoolean();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        String base = "https://api.github.com/repos/owner/repo/releases";
+        server.createContext("/repos/owner/repo/releases", exchange -> {
+            requests.incrementAndGet();
+            String body;
+            if (rateLimited.get()) {
+                exchange.getResponseHeaders().add("X-RateLimit-Remaining", "0");
+                exchange.getResponseHeaders().add("X-RateLimit-Reset", "4102444800");
+                exchange.sendResponseHeaders(403, -1);
+                exchange.close();
+                return;
+            } else if (exchange.getRequestURI().getQuery().endsWith("page=2")) {
+                body = "[" + release("v1.2.0", false, false) + "]";
+            } else if ("\"p1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            } else {
+                exchange.getResponseHeaders().add("ETag", "\"p1\"");
+                exchange.getResponseHeaders().add("Link", "<" + base + "?per_page=100&page=2>; rel=\"next\"");
+                body = "[" + release("v1.0.1", false, false) + "]";
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        try {
+            GithubReleaseSource source = new GithubReleaseSource("owner", "repo", UpdateChannel.NIGHTLY,
+                    redirectTo(server));
+            source.setMetadataCache(new MetadataCache(tempDir));
+            assertEquals("v1.2.0", source.fetchUpdate().version());
+            assertEquals(2, requests.get());
+
+            // Unchanged first page: the result of all pages is served from memory.
+            assertEquals("v1.2.0", source.fetchUpdate().version());
+            assertEquals(3, requests.get());
+
+            // After a restart only the first page is on disk, without its Link
+            // header, so it is read alone.
+            GithubReleaseSource restarted = new GithubReleaseSource("owner", "repo", UpdateChannel.NIGHTLY,
+                    redirectTo(server));
+            restarted.setMetadataCache(new MetadataCache(tempDir));
+            assertEquals("v1.0.1", restarted.fetchUpdate().version());
+            assertEquals(4, requests.get());
+            assertEquals(2, notModified.get());
+
+            // During a rate-limit back-off the cached result causes no requests.
+            rateLimited.set(true);
+            assertEquals("v1.2.0", source.fetchUpdate().version());
+            assertEquals(5, requests.get());
+            assertEquals("v1.2.0", source.fetchUpdate().version());
+            GithubReleaseSource limited = new GithubReleaseSource("owner", "repo", UpdateChannel.NIGHTLY,
+                    redirectTo(server));
+            limited.setMetadataCache(new MetadataCache(tempDir));
+            assertEquals("v1.0.1", limited.fetchUpdate().version());
+            assertEquals(5, requests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * @return A transport that sends requests for GitHub to the local server.
+     */
+    private static Transport redirectTo(HttpServer server) {
+        HttpTransport http = HttpTransport.of(HttpClient.newHttpClient());
+        URI local = URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+        return new Transport() {
+            @Override
+            public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+                    throws IOException, InterruptedException {
+                return http.send(redirect(request), handler);
+            }
+
+            @Override
+            public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                    HttpResponse.BodyHandler<T> handler) {
+                return http.sendAsync(redirect(request), handler);
+            }
+
+            private HttpRequest redirect(HttpRequest request) {
+                URI uri = request.uri();
+                HttpRequest.Builder builder = HttpRequest
+                        .newBuilder(local.resolve(uri.getRawPath() + "?" + uri.getRawQuery()));
+                request.headers().firstValue("If-None-Match").ifPresent(v -> builder.header("If-None-Match", v));
+                return builder.build();
+            }
+        };
+    }
+
+    @Test
+    public void testNextLink() {
+        HttpHeaders headers = HttpHeaders.of(Map.of("Link", List.of(
+                "<https://api.github.com/x?page=1>; rel=\"prev\", <https://api.github.com/x?page=3>; rel=\"next\"")),
+                (name, value) -> true);
+        assertEquals("https://api.github.com/x?page=3", GithubReleaseSource.nextLink(headers));
+        assertNull(GithubReleaseSource.nextLink(HttpHeaders.of(Map.of(), (name, value) -> true)));
     }
 }
@@ -1,6 +1,13 @@
 package de.in.updraft.source;
 
+import de.in.updraft.Artifact;
+import de.in.updraft.DeltaPatch;
+import de.in.updraft.UpdateInfo;
 import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -11,12 +18,72 @@ import static org.junit.jupiter.api.Assertions.*;
 public class JsonMetadataSourceTest {
 
     @Test
-    public void testExtractValue() {
+    public void testParse() throws Exception {
         JsonMetadataSource source = new JsonMetadataSource("http://example.com/update.json");
         String json = "{\"version\": \"2.0.0\", \"url\": \"http://dl.com/app.jar\", \"changelog\": \"Update!\"}";
 
-        assertEquals("2.0.0", source.extractValue(json, "version"));
-        assertEquals("http://dl.com/app.jar", source.extractValue(json, "url"));
-        assertEquals("Update!", source.extractValue(json, "changelog"));
+        UpdateInfo info = source.parse(new StringReader(json));
+        assertEquals("2.0.0", info.version());
+        assertEquals("http://dl.com/app.jar", info.downloadUrl());
+        assertEquals("Update!", info.changelog());
+    }
+
+    @Test
+    public void testParsePatches() throws Exception {
+        JsonMetadataSource source = new JsonMetadataSource("http://example.com/update.json");
+        String json = "{\"version\": \"2.0.0\", \"url\": \"http://dl.com/app.jar\", \"patches\": ["
+                + "{\"from\": \"1.9.0\", \"url\": \"http://dl.com/app-1.9.0.patch\", \"sha256\": \"abc\"}]}";
+
+        List<DeltaPatch> patches = source.parse(new StringReader(json)).patches();
+        assertEquals(1, patches.size());
+        assertEquals("1.9.0", patches.get(0).fromVersion());
+        assertEquals("http://dl.com/app-1.9.0.patch", patches.get(0).url());
+        assertEquals("abc", patches.get(0).targetSha256());
+
+        UpdateInfo info = new UpdateInfo("2.0.0", "http://dl.com/app.jar", "", patches);
+        assertSame(patches.get(0), info.patchFrom("v1.9.0"));
+        assertNull(info.patchFrom("1.8.0"));
+    }
+
+    @Test
+    public void testParseEscapesAndOrder() throws Exception {
+        JsonMetadataSource source = new JsonMetadataSource("http://example.com/update.json");
+        String json = "{\"patches\": [{\"from\": \"1.0\", \"url\": \"http://dl.com/p\"}], \"extra\": {\"a\": [1, 2]},"
+                + " \"changelog\": \"Say \\\"hi\\\"\\n\\u00e4\", \"url\": \"http://dl.com/app.jar\", \"version\": \"2.0.0\"}";
+
+        UpdateInfo info = source.parse(new StringReader(json));
+        assertEquals("2.0.0", info.version());
+        assertEquals("http://dl.com/app.jar", info.downloadUrl());
+        assertEquals("Say \"hi\"\n\u00e4", info.changelog());
+    }
+
+    @Test
+    public void testParseVerification() throws Exception {
+        JsonMetadataSource source = new JsonMetadataSource("http://example.com/update.json");
+        String json = "{\"version\": \"2.0.0\", \"url\": \"http://dl.com/app.jar\", \"sha256\": \"abc\","
+                + " \"size\": 1234, \"signature\": \"http://dl.com/app.jar.sig\"}";
+
+        UpdateInfo info = source.parse(new StringReader(json));
+        assertEquals("abc", info.sha256());
+        assertEquals(1234, info.size());
+        assertEquals("http://dl.com/app.jar.sig", info.signatureUrl());
+        assertEquals(-1, new UpdateInfo("2.0.0", "http://dl.com/app.jar", "").size());
+    }
+
+    @Test
+    public void testParseArtifacts() throws Exception {
+        JsonMetadataSource source = new JsonMetadataSource("http://example.com/update.json");
+        String json = "{\"version\": \"2.0.0\", \"artifacts\": ["
+                + "{\"path\": \"app.jar\", \"url\": \"http://dl.com/app.jar\", \"sha256\": \"abc\", \"size\": 12},"
+                + "{\"path\": \"plugins/pdf.jar\", \"url\": \"http://dl.com/pdf.jar\", \"signature\": \"http://dl.com/pdf.sig\"}]}";
+
+        UpdateInfo info = source.parse(new StringReader(json));
+        assertEquals("http://dl.com/app.jar", info.downloadUrl());
+        List<Artifact> artifacts = info.artifacts();
+        assertEquals(2, artifacts.size());
+        assertEquals(new Artifact("app.jar", "http://dl.com/app.jar", "abc", 12, null), artifacts.get(0));
+        assertEquals("plugins/pdf.jar", artifacts.get(1).path());
+        assertEquals(-1, artifacts.get(1).size());
+        assertEquals("http://dl.com/pdf.sig", artifacts.get(1).signatureUrl());
     }
 }
@@ -0,0 +1,174 @@
+package de.in.updraft.source;
+
+import com.sun.net.httpserver.HttpServer;
+import de.in.updraft.UpdateInfo;
+import de.in.updraft.transport.HttpTransport;
+import de.in.updraft.transport.Transport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link MetadataCache}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class MetadataCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private volatile String cacheControl = "no-cache";
+    private volatile boolean rateLimited;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/update.json", exchange -> {
+            requests.incrementAndGet();
+            if (rateLimited) {
+                exchange.getResponseHeaders().add("X-RateLimit-Remaining", "0");
+                exchange.getResponseHeaders().add("X-RateLimit-Reset", "4102444800");
+                exchange.sendResponseHeaders(403, -1);
+            } else if ("\"abc\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                byte[] body = "{\"version\": \"2.0.0\", \"url\": \"http://dl/app.jar\"}"
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", "\"abc\"");
+                exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private HttpRequest.Builder request() {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/update.json"));
+    }
+
+    private static UpdateInfo parse(int status, InputStream body) throws IOException {
+        if (status != 200) {
+            throw new IOException("HTTP " + status);
+        }
+        return new JsonMetadataSource("unused").parse(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRevalidatesWithEtag() throws Exception {
+        MetadataCache cache = new MetadataCache();
+        Transport client = HttpTransport.of(HttpClient.newHttpClient());
+
+        UpdateInfo first = cache.fetch(client, request(), MetadataCacheTest::parse);
+        UpdateInfo second = cache.fetch(client, request(), MetadataCacheTest::parse);
+
+        assertEquals("2.0.0", first.version());
+        assertSame(first, second);
+        assertEquals(2, requests.get());
+        assertEquals(1, fullResponses.get());
+    }
+
+    @Test
+    public void testHonoursMaxAge() throws Exception {
+        cacheControl = "public, max-age=60";
+        MutableClock clock = new MutableClock();
+        MetadataCache cache = new MetadataCache(null, clock);
+        Transport client = HttpTransport.of(HttpClient.newHttpClient());
+
+        cache.fetch(client, request(), MetadataCacheTest::parse);
+        cache.fetch(client, request(), MetadataCacheTest::parse);
+        assertEquals(1, requests.get());
+
+        clock.now += 61_000;
+        cache.fetch(client, request(), MetadataCacheTest::parse);
+        assertEquals(2, requests.get());
+        assertEquals(1, fullResponses.get());
+    }
+
+    @Test
+    public void testPersistedEntrySurvivesRestart() throws Exception {
+        Transport client = HttpTransport.of(HttpClient.newHttpClient());
+        new MetadataCache(tempDir).fetch(client, request(), MetadataCacheTest::parse);
+
+        UpdateInfo info = new MetadataCache(tempDir).fetch(client, request(), MetadataCacheTest::parse);
+        assertEquals("2.0.0", info.version());
+        assertEquals(1, fullResponses.get());
+    }
+
+    @Test
+    public void testBacksOffWhenRateLimited() throws Exception {
+        MetadataCache cache = new MetadataCache();
+        Transport client = HttpTransport.of(HttpClient.newHttpClient());
+        UpdateInfo first = cache.fetch(client, request(), MetadataCacheTest::parse);
+
+        rateLimited = true;
+        assertSame(first, cache.fetch(client, request(), MetadataCacheTest::parse));
+        assertSame(first, cache.fetch(client, request(), MetadataCacheTest::parse));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testRateLimitWithoutCacheFails() throws Exception {
+        MetadataCache cache = new MetadataCache();
+        Transport client = HttpTransport.of(HttpClient.newHttpClient());
+        rateLimited = true;
+
+        IOException e = assertThrows(IOException.class,
+                () -> cache.fetch(client, request(), MetadataCacheTest::parse));
+        assertTrue(e.getMessage().contains("2100-01-01T00:00:00Z"), e.getMessage());
+        // The limit is remembered, so the second check sends nothing.
+        assertThrows(IOException.class, () -> cache.fetch(client, request(), MetadataCacheTest::parse));
+        assertEquals(1, requests.get());
+    }
+
+    private static class MutableClock extends Clock {
+        long now = 1_000_000;
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now);
+        }
+    }
+}
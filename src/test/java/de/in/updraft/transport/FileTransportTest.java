@@ -0,0 +1,101 @@
+package de.in.updraft.transport;
+
+import de.in.updraft.UpdateChannel;
+import de.in.updraft.UpdateInfo;
+import de.in.updraft.download.DownloadEngine;
+import de.in.updraft.source.GithubReleaseSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link FileTransport}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class FileTransportTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path mirror(String path, byte[] content) throws Exception {
+        Path file = tempDir.resolve("mirror").resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        return file;
+    }
+
+    @Test
+    public void testCheckAndDownloadFromMirror() throws Exception {
+        byte[] artifact = new byte[50_000];
+        new Random(7).nextBytes(artifact);
+        String artifactUrl = "https://github.com/owner/repo/releases/download/v2.0.0/app.tar.gz";
+        mirror("github.com/owner/repo/releases/download/v2.0.0/app.tar.gz", artifact);
+        mirror("api.github.com/repos/owner/repo/releases/latest", ("{\"tag_name\": \"v2.0.0\", \"assets\": "
+                + "[{\"name\": \"app.tar.gz\", \"browser_download_url\": \"" + artifactUrl + "\"}]}")
+                .getBytes(StandardCharsets.UTF_8));
+
+        FileTransport transport = new FileTransport(tempDir.resolve("mirror"));
+        UpdateInfo info = new GithubReleaseSource("owner", "repo", UpdateChannel.STABLE, transport).fetchUpdate();
+        assertEquals("v2.0.0", info.version());
+
+        Path target = tempDir.resolve("app.tar.gz");
+        DownloadEngine engine = new DownloadEngine(transport, 4, 1_000);
+        assertEquals(artifact.length, engine.download(URI.create(info.downloadUrl()), target));
+        assertArrayEquals(artifact, Files.readAllBytes(target));
+    }
+
+    @Test
+    public void testRangesAndConditionalRequests() throws Exception {
+        mirror("example.com/file.bin", "0123456789".getBytes(StandardCharsets.UTF_8));
+        FileTransport transport = new FileTransport(tempDir.resolve("mirror"));
+        URI uri = URI.create("https://example.com/file.bin?ignored=1");
+
+        HttpResponse<String> full = transport.send(HttpRequest.newBuilder(uri).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, full.statusCode());
+        assertEquals("0123456789", full.body());
+        String etag = full.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> range = transport.send(HttpRequest.newBuilder(uri).header("Range", "bytes=2-4")
+                .header("If-Range", etag).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(206, range.statusCode());
+        assertEquals("234", range.body());
+        assertEquals("bytes 2-4/10", range.headers().firstValue("Content-Range").orElseThrow());
+
+        HttpResponse<String> staleRange = transport.send(HttpRequest.newBuilder(uri).header("Range", "bytes=2-4")
+                .header("If-Range", "\"other\"").build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, staleRange.statusCode());
+
+        HttpResponse<String> notModified = transport.send(HttpRequest.newBuilder(uri)
+                .header("If-None-Match", etag).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, notModified.statusCode());
+        assertEquals("", notModified.body());
+
+        try (var in = transport.send(HttpRequest.newBuilder(uri).header("Range", "bytes=-3").build(),
+                HttpResponse.BodyHandlers.ofInputStream()).body()) {
+            assertEquals("789", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testMissingFilesAndTraversal() throws Exception {
+        mirror("secret.txt", new byte[] { 1 });
+        FileTransport transport = new FileTransport(tempDir.resolve("mirror"));
+
+        assertEquals(404, transport.send(HttpRequest.newBuilder(URI.create("https://example.com/missing")).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+        assertNull(transport.resolve(URI.create("https://example.com/../secret.txt")));
+        assertNull(FileTransport.parseRange("bytes=20-30", 10));
+        assertArrayEquals(new long[] { 5, 9 }, FileTransport.parseRange("bytes=5-", 10));
+    }
+}
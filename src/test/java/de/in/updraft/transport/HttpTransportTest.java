@@ -0,0 +1,54 @@
+package de.in.updraft.transport;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link HttpTransport}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class HttpTransportTest {
+
+    @Test
+    public void testAppliesUserAgentUnlessSet() throws Exception {
+        List<String> agents = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            agents.add(exchange.getRequestHeaders().getFirst("User-Agent"));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            HttpTransport transport = HttpTransport.newBuilder()
+                    .userAgent("MyApp/1.0")
+                    .requestTimeout(Duration.ofSeconds(5))
+                    .build();
+            URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+
+            transport.send(transport.newRequest(uri).build(), HttpResponse.BodyHandlers.discarding());
+            transport.sendAsync(HttpRequest.newBuilder(uri).header("User-Agent", "Custom").build(),
+                    HttpResponse.BodyHandlers.discarding()).get();
+
+            assertEquals(List.of("MyApp/1.0", "Custom"), agents);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testSharedInstance() {
+        assertSame(HttpTransport.shared(), HttpTransport.shared());
+    }
+}
@@ -0,0 +1,115 @@
+package de.in.updraft.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link BsPatch}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class BsPatchTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testApply() throws Exception {
+        byte[] oldData = new byte[200_000];
+        new Random(1).nextBytes(oldData);
+        byte[] newData = new byte[230_000];
+        System.arraycopy(oldData, 0, newData, 0, oldData.length);
+        for (int i = 0; i < oldData.length; i += 997) {
+            newData[i]++;
+        }
+        for (int i = oldData.length; i < newData.length; i++) {
+            newData[i] = (byte) i;
+        }
+
+        Path oldFile = Files.write(tempDir.resolve("old.jar"), oldData);
+        Path patchFile = Files.write(tempDir.resolve("update.patch"), diff(oldData, newData));
+        Path newFile = tempDir.resolve("new.jar");
+
+        String hash = BsPatch.apply(oldFile, patchFile, newFile);
+        assertArrayEquals(newData, Files.readAllBytes(newFile));
+        assertEquals(Checksums.sha256(newFile), hash);
+    }
+
+    @Test
+    public void testRejectsForeignFile() throws Exception {
+        Path oldFile = Files.write(tempDir.resolve("old.jar"), new byte[10]);
+        Path patchFile = Files.write(tempDir.resolve("bad.patch"),
+                "not a patch at all, just some text".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> BsPatch.apply(oldFile, patchFile, tempDir.resolve("new.jar")));
+    }
+
+    @Test
+    public void testOfftin() {
+        byte[] bytes = new byte[8];
+        bytes[0] = 5;
+        bytes[7] = (byte) 0x80;
+        assertEquals(-5, BsPatch.offtin(bytes, 0));
+    }
+
+    /**
+     * Creates a trivial bsdiff patch: one diff run over the common length and
+     * the rest of the new file as extra data.
+     */
+    public static byte[] diff(byte[] oldData, byte[] newData) throws IOException {
+        int common = Math.min(oldData.length, newData.length);
+        byte[] diff = new byte[common];
+        for (int i = 0; i < common; i++) {
+            diff[i] = (byte) (newData[i] - oldData[i]);
+        }
+        byte[] extra = new byte[newData.length - common];
+        System.arraycopy(newData, common, extra, 0, extra.length);
+
+        ByteArrayOutputStream ctrl = new ByteArrayOutputStream();
+        ctrl.write(offtout(common));
+        ctrl.write(offtout(extra.length));
+        ctrl.write(offtout(0));
+        byte[] ctrlBlock = gzip(ctrl.toByteArray());
+        byte[] diffBlock = gzip(diff);
+
+        ByteArrayOutputStream patch = new ByteArrayOutputStream();
+        patch.write("BSDIFF40".getBytes(StandardCharsets.US_ASCII));
+        patch.write(offtout(ctrlBlock.length));
+        patch.write(offtout(diffBlock.length));
+        patch.write(offtout(newData.length));
+        patch.write(ctrlBlock);
+        patch.write(diffBlock);
+        patch.write(gzip(extra));
+        return patch.toByteArray();
+    }
+
+    private static byte[] offtout(long value) {
+        byte[] bytes = new byte[8];
+        long abs = Math.abs(value);
+        for (int i = 0; i < 8; i++) {
+            bytes[i] = (byte) (abs >>> (8 * i));
+        }
+        if (value < 0) {
+            bytes[7] |= (byte) 0x80;
+        }
+        return bytes;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (OutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,61 @@
+package de.in.updraft.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link JsonReader}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class JsonReaderTest {
+
+    @Test
+    public void testReadAndSkip() throws Exception {
+        String json = "{\"skip\": {\"a\": [1, 2.5e3, true, null, \"x\\\"}]\"]}, \"name\": \"A\\tB\\u0021\","
+                + " \"count\": -42, \"flag\": false}";
+        JsonReader reader = new JsonReader(new StringReader(json));
+        reader.beginObject();
+        assertEquals("skip", reader.nextName());
+        reader.skipValue();
+        assertEquals("name", reader.nextName());
+        assertEquals("A\tB!", reader.nextString());
+        assertEquals("count", reader.nextName());
+        assertEquals(-42, reader.nextLong());
+        assertEquals("flag", reader.nextName());
+        assertFalse(reader.nextBoolean());
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertEquals(JsonReader.Token.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    public void testLongStringAcrossBuffers() throws Exception {
+        String value = "x".repeat(20_000) + "\\n" + "y".repeat(10_000);
+        JsonReader reader = new JsonReader(new StringReader("[\"" + value + "\"]"));
+        reader.beginArray();
+        String read = reader.nextString();
+        assertEquals(30_001, read.length());
+        assertEquals('\n', read.charAt(20_000));
+    }
+
+    @Test
+    public void testFindString() throws Exception {
+        JsonReader reader = new JsonReader(new StringReader("[{\"a\": 1}, {\"b\": {\"key\": \"value\"}}]"));
+        assertEquals("value", reader.findString("key"));
+    }
+
+    @Test
+    public void testMalformed() {
+        JsonReader reader = new JsonReader(new StringReader("{\"a\": \"unterminated"));
+        assertThrows(IOException.class, () -> {
+            reader.beginObject();
+            reader.nextName();
+            reader.nextString();
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package de.in.updraft.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for {@link VersionRange}.
+ *
+ * @author TiJaWo68 in cooperation with Gemini 3 Flash using Antigravity
+ */
+public class VersionRangeTest {
+
+    @Test
+    public void testComparators() {
+        VersionRange range = VersionRange.parse(">=1.2.0 <2.0.0");
+        assertTrue(range.matches("1.2.0"));
+        assertTrue(range.matches("1.99.0"));
+        assertFalse(range.matches("2.0.0"));
+        assertFalse(range.matches("1.1.9"));
+        assertTrue(VersionRange.parse(">= 1.2").matches("1.2.0"));
+        assertTrue(VersionRange.parse("<=1.2").matches("1.2.9"));
+        assertFalse(VersionRange.parse(">1.2").matches("1.2.9"));
+    }
+
+    @Test
+    public void testCaretTildeAndWildcards() {
+        assertTrue(VersionRange.parse("^1.4").matches("1.9.0"));
+        assertFalse(VersionRange.parse("^1.4").matches("2.0.0"));
+        assertFalse(VersionRange.parse("^0.2.3").matches("0.3.0"));
+        assertFalse(VersionRange.parse("^0.0.3").matches("0.0.4"));
+        assertTrue(VersionRange.parse("~2.1.3").matches("2.1.9"));
+        assertFalse(VersionRange.parse("~2.1.3").matches("2.2.0"));
+        assertTrue(VersionRange.parse("1.x").matches("1.5.2"));
+        assertFalse(VersionRange.parse("1.2.*").matches("1.3.0"));
+        assertTrue(VersionRange.parse("*").matches("42.0.0"));
+        assertTrue(VersionRange.parse("1.0.0 - 1.5").matches("1.5.7"));
+        assertFalse(VersionRange.parse("1.0.0 - 1.5").matches("1.6.0"));
+    }
+
+    @Test
+    public void testAlternativesAndPreReleases() {
+        VersionRange range = VersionRange.parse("^1.0 || >=3.0.0-beta.2 <3.1");
+        assertTrue(range.matches("1.4.0"));
+        assertFalse(range.matches("2.0.0"));
+        assertTrue(range.matches("3.0.0-beta.10"));
+        assertFalse(range.matches("3.0.0-beta.1"));
+        // A pre-release of another version is not selected by a release bound.
+        assertFalse(range.matches("1.5.0-alpha"));
+        assertThrows(IllegalArgumentException.class, () -> VersionRange.parse(">=1.a"));
+    }
+
+    @Test
+    public void testFilterAndHighest() {
+        List<Version> versions = List.of(new Version("2.1.0"), new Version("1.0.0"), new Version("1.3.0"),
+                new Version("1.4.0-rc.1"), new Version("1.2.5"));
+        VersionRange range = VersionRange.parse("^1.2");
+        assertEquals("[1.2.5, 1.3.0]", range.filter(versions).toString());
+        assertEquals(new Version("1.3.0"), range.highest(versions));
+        assertNull(VersionRange.parse(">5").highest(versions));
+    }
+}
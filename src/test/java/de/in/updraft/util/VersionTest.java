@@ -1,6 +1,10 @@
 package de.in.updraft.util;
 
 import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -32,4 +36,44 @@ public class VersionTest {
         Version v2 = new Version("1.0.0");
         assertTrue(v2.isNewerThan("1.0.0-beta"));
     }
+
+    @Test
+    public void testPreReleasePrecedence() {
+        // The ordering example of the SemVer 2.0 specification.
+        String[] ordered = { "1.0.0-alpha", "1.0.0-alpha.1", "1.0.0-alpha.beta", "1.0.0-beta", "1.0.0-beta.2",
+                "1.0.0-beta.11", "1.0.0-rc.1", "1.0.0" };
+        for (int i = 1; i < ordered.length; i++) {
+            assertTrue(new Version(ordered[i]).isNewerThan(ordered[i - 1]), ordered[i] + " > " + ordered[i - 1]);
+            assertFalse(new Version(ordered[i - 1]).isNewerThan(ordered[i]));
+        }
+        assertTrue(new Version("1.0.0-rc.10").isNewerThan("1.0.0-rc.2"));
+    }
+
+    @Test
+    public void testBuildMetadataIgnored() {
+        Version build = new Version("1.2.3+build.7");
+        assertEquals(new Version("1.2.3+other"), build);
+        assertEquals(new Version("1.2.3").hashCode(), build.hashCode());
+        assertEquals("build.7", build.build());
+        assertEquals("1.2.3+build.7", build.toString());
+        assertEquals("rc.1", new Version("1.2.3-rc.1+exp.sha.5114f85").preRelease());
+    }
+
+    @Test
+    public void testLenientParts() {
+        assertEquals(new Version("1.2"), new Version("1.2.0"));
+        assertTrue(new Version("1.2.3.4").isNewerThan("1.2.3"));
+        assertTrue(new Version("5000000.0.0").isNewerThan("4999999.9.9"));
+        assertEquals(0, new Version("1.x.0").minor());
+    }
+
+    @Test
+    public void testSorting() {
+        List<Version> versions = new ArrayList<>();
+        for (String v : new String[] { "2.0.0", "1.10.0", "1.2.0", "1.10.0-rc.1", "1.9.9" }) {
+            versions.add(new Version(v));
+        }
+        versions.sort(null);
+        assertEquals("[1.2.0, 1.9.9, 1.10.0-rc.1, 1.10.0, 2.0.0]", versions.toString());
+    }
 }